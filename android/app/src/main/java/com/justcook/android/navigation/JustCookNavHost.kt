@@ -145,6 +145,9 @@ fun JustCookNavHost(
                 SearchScreen(
                     onRecipeClick = { slug ->
                         navController.navigate(Screen.RecipeDetail.createRoute(slug))
+                    },
+                    onChefClick = { username ->
+                        navController.navigate(Screen.ChefProfile.createRoute(username))
                     }
                 )
             }
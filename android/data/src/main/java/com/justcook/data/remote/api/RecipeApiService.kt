@@ -15,6 +15,7 @@ import com.justcook.data.remote.dto.response.DiscoverResponseDto
 import com.justcook.data.remote.dto.response.FollowingResponseDto
 import com.justcook.data.remote.dto.response.RecipeDetailResponseDto
 import com.justcook.data.remote.dto.response.RecipeListResponseDto
+import com.justcook.data.remote.dto.response.SuggestionsResponseDto
 import com.justcook.data.remote.dto.response.TrendingChefsResponseDto
 import com.justcook.data.remote.dto.response.TrendingResponseDto
 import com.justcook.data.remote.dto.response.VoteResponseDto
@@ -46,9 +47,21 @@ interface RecipeApiService {
         @Query("tag") tag: String? = null,
         @Query("lang") language: String? = null,
         @Query("page") page: Int = 1,
-        @Query("limit") limit: Int = 20
+        @Query("limit") limit: Int = 20,
+        // nextCursor from the previous page; takes precedence over page
+        @Query("cursor") cursor: String? = null,
+        // "relevance" ranks matches (paged by page, no cursor); default is newest first
+        @Query("sort") sort: String? = null
     ): RecipeListResponseDto
 
+    // Typeahead: titles, tags and chefs for a typed prefix (cheap; use per keystroke)
+    @GET("api/suggest")
+    suspend fun getSuggestions(
+        @Query("q") query: String,
+        @Query("lang") language: String? = null,
+        @Query("limit") limit: Int = 8
+    ): SuggestionsResponseDto
+
     @POST("api/recipes")
     suspend fun createRecipe(@Body request: CreateRecipeRequestDto): CreateRecipeResponseDto
 
@@ -81,7 +94,10 @@ interface RecipeApiService {
 
     // Comments
     @GET("api/comments")
-    suspend fun getComments(@Query("slug") slug: String): CommentsResponseDto
+    suspend fun getComments(
+        @Query("slug") slug: String,
+        @Query("cursor") cursor: String? = null
+    ): CommentsResponseDto
 
     @POST("api/comments")
     suspend fun createComment(@Body request: CreateCommentRequestDto): CreateCommentResponseDto
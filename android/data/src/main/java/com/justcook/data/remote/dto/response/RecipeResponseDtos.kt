@@ -23,7 +23,30 @@ data class DiscoverResponseDto(
 data class RecipeListResponseDto(
     val recipes: List<RecipeSummaryDto>,
     val page: Int = 1,
-    val limit: Int = 20
+    val limit: Int = 20,
+    // Pass back as `cursor` to fetch the next page; null on the last page
+    val nextCursor: String? = null,
+    val hasMore: Boolean = false
+)
+
+// Typeahead suggestions (GET api/suggest)
+@Serializable
+data class SuggestionsResponseDto(
+    val recipes: List<RecipeSuggestionDto> = emptyList(),
+    val tags: List<String> = emptyList(),
+    val chefs: List<ChefSuggestionDto> = emptyList()
+)
+
+@Serializable
+data class RecipeSuggestionDto(
+    val title: String,
+    val slug: String
+)
+
+@Serializable
+data class ChefSuggestionDto(
+    val username: String,
+    val name: String
 )
 
 // Summary DTO used in listings (trending, discover, search)
@@ -157,6 +180,7 @@ data class ChefDto(
 data class ChefStatsDto(
     val recipeCount: Int = 0,
     val followerCount: Int = 0,
+    val followingCount: Int = 0,
     val totalUpvotes: Int = 0
 )
 
@@ -167,7 +191,9 @@ data class FollowingResponseDto(
 
 @Serializable
 data class CommentsResponseDto(
-    val comments: List<CommentDto>
+    val comments: List<CommentDto>,
+    // Pass back as `cursor` to fetch the next page; null on the last page
+    val nextCursor: String? = null
 )
 
 @Serializable
@@ -13,7 +13,10 @@ import com.justcook.data.remote.dto.request.StepInputDto
 import com.justcook.data.remote.dto.request.UpdateRecipeRequestDto
 import com.justcook.data.remote.dto.request.VoteRequestDto
 import com.justcook.domain.model.Recipe
+import com.justcook.domain.model.ChefSuggestion
+import com.justcook.domain.model.RecipeSuggestion
 import com.justcook.domain.model.RecipeWithDetails
+import com.justcook.domain.model.SearchSuggestions
 import com.justcook.domain.model.VoteResult
 import com.justcook.domain.repository.CreateRecipeRequest
 import com.justcook.domain.repository.RecipeFilters
@@ -150,6 +153,23 @@ class RecipeRepositoryImpl @Inject constructor(
         }
     }.flowOn(ioDispatcher)
 
+    override suspend fun getSuggestions(query: String, language: String?): Result<SearchSuggestions> {
+        return withContext(ioDispatcher) {
+            try {
+                val response = recipeApi.getSuggestions(query = query, language = language)
+                Result.Success(
+                    SearchSuggestions(
+                        recipes = response.recipes.map { RecipeSuggestion(title = it.title, slug = it.slug) },
+                        tags = response.tags,
+                        chefs = response.chefs.map { ChefSuggestion(username = it.username, name = it.name) }
+                    )
+                )
+            } catch (e: Exception) {
+                Result.Error(e)
+            }
+        }
+    }
+
     override fun getRecipesByAuthor(userId: String): Flow<Result<List<Recipe>>> = flow {
         // First emit cached
         val cached = recipeDao.getRecipesByAuthor(userId)
@@ -13,8 +13,11 @@ import com.justcook.domain.repository.UserRepository
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.withContext
 import javax.inject.Inject
 import javax.inject.Singleton
@@ -25,6 +28,8 @@ class UserRepositoryImpl @Inject constructor(
     @IoDispatcher private val ioDispatcher: CoroutineDispatcher
 ) : UserRepository {
 
+    // Ids the signed-in user follows, learned from profile and following responses and
+    // kept current by follow/unfollow, so isFollowing never needs a request
     private val followingSet = MutableStateFlow<Set<String>>(emptySet())
 
     override fun getChefProfile(username: String): Flow<Result<ChefProfile>> = flow {
@@ -39,6 +44,7 @@ class UserRepositoryImpl @Inject constructor(
                 totalUpvotes = response.stats.totalUpvotes,
                 isFollowing = response.isFollowing
             )
+            followingSet.update { if (response.isFollowing) it + user.id else it - user.id }
             emit(Result.Success(profile))
         } catch (e: Exception) {
             emit(Result.Error(e))
@@ -79,7 +85,7 @@ class UserRepositoryImpl @Inject constructor(
         return withContext(ioDispatcher) {
             try {
                 recipeApiService.followUser(FollowRequestDto(userId))
-                followingSet.value = followingSet.value + userId
+                followingSet.update { it + userId }
                 Result.Success(Unit)
             } catch (e: Exception) {
                 Result.Error(e)
@@ -91,7 +97,7 @@ class UserRepositoryImpl @Inject constructor(
         return withContext(ioDispatcher) {
             try {
                 recipeApiService.unfollowUser(userId)
-                followingSet.value = followingSet.value - userId
+                followingSet.update { it - userId }
                 Result.Success(Unit)
             } catch (e: Exception) {
                 Result.Error(e)
@@ -99,14 +105,14 @@ class UserRepositoryImpl @Inject constructor(
         }
     }
 
-    override fun isFollowing(userId: String): Flow<Boolean> = flow {
-        emit(followingSet.value.contains(userId))
-    }
+    override fun isFollowing(userId: String): Flow<Boolean> =
+        followingSet.map { userId in it }.distinctUntilChanged()
 
     override fun getFollowing(): Flow<Result<List<User>>> = flow {
         try {
             val response = recipeApiService.getFollowing()
             val users = response.users.map { it.toDomain() }
+            followingSet.value = users.map { it.id }.toSet()
             emit(Result.Success(users))
         } catch (e: Exception) {
             emit(Result.Error(e))
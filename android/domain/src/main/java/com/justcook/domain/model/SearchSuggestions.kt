@@ -0,0 +1,20 @@
+package com.justcook.domain.model
+
+data class SearchSuggestions(
+    val recipes: List<RecipeSuggestion> = emptyList(),
+    val tags: List<String> = emptyList(),
+    val chefs: List<ChefSuggestion> = emptyList()
+) {
+    val isEmpty: Boolean
+        get() = recipes.isEmpty() && tags.isEmpty() && chefs.isEmpty()
+}
+
+data class RecipeSuggestion(
+    val title: String,
+    val slug: String
+)
+
+data class ChefSuggestion(
+    val username: String,
+    val name: String
+)
@@ -3,6 +3,7 @@ package com.justcook.domain.repository
 import com.justcook.core.common.result.Result
 import com.justcook.domain.model.Recipe
 import com.justcook.domain.model.RecipeWithDetails
+import com.justcook.domain.model.SearchSuggestions
 import com.justcook.domain.model.VoteResult
 import kotlinx.coroutines.flow.Flow
 
@@ -11,6 +12,7 @@ interface RecipeRepository {
     fun getTrendingRecipes(language: String = "en"): Flow<Result<List<Recipe>>>
     fun getDiscoverRecipes(language: String = "en"): Flow<Result<List<Recipe>>>
     fun searchRecipes(query: String, filters: RecipeFilters? = null): Flow<Result<List<Recipe>>>
+    suspend fun getSuggestions(query: String, language: String? = null): Result<SearchSuggestions>
     fun getRecipesByAuthor(userId: String): Flow<Result<List<Recipe>>>
 
     suspend fun createRecipe(request: CreateRecipeRequest): Result<String>
@@ -60,10 +60,12 @@ import com.justcook.core.ui.theme.JustCookElevation
 import com.justcook.core.ui.theme.LocalJustCookColors
 import com.justcook.domain.model.Difficulty
 import com.justcook.domain.model.Recipe
+import com.justcook.domain.model.SearchSuggestions
 
 @Composable
 fun SearchScreen(
     onRecipeClick: (String) -> Unit,
+    onChefClick: (String) -> Unit,
     modifier: Modifier = Modifier,
     viewModel: SearchViewModel = hiltViewModel()
 ) {
@@ -255,6 +257,19 @@ fun SearchScreen(
                     }
                 }
 
+                !uiState.hasSearched && !uiState.suggestions.isEmpty -> {
+                    SuggestionList(
+                        suggestions = uiState.suggestions,
+                        onRecipeClick = onRecipeClick,
+                        onTagClick = { tag ->
+                            focusManager.clearFocus()
+                            viewModel.selectSuggestedTag(tag)
+                        },
+                        onChefClick = onChefClick,
+                        modifier = Modifier.weight(1f)
+                    )
+                }
+
                 else -> {
                     // Empty state - show suggestions
                     Box(
@@ -306,6 +321,92 @@ fun SearchScreen(
     }
 }
 
+@Composable
+private fun SuggestionList(
+    suggestions: SearchSuggestions,
+    onRecipeClick: (String) -> Unit,
+    onTagClick: (String) -> Unit,
+    onChefClick: (String) -> Unit,
+    modifier: Modifier = Modifier
+) {
+    LazyColumn(
+        modifier = modifier,
+        contentPadding = PaddingValues(horizontal = 16.dp, vertical = 8.dp)
+    ) {
+        items(
+            items = suggestions.recipes,
+            key = { "recipe:${it.slug}" }
+        ) { suggestion ->
+            SuggestionRow(
+                text = suggestion.title,
+                onClick = { onRecipeClick(suggestion.slug) }
+            )
+        }
+
+        items(
+            items = suggestions.tags,
+            key = { "tag:$it" }
+        ) { tag ->
+            SuggestionRow(
+                text = "#$tag",
+                onClick = { onTagClick(tag) }
+            )
+        }
+
+        items(
+            items = suggestions.chefs,
+            key = { "chef:${it.username}" }
+        ) { chef ->
+            SuggestionRow(
+                text = chef.name,
+                secondaryText = "@${chef.username}",
+                onClick = { onChefClick(chef.username) }
+            )
+        }
+    }
+}
+
+@Composable
+private fun SuggestionRow(
+    text: String,
+    onClick: () -> Unit,
+    secondaryText: String? = null
+) {
+    val colors = LocalJustCookColors.current
+
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .clickable(onClick = onClick)
+            .padding(vertical = 12.dp),
+        verticalAlignment = Alignment.CenterVertically
+    ) {
+        Icon(
+            imageVector = Icons.Outlined.Search,
+            contentDescription = null,
+            modifier = Modifier.size(18.dp),
+            tint = colors.textMuted
+        )
+        Spacer(modifier = Modifier.width(12.dp))
+        Text(
+            text = text,
+            style = MaterialTheme.typography.bodyLarge,
+            maxLines = 1,
+            overflow = TextOverflow.Ellipsis,
+            modifier = Modifier.weight(1f, fill = false)
+        )
+        secondaryText?.let {
+            Spacer(modifier = Modifier.width(8.dp))
+            Text(
+                text = it,
+                style = MaterialTheme.typography.bodyMedium,
+                color = colors.textMuted,
+                maxLines = 1
+            )
+        }
+    }
+}
+
 @Composable
 private fun SearchResultCard(
     recipe: Recipe,
@@ -5,6 +5,7 @@ import androidx.lifecycle.viewModelScope
 import com.justcook.core.common.result.Result
 import com.justcook.domain.model.Difficulty
 import com.justcook.domain.model.Recipe
+import com.justcook.domain.model.SearchSuggestions
 import com.justcook.domain.repository.RecipeFilters
 import com.justcook.domain.repository.RecipeRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
@@ -25,23 +26,36 @@ class SearchViewModel @Inject constructor(
     private val _uiState = MutableStateFlow(SearchUiState())
     val uiState: StateFlow<SearchUiState> = _uiState.asStateFlow()
 
-    private var searchJob: Job? = null
+    private var suggestJob: Job? = null
 
     fun updateQuery(query: String) {
-        _uiState.update { it.copy(query = query) }
+        // Typing shows suggestions; the full search runs on submit or when a suggestion is picked
+        _uiState.update { it.copy(query = query, results = emptyList(), hasSearched = false) }
 
-        // Debounce search
-        searchJob?.cancel()
+        suggestJob?.cancel()
         if (query.isNotBlank()) {
-            searchJob = viewModelScope.launch {
-                delay(300) // Debounce 300ms
-                performSearch()
+            suggestJob = viewModelScope.launch {
+                delay(150) // Debounce; suggestions are cheap, so keep this short
+                when (val result = recipeRepository.getSuggestions(query)) {
+                    is Result.Success -> _uiState.update {
+                        if (it.query == query) it.copy(suggestions = result.data) else it
+                    }
+                    // Suggestions are best effort; the user can still submit the search
+                    is Result.Error -> Unit
+                }
             }
         } else {
-            _uiState.update { it.copy(results = emptyList(), hasSearched = false) }
+            _uiState.update { it.copy(suggestions = SearchSuggestions()) }
         }
     }
 
+    fun selectSuggestedTag(tag: String) {
+        // Tags are part of the full-text document, so searching the tag finds its recipes
+        suggestJob?.cancel()
+        _uiState.update { it.copy(query = tag, suggestions = SearchSuggestions()) }
+        performSearch()
+    }
+
     fun selectCuisine(cuisine: String?) {
         _uiState.update {
             it.copy(selectedCuisine = if (it.selectedCuisine == cuisine) null else cuisine)
@@ -69,6 +83,8 @@ class SearchViewModel @Inject constructor(
 
     fun search() {
         if (_uiState.value.query.isNotBlank()) {
+            suggestJob?.cancel()
+            _uiState.update { it.copy(suggestions = SearchSuggestions()) }
             performSearch()
         }
     }
@@ -117,6 +133,7 @@ data class SearchUiState(
     val selectedCuisine: String? = null,
     val selectedDifficulty: Difficulty? = null,
     val results: List<Recipe> = emptyList(),
+    val suggestions: SearchSuggestions = SearchSuggestions(),
     val isLoading: Boolean = false,
     val hasSearched: Boolean = false,
     val error: String? = null
@@ -0,0 +1,100 @@
+-- Precomputed recipe rankings for trending/discover/homepage
+-- Replaces the per-request LEFT JOIN votes ... GROUP BY over every published recipe.
+-- Rows are kept current by the rankings refresh job (src/lib/server/rankings/refresh.ts),
+-- which only recomputes recipes queued by the triggers below or whose 7d/30d windows moved.
+
+CREATE TABLE IF NOT EXISTS "recipe_rankings" (
+    "recipe_id" uuid PRIMARY KEY REFERENCES "recipes"("id") ON DELETE CASCADE,
+    "language" varchar(10) NOT NULL,
+    "published_at" timestamp with time zone,
+    "upvotes" integer DEFAULT 0 NOT NULL,
+    "downvotes" integer DEFAULT 0 NOT NULL,
+    "score" integer DEFAULT 0 NOT NULL,
+    "upvotes_7d" integer DEFAULT 0 NOT NULL,
+    "downvotes_7d" integer DEFAULT 0 NOT NULL,
+    "upvotes_30d" integer DEFAULT 0 NOT NULL,
+    "downvotes_30d" integer DEFAULT 0 NOT NULL,
+    -- Published in the last 30 days
+    "is_trending_candidate" boolean DEFAULT false NOT NULL,
+    -- At least 20 votes with an 85%+ upvote ratio
+    "discover_eligible" boolean DEFAULT false NOT NULL,
+    -- Random sort key so discover can sample eligible rows from an index
+    "shuffle_key" double precision DEFAULT random() NOT NULL,
+    "refreshed_at" timestamp with time zone DEFAULT now() NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS "recipe_rankings_trending_idx"
+    ON "recipe_rankings" ("language", "score" DESC, "published_at" DESC)
+    WHERE "is_trending_candidate";
+
+CREATE INDEX IF NOT EXISTS "recipe_rankings_discover_idx"
+    ON "recipe_rankings" ("language", "shuffle_key")
+    WHERE "discover_eligible";
+
+-- Recipes whose ranking needs recomputing
+CREATE TABLE IF NOT EXISTS "recipe_ranking_queue" (
+    "recipe_id" uuid PRIMARY KEY,
+    "queued_at" timestamp with time zone DEFAULT now() NOT NULL
+);
+
+-- Last successful run of background jobs (shared across instances)
+CREATE TABLE IF NOT EXISTS "job_runs" (
+    "name" varchar(100) PRIMARY KEY,
+    "last_run_at" timestamp with time zone NOT NULL
+);
+
+CREATE OR REPLACE FUNCTION queue_recipe_ranking_from_vote() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO "recipe_ranking_queue" ("recipe_id")
+  VALUES (CASE WHEN TG_OP = 'DELETE' THEN OLD."recipe_id" ELSE NEW."recipe_id" END)
+  ON CONFLICT DO NOTHING;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION queue_recipe_ranking_from_recipe() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO "recipe_ranking_queue" ("recipe_id") VALUES (NEW."id") ON CONFLICT DO NOTHING;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS "votes_queue_ranking" ON "votes";
+CREATE TRIGGER "votes_queue_ranking"
+    AFTER INSERT OR UPDATE OR DELETE ON "votes"
+    FOR EACH ROW EXECUTE FUNCTION queue_recipe_ranking_from_vote();
+
+DROP TRIGGER IF EXISTS "recipes_queue_ranking" ON "recipes";
+CREATE TRIGGER "recipes_queue_ranking"
+    AFTER INSERT OR UPDATE OF "is_published", "language", "published_at" ON "recipes"
+    FOR EACH ROW EXECUTE FUNCTION queue_recipe_ranking_from_recipe();
+
+-- Backfill from existing data
+INSERT INTO "recipe_rankings" (
+    "recipe_id", "language", "published_at", "upvotes", "downvotes", "score",
+    "upvotes_7d", "downvotes_7d", "upvotes_30d", "downvotes_30d",
+    "is_trending_candidate", "discover_eligible"
+)
+SELECT
+    r."id", r."language", r."published_at", r."upvotes", r."downvotes", r."upvotes" - r."downvotes",
+    COALESCE(w."upvotes_7d", 0), COALESCE(w."downvotes_7d", 0),
+    COALESCE(w."upvotes_30d", 0), COALESCE(w."downvotes_30d", 0),
+    r."published_at" > now() - interval '30 days',
+    r."upvotes" + r."downvotes" >= 20 AND r."upvotes" * 15 >= r."downvotes" * 85
+FROM "recipes" r
+LEFT JOIN (
+    SELECT
+        "recipe_id",
+        COUNT(*) FILTER (WHERE "value" > 0 AND "created_at" > now() - interval '7 days')::int AS "upvotes_7d",
+        COUNT(*) FILTER (WHERE "value" < 0 AND "created_at" > now() - interval '7 days')::int AS "downvotes_7d",
+        COUNT(*) FILTER (WHERE "value" > 0)::int AS "upvotes_30d",
+        COUNT(*) FILTER (WHERE "value" < 0)::int AS "downvotes_30d"
+    FROM "votes"
+    WHERE "created_at" > now() - interval '30 days'
+    GROUP BY "recipe_id"
+) w ON w."recipe_id" = r."id"
+WHERE r."is_published"
+ON CONFLICT ("recipe_id") DO NOTHING;
+
+INSERT INTO "job_runs" ("name", "last_run_at") VALUES ('recipe_rankings', now())
+ON CONFLICT ("name") DO UPDATE SET "last_run_at" = EXCLUDED."last_run_at";
@@ -0,0 +1,37 @@
+-- Time-decayed "hot" score for trending (Reddit-style)
+--   hot = sign(score) * log10(max(|score|, 1)) + (published_at - 2025-01-01) / 45000s
+-- The age term is fixed at publish time, so a vote only changes the log term and the
+-- vote transaction can update hot_score in O(1). Newer recipes need 10x the net votes
+-- to outrank one published ~12.5 hours earlier; there is no hard 30-day cliff.
+
+CREATE OR REPLACE FUNCTION recipe_hot_score(score integer, published_at timestamptz)
+RETURNS double precision AS $$
+  SELECT SIGN(score)::double precision * LOG(GREATEST(ABS(score), 1)::double precision)
+       + COALESCE(EXTRACT(EPOCH FROM published_at - TIMESTAMPTZ '2025-01-01 00:00:00+00')::double precision / 45000, 0)
+$$ LANGUAGE sql IMMUTABLE;
+
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "hot_score" double precision DEFAULT 0 NOT NULL;
+
+UPDATE "recipes" SET "hot_score" = recipe_hot_score("vote_score", "published_at");
+
+-- Trending is a top-N scan of this index
+CREATE INDEX IF NOT EXISTS "recipes_hot_score_idx"
+    ON "recipes" ("language", "hot_score" DESC)
+    WHERE "is_published";
+
+-- Recompute when a recipe is (re)published; vote changes set hot_score explicitly
+CREATE OR REPLACE FUNCTION recipes_hot_score_update() RETURNS trigger AS $$
+BEGIN
+  NEW."hot_score" := recipe_hot_score(NEW."vote_score", NEW."published_at");
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS "recipes_hot_score_trigger" ON "recipes";
+CREATE TRIGGER "recipes_hot_score_trigger"
+    BEFORE INSERT OR UPDATE OF "published_at" ON "recipes"
+    FOR EACH ROW EXECUTE FUNCTION recipes_hot_score_update();
+
+-- Trending no longer reads recipe_rankings; drop the 30-day candidate flag and its index
+DROP INDEX IF EXISTS "recipe_rankings_trending_idx";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "is_trending_candidate";
@@ -0,0 +1,5 @@
+-- Recipe cards read the denormalized vote counters instead of aggregating votes,
+-- so "most upvoted" listings (recipes page sort=total) become a top-N index scan
+CREATE INDEX IF NOT EXISTS "recipes_upvotes_idx"
+    ON "recipes" ("language", "upvotes" DESC)
+    WHERE "is_published";
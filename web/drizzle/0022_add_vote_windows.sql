@@ -0,0 +1,55 @@
+-- Rolling 7/30-day upvote windows for the "week"/"month" sorts
+-- Votes are bucketed per recipe per UTC day by the vote endpoint, which also bumps
+-- week_upvotes/month_upvotes. A rollup job recomputes those columns from the buckets
+-- for recipes whose buckets aged out of a window, and prunes buckets older than 30 days.
+-- "Last 7 days" means the 7 most recent UTC calendar days, including today.
+
+CREATE TABLE IF NOT EXISTS "recipe_vote_buckets" (
+    "recipe_id" uuid NOT NULL REFERENCES "recipes"("id") ON DELETE CASCADE,
+    "day" date NOT NULL,
+    "upvotes" integer DEFAULT 0 NOT NULL,
+    "downvotes" integer DEFAULT 0 NOT NULL,
+    PRIMARY KEY ("recipe_id", "day")
+);
+
+-- Rollup finds buckets that just left a window by day
+CREATE INDEX IF NOT EXISTS "recipe_vote_buckets_day_idx" ON "recipe_vote_buckets" ("day");
+
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "week_upvotes" integer DEFAULT 0 NOT NULL;
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "month_upvotes" integer DEFAULT 0 NOT NULL;
+
+-- Backfill buckets from the last 30 days of votes
+INSERT INTO "recipe_vote_buckets" ("recipe_id", "day", "upvotes", "downvotes")
+SELECT
+    "recipe_id",
+    ("created_at" AT TIME ZONE 'UTC')::date,
+    COUNT(*) FILTER (WHERE "value" > 0),
+    COUNT(*) FILTER (WHERE "value" < 0)
+FROM "votes"
+WHERE ("created_at" AT TIME ZONE 'UTC')::date > (now() AT TIME ZONE 'UTC')::date - 30
+GROUP BY "recipe_id", ("created_at" AT TIME ZONE 'UTC')::date
+ON CONFLICT ("recipe_id", "day") DO UPDATE SET
+    "upvotes" = EXCLUDED."upvotes",
+    "downvotes" = EXCLUDED."downvotes";
+
+UPDATE "recipes" r SET
+    "week_upvotes" = w."week_upvotes",
+    "month_upvotes" = w."month_upvotes"
+FROM (
+    SELECT
+        "recipe_id",
+        COALESCE(SUM("upvotes") FILTER (WHERE "day" > (now() AT TIME ZONE 'UTC')::date - 7), 0)::int AS "week_upvotes",
+        SUM("upvotes")::int AS "month_upvotes"
+    FROM "recipe_vote_buckets"
+    GROUP BY "recipe_id"
+) w
+WHERE r."id" = w."recipe_id";
+
+-- The week/month sorts are top-N scans of these indexes
+CREATE INDEX IF NOT EXISTS "recipes_week_upvotes_idx"
+    ON "recipes" ("language", "week_upvotes" DESC)
+    WHERE "is_published";
+
+CREATE INDEX IF NOT EXISTS "recipes_month_upvotes_idx"
+    ON "recipes" ("language", "month_upvotes" DESC)
+    WHERE "is_published";
@@ -0,0 +1,42 @@
+-- Indexes for keyset (cursor) pagination: every listing orders by (sort key, id), so
+-- the id is appended to the sort indexes and `(sort, id) < (cursor)` becomes an index seek.
+-- Single-direction listings use plain ascending indexes (scanned backward).
+
+-- Recipe listings (api/recipes, recipes page): recreate the vote sort indexes with id
+DROP INDEX IF EXISTS "recipes_upvotes_idx";
+CREATE INDEX IF NOT EXISTS "recipes_upvotes_idx"
+    ON "recipes" ("language", "upvotes" DESC, "id" DESC)
+    WHERE "is_published";
+
+DROP INDEX IF EXISTS "recipes_week_upvotes_idx";
+CREATE INDEX IF NOT EXISTS "recipes_week_upvotes_idx"
+    ON "recipes" ("language", "week_upvotes" DESC, "id" DESC)
+    WHERE "is_published";
+
+DROP INDEX IF EXISTS "recipes_month_upvotes_idx";
+CREATE INDEX IF NOT EXISTS "recipes_month_upvotes_idx"
+    ON "recipes" ("language", "month_upvotes" DESC, "id" DESC)
+    WHERE "is_published";
+
+CREATE INDEX IF NOT EXISTS "recipes_latest_idx"
+    ON "recipes" ("language", "published_at" DESC, "id" DESC)
+    WHERE "is_published";
+
+-- Chef profile recipe lists
+CREATE INDEX IF NOT EXISTS "recipes_author_published_idx"
+    ON "recipes" ("author_id", "published_at" DESC, "id" DESC)
+    WHERE "is_published";
+
+CREATE INDEX IF NOT EXISTS "recipes_author_upvotes_idx"
+    ON "recipes" ("author_id", "upvotes" DESC, "id" DESC)
+    WHERE "is_published";
+
+-- Comments per recipe, newest first
+CREATE INDEX IF NOT EXISTS "comments_recipe_created_id_idx"
+    ON "comments" ("recipe_id", "created_at", "id");
+DROP INDEX IF EXISTS "comments_recipe_created_idx";
+
+-- AI conversations per user, most recently updated first
+CREATE INDEX IF NOT EXISTS "ai_conversations_user_updated_id_idx"
+    ON "ai_conversations" ("user_id", "updated_at", "id");
+DROP INDEX IF EXISTS "ai_conversations_user_updated_idx";
@@ -0,0 +1,84 @@
+-- Language-aware full-text search
+-- search_vector was always built with the 'english' config, so non-English recipes got
+-- English stemming and stop words. The text search config now follows recipes.language
+-- (ISO 639-1), falling back to 'simple' (no stemming, no stop words) for languages
+-- Postgres has no snowball config for. Queries must build their tsquery with the same
+-- config: plainto_tsquery(recipe_search_config(language), ...).
+
+CREATE OR REPLACE FUNCTION recipe_search_config(lang varchar)
+RETURNS regconfig AS $$
+  SELECT CASE lower(lang)
+    WHEN 'ar' THEN 'arabic'
+    WHEN 'ca' THEN 'catalan'
+    WHEN 'da' THEN 'danish'
+    WHEN 'de' THEN 'german'
+    WHEN 'el' THEN 'greek'
+    WHEN 'en' THEN 'english'
+    WHEN 'es' THEN 'spanish'
+    WHEN 'eu' THEN 'basque'
+    WHEN 'fi' THEN 'finnish'
+    WHEN 'fr' THEN 'french'
+    WHEN 'ga' THEN 'irish'
+    WHEN 'hi' THEN 'hindi'
+    WHEN 'hu' THEN 'hungarian'
+    WHEN 'hy' THEN 'armenian'
+    WHEN 'id' THEN 'indonesian'
+    WHEN 'it' THEN 'italian'
+    WHEN 'lt' THEN 'lithuanian'
+    WHEN 'nb' THEN 'norwegian'
+    WHEN 'ne' THEN 'nepali'
+    WHEN 'nl' THEN 'dutch'
+    WHEN 'nn' THEN 'norwegian'
+    WHEN 'no' THEN 'norwegian'
+    WHEN 'pt' THEN 'portuguese'
+    WHEN 'ro' THEN 'romanian'
+    WHEN 'ru' THEN 'russian'
+    WHEN 'sr' THEN 'serbian'
+    WHEN 'sv' THEN 'swedish'
+    WHEN 'ta' THEN 'tamil'
+    WHEN 'tr' THEN 'turkish'
+    WHEN 'yi' THEN 'yiddish'
+    ELSE 'simple'
+  END::regconfig
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Weighted document for a recipe (used by the trigger and the edit endpoint)
+CREATE OR REPLACE FUNCTION recipe_search_document(
+  lang varchar, title text, description text, cuisine text, tag text
+) RETURNS tsvector AS $$
+  SELECT
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE(title, '')), 'A') ||
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE(description, '')), 'B') ||
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE(cuisine, '')), 'C') ||
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE(tag, '')), 'C')
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION recipes_search_vector_update() RETURNS trigger AS $$
+BEGIN
+  NEW.search_vector := recipe_search_document(NEW.language, NEW.title, NEW.description, NEW.cuisine, NEW.tag);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Changing the language re-stems the document too
+DROP TRIGGER IF EXISTS recipes_search_vector_trigger ON "recipes";
+CREATE TRIGGER recipes_search_vector_trigger
+  BEFORE INSERT OR UPDATE OF title, description, cuisine, tag, language
+  ON "recipes"
+  FOR EACH ROW
+  EXECUTE FUNCTION recipes_search_vector_update();
+
+-- Backfill: rebuild every vector with its language's config
+UPDATE "recipes" SET "search_vector" =
+  recipe_search_document("language", "title", "description", "cuisine", "tag");
+
+-- Searches always filter by language and published state. A two-column GIN index
+-- (btree_gin for the language column) answers both in one index scan, so each
+-- language only touches its own postings instead of AND-ing with a second index.
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX IF NOT EXISTS "recipes_search_language_idx"
+  ON "recipes" USING GIN ("language", "search_vector")
+  WHERE "is_published";
+
+DROP INDEX IF EXISTS "recipes_search_idx";
@@ -0,0 +1,21 @@
+-- Trigram indexes for substring, prefix and fuzzy title search
+-- #hashtag filters match ILIKE '%tag%' on cuisine or tag, and queries shorter than the
+-- full-text minimum match ILIKE 'x%' on title; neither can use a btree index, so both
+-- scanned every published recipe in the language. pg_trgm GIN indexes serve ILIKE
+-- patterns with 3+ characters and the word similarity operator (<%) used by the
+-- typo-tolerant title search. The leading language column (btree_gin, migration 0024)
+-- keeps each lookup within the browsed language.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS "recipes_title_trgm_idx"
+  ON "recipes" USING gin ("language", "title" gin_trgm_ops)
+  WHERE "is_published";
+
+CREATE INDEX IF NOT EXISTS "recipes_cuisine_trgm_idx"
+  ON "recipes" USING gin ("language", "cuisine" gin_trgm_ops)
+  WHERE "is_published";
+
+CREATE INDEX IF NOT EXISTS "recipes_tag_trgm_idx"
+  ON "recipes" USING gin ("language", "tag" gin_trgm_ops)
+  WHERE "is_published";
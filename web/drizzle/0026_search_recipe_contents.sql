@@ -0,0 +1,52 @@
+-- Search ingredients, steps and tips
+-- search_vector only covered title, description, cuisine and tag, so a recipe using
+-- saffron was only found if the title said so. Child rows now feed a per-recipe
+-- content_vector (ingredients weight B, steps and tips weight D) that is folded into
+-- search_vector. Searches keep hitting the single (language, search_vector) GIN index
+-- with no joins, however many steps a recipe has.
+--
+-- content_vector is rebuilt by refresh_recipe_content_vector(id) in the same
+-- transaction that writes a recipe's child rows (recipe create and edit endpoints).
+
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "content_vector" tsvector;
+
+-- Weighted document for a recipe's child rows, stemmed for the recipe's language
+-- (ingredient keys are snake_case: olive_oil -> olive oil)
+CREATE OR REPLACE FUNCTION recipe_content_document(recipe uuid, lang varchar)
+RETURNS tsvector AS $$
+  SELECT
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE((
+      SELECT string_agg(i."name" || ' ' || replace(COALESCE(i."ingredient_key", ''), '_', ' '), ' ')
+      FROM "ingredients" i WHERE i."recipe_id" = recipe
+    ), '')), 'B') ||
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE((
+      SELECT string_agg(s."instruction", ' ') FROM "steps" s WHERE s."recipe_id" = recipe
+    ), '')), 'D') ||
+    setweight(to_tsvector(recipe_search_config(lang), COALESCE((
+      SELECT string_agg(t."content", ' ') FROM "tips" t WHERE t."recipe_id" = recipe
+    ), '')), 'D')
+$$ LANGUAGE sql STABLE;
+
+CREATE OR REPLACE FUNCTION refresh_recipe_content_vector(recipe uuid) RETURNS void AS $$
+  UPDATE "recipes" SET "content_vector" = recipe_content_document("id", "language")
+  WHERE "id" = recipe;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION recipes_search_vector_update() RETURNS trigger AS $$
+BEGIN
+  NEW.search_vector := recipe_search_document(NEW.language, NEW.title, NEW.description, NEW.cuisine, NEW.tag)
+    || COALESCE(NEW.content_vector, ''::tsvector);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Refreshing content_vector recomposes search_vector too
+DROP TRIGGER IF EXISTS recipes_search_vector_trigger ON "recipes";
+CREATE TRIGGER recipes_search_vector_trigger
+  BEFORE INSERT OR UPDATE OF title, description, cuisine, tag, language, content_vector
+  ON "recipes"
+  FOR EACH ROW
+  EXECUTE FUNCTION recipes_search_vector_update();
+
+-- Backfill (the trigger rebuilds search_vector for every row)
+UPDATE "recipes" SET "content_vector" = recipe_content_document("id", "language");
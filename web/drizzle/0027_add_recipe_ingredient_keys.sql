@@ -0,0 +1,34 @@
+-- Pantry search: ingredient inverted index
+-- Each recipe keeps the distinct catalog keys of its ingredients (src/lib/data/ingredients.ts)
+-- in ingredient_keys. A GIN index on the array is an inverted index from key to the
+-- posting list of recipes using it, so "recipes using any of these 10-20 keys" is a
+-- union of a few posting lists instead of a scan of the ingredients table.
+--
+-- ingredient_keys is rebuilt by refresh_recipe_ingredient_keys(id) in the same
+-- transaction that writes a recipe's ingredients (recipe create and edit endpoints).
+
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "ingredient_keys" varchar(100)[] NOT NULL DEFAULT '{}';
+
+CREATE OR REPLACE FUNCTION refresh_recipe_ingredient_keys(recipe uuid) RETURNS void AS $$
+  UPDATE "recipes" SET "ingredient_keys" = COALESCE((
+    SELECT array_agg(DISTINCT i."ingredient_key" ORDER BY i."ingredient_key")
+    FROM "ingredients" i
+    WHERE i."recipe_id" = recipe AND i."ingredient_key" IS NOT NULL AND i."ingredient_key" <> ''
+  ), '{}')
+  WHERE "id" = recipe;
+$$ LANGUAGE sql;
+
+-- Backfill
+UPDATE "recipes" r SET "ingredient_keys" = k."keys"
+FROM (
+  SELECT "recipe_id", array_agg(DISTINCT "ingredient_key" ORDER BY "ingredient_key") AS "keys"
+  FROM "ingredients"
+  WHERE "ingredient_key" IS NOT NULL AND "ingredient_key" <> ''
+  GROUP BY "recipe_id"
+) k
+WHERE r."id" = k."recipe_id";
+
+-- Leading language column (btree_gin) keeps each lookup within the browsed language
+CREATE INDEX IF NOT EXISTS "recipes_ingredient_keys_idx"
+  ON "recipes" USING GIN ("language", "ingredient_keys")
+  WHERE "is_published";
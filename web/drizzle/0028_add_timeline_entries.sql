@@ -0,0 +1,44 @@
+-- Following feed inboxes (fan-out on write)
+-- The following page loaded every followed id and queried recipes with a large
+-- author_id IN (...) list on each visit. Publishing a recipe now copies its id into
+-- each follower's inbox, so reading the feed is a range read of one user's rows.
+--
+-- Authors with more followers than the fan-out limit are recorded in
+-- timeline_pull_authors instead; their recipes are merged in when the feed is read
+-- (fan-out on read), so one publish never writes millions of rows.
+--
+-- Inboxes are bounded: the timeline trim job keeps the newest entries per user.
+
+CREATE TABLE IF NOT EXISTS "timeline_entries" (
+    "user_id" text NOT NULL REFERENCES "user"("id") ON DELETE CASCADE,
+    "recipe_id" uuid NOT NULL REFERENCES "recipes"("id") ON DELETE CASCADE,
+    "author_id" text NOT NULL,
+    "published_at" timestamp with time zone NOT NULL,
+    PRIMARY KEY ("user_id", "recipe_id")
+);
+
+-- Feed pages: (published_at, recipe_id) keyset per user
+CREATE INDEX IF NOT EXISTS "timeline_entries_user_published_idx"
+    ON "timeline_entries" ("user_id", "published_at" DESC, "recipe_id" DESC);
+
+-- Deleting a recipe cascades through the recipe_id foreign key
+CREATE INDEX IF NOT EXISTS "timeline_entries_recipe_id_idx" ON "timeline_entries" ("recipe_id");
+
+CREATE TABLE IF NOT EXISTS "timeline_pull_authors" (
+    "author_id" text PRIMARY KEY REFERENCES "user"("id") ON DELETE CASCADE,
+    "marked_at" timestamp with time zone DEFAULT now() NOT NULL
+);
+
+-- Backfill inboxes from existing follows (newest 500 recipes per followed author;
+-- the trim job cuts each inbox down to its limit)
+INSERT INTO "timeline_entries" ("user_id", "recipe_id", "author_id", "published_at")
+SELECT f."follower_id", r."id", r."author_id", r."published_at"
+FROM "follows" f
+CROSS JOIN LATERAL (
+    SELECT "id", "author_id", COALESCE("published_at", "created_at") AS "published_at"
+    FROM "recipes"
+    WHERE "author_id" = f."following_id" AND "is_published"
+    ORDER BY "published_at" DESC NULLS LAST
+    LIMIT 500
+) r
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,17 @@
+-- Denormalized follow counters
+-- Profile pages read follower_count/following_count from the user row instead of
+-- counting follows on every view. api/follow updates them in the same transaction
+-- as the follows insert/delete (only when a row was actually inserted/deleted), and
+-- account deletion decrements the counters of the users on the other side.
+
+ALTER TABLE "user" ADD COLUMN IF NOT EXISTS "follower_count" integer NOT NULL DEFAULT 0;
+ALTER TABLE "user" ADD COLUMN IF NOT EXISTS "following_count" integer NOT NULL DEFAULT 0;
+
+-- Backfill
+UPDATE "user" u SET
+  "follower_count" = (SELECT count(*) FROM "follows" f WHERE f."following_id" = u."id"),
+  "following_count" = (SELECT count(*) FROM "follows" f WHERE f."follower_id" = u."id");
+
+-- Trending chefs count follows created in the last 7 days across all chefs; the
+-- existing (following_id, created_at) index can't serve a created_at range alone
+CREATE INDEX IF NOT EXISTS "follows_created_at_idx" ON "follows" ("created_at", "following_id");
@@ -0,0 +1,25 @@
+-- Asynchronous content moderation
+-- With MODERATION_MODE=async, recipe and comment writes no longer wait on the
+-- moderation API. Content is saved with moderation_status 'pending' and a job row;
+-- the moderation workers claim jobs in batches, call the API and flip the content to
+-- 'approved' (visible) or 'rejected'. Existing content is approved.
+
+ALTER TABLE "recipes" ADD COLUMN IF NOT EXISTS "moderation_status" varchar(20) DEFAULT 'approved' NOT NULL;
+ALTER TABLE "comments" ADD COLUMN IF NOT EXISTS "moderation_status" varchar(20) DEFAULT 'approved' NOT NULL;
+
+-- One job per piece of content; an edit while a job is waiting re-arms it
+-- (enqueued_at changes, so a worker holding the old content discards its result)
+CREATE TABLE IF NOT EXISTS "moderation_jobs" (
+    "id" uuid PRIMARY KEY DEFAULT gen_random_uuid() NOT NULL,
+    "content_type" varchar(20) NOT NULL,
+    "content_id" uuid NOT NULL,
+    "attempts" integer DEFAULT 0 NOT NULL,
+    "run_at" timestamp with time zone DEFAULT now() NOT NULL,
+    "locked_until" timestamp with time zone,
+    "last_error" text,
+    "enqueued_at" timestamp with time zone DEFAULT now() NOT NULL,
+    CONSTRAINT "moderation_jobs_content_unique" UNIQUE ("content_type", "content_id")
+);
+
+-- Workers claim due jobs oldest first
+CREATE INDEX IF NOT EXISTS "moderation_jobs_run_at_idx" ON "moderation_jobs" ("run_at");
@@ -0,0 +1,13 @@
+-- recipe_rankings only drives discover now (discover_eligible + shuffle_key).
+-- Trending reads recipes.hot_score and the 7d/30d windows are recipes.week_upvotes/
+-- month_upvotes (vote buckets), so the copied totals and window counts were written
+-- on every refresh but never read. The refresh job no longer scans votes for
+-- recipes whose windows aged.
+
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "upvotes";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "downvotes";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "score";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "upvotes_7d";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "downvotes_7d";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "upvotes_30d";
+ALTER TABLE "recipe_rankings" DROP COLUMN IF EXISTS "downvotes_30d";
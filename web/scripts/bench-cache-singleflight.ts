@@ -0,0 +1,181 @@
+/**
+ * Benchmark: Redis calls per request for cacheGetOrSet under concurrent load
+ * Drives the real cacheGetOrSet (and its per-process single-flight) from
+ * src/lib/server/redis/cache.ts against an instrumented in-memory backend with a fixed
+ * per-command latency, standing in for the Upstash REST client. The SvelteKit modules
+ * cache.ts imports and the Redis client in redis/index.ts are swapped for stubs with a
+ * Bun runtime plugin; the L1 is disabled so every lookup reaches the backend.
+ *
+ * Without coalescing a warm request costs one Redis read, so calls/request well below
+ * 1 is the saving.
+ *
+ * Run with: bun run scripts/bench-cache-singleflight.ts [concurrency] [latencyMs]
+ */
+
+import type { PipelineCommand, RedisBackend, SetOptions } from '../src/lib/server/redis/backend';
+
+const CONCURRENCY = parseInt(process.argv[2] || '500', 10);
+const LATENCY_MS = parseInt(process.argv[3] || '15', 10);
+const FACTORY_MS = 120; // Simulated heavy aggregation query
+
+function sleep(ms: number): Promise<void> {
+	return new Promise((resolve) => setTimeout(resolve, ms));
+}
+
+/**
+ * In-memory RedisBackend: every call is one round trip of LATENCY_MS, counted
+ */
+function createInstrumentedBackend() {
+	const store = new Map<string, unknown>();
+	const stats = { calls: 0 };
+
+	async function roundTrip(): Promise<void> {
+		stats.calls++;
+		await sleep(LATENCY_MS);
+	}
+
+	function set(key: string, value: unknown, options: SetOptions = {}): 'OK' | null {
+		if (options.nx && store.has(key)) return null;
+		store.set(key, value);
+		return 'OK';
+	}
+
+	function incr(key: string): number {
+		const value = Number(store.get(key) ?? 0) + 1;
+		store.set(key, value);
+		return value;
+	}
+
+	const backend: RedisBackend = {
+		kind: 'upstash',
+
+		async get<T>(key: string) {
+			await roundTrip();
+			return (store.get(key) ?? null) as T | null;
+		},
+
+		async mget<T extends unknown[]>(...keys: string[]) {
+			await roundTrip();
+			return keys.map((key) => store.get(key) ?? null) as T;
+		},
+
+		async set(key, value, options) {
+			await roundTrip();
+			return set(key, value, options);
+		},
+
+		async del(...keys) {
+			await roundTrip();
+			return keys.filter((key) => store.delete(key)).length;
+		},
+
+		async incr(key) {
+			await roundTrip();
+			return incr(key);
+		},
+
+		async scan() {
+			await roundTrip();
+			return ['0', []];
+		},
+
+		async zrangeByScore() {
+			await roundTrip();
+			return [];
+		},
+
+		async pipeline(commands: PipelineCommand[]) {
+			await roundTrip();
+			return commands.map((command) => {
+				switch (command[0]) {
+					case 'incr':
+						return incr(command[1]);
+					case 'set':
+						return set(command[1], command[2], command[3]);
+					case 'del':
+						return store.delete(command[1]) ? 1 : 0;
+					default:
+						return 0;
+				}
+			});
+		},
+
+		async slidingWindow(_prefix, _identifier, limit, windowMs) {
+			await roundTrip();
+			return { success: true, remaining: limit, reset: Date.now() + windowMs };
+		}
+	};
+
+	return { backend, stats };
+}
+
+const instrumented = createInstrumentedBackend();
+
+Bun.plugin({
+	name: 'bench-cache-stubs',
+	setup(build) {
+		build.module('$app/environment', () => ({
+			exports: { dev: false, building: false, browser: false },
+			loader: 'object'
+		}));
+		build.module('$env/dynamic/private', () => ({
+			exports: { env: { ...process.env, CACHE_L1_TTL_SECONDS: '0' } },
+			loader: 'object'
+		}));
+		build.module('$lib/server/logger', () => ({
+			exports: { logger: { debug() {}, info() {}, warn() {}, error: console.error } },
+			loader: 'object'
+		}));
+		build.onLoad({ filter: /redis[\\/]index\.ts$/ }, () => ({
+			exports: { redis: instrumented.backend, isRedisConfigured: true, redisBackendKind: 'upstash' },
+			loader: 'object'
+		}));
+	}
+});
+
+const { cacheGetOrSet, cacheSet, getCacheStats } = await import('../src/lib/server/redis/cache');
+
+async function runScenario(name: string, key: string, warm: boolean) {
+	const payload = { trending: [], discover: [] };
+	let factoryRuns = 0;
+	const factory = async () => {
+		factoryRuns++;
+		await sleep(FACTORY_MS);
+		return payload;
+	};
+
+	if (warm) {
+		await cacheSet(key, payload, 300);
+	}
+	instrumented.stats.calls = 0;
+	const before = getCacheStats();
+
+	const start = performance.now();
+	await Promise.all(Array.from({ length: CONCURRENCY }, () => cacheGetOrSet(key, 'trending', factory)));
+	const elapsed = performance.now() - start;
+
+	const after = getCacheStats();
+	const calls = instrumented.stats.calls;
+	const coalesced = after.coalesced - before.coalesced;
+
+	console.log(
+		`${name.padEnd(10)} ${String(CONCURRENCY).padStart(8)} ${String(calls).padStart(12)} ${(calls / CONCURRENCY).toFixed(3).padStart(14)} ${String(coalesced).padStart(10)} ${String(factoryRuns).padStart(8)} ${elapsed.toFixed(0).padStart(9)}ms`
+	);
+}
+
+async function main() {
+	console.log(`Concurrency: ${CONCURRENCY}, simulated Redis latency: ${LATENCY_MS}ms, factory: ${FACTORY_MS}ms\n`);
+	console.log(
+		`${'scenario'.padEnd(10)} ${'requests'.padStart(8)} ${'redis calls'.padStart(12)} ${'calls/request'.padStart(14)} ${'coalesced'.padStart(10)} ${'factory'.padStart(8)} ${'wall'.padStart(11)}`
+	);
+
+	await runScenario('warm', 'bench:homepage:warm', true);
+	await runScenario('cold', 'bench:homepage:cold', false);
+}
+
+main()
+	.then(() => process.exit(0))
+	.catch((err) => {
+		console.error('Benchmark failed:', err);
+		process.exit(1);
+	});
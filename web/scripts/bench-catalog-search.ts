@@ -0,0 +1,100 @@
+/**
+ * Benchmark: ingredient/equipment typeahead, linear scan vs precomputed catalog index
+ * "linear" is the previous implementation (lowercase + includes() over every entry,
+ * then a localeCompare sort); "index" is createCatalogIndex (prefix trie + n-gram
+ * postings + key Map) behind searchIngredients/searchEquipment/getIngredient. Both must
+ * return the same results for every query; any difference is reported and fails the run.
+ *
+ * Run with: bun run scripts/bench-catalog-search.ts [iterations]
+ */
+
+import { ingredients, searchIngredients, getIngredient, type IngredientDef } from '../src/lib/data/ingredients';
+import { equipmentList, searchEquipment, type EquipmentDef } from '../src/lib/data/equipment';
+
+const ITERATIONS = parseInt(process.argv[2] || '20000', 10);
+const LIMIT = 8; // What IngredientSearch/EquipmentSearch request
+
+function linearSearch<T extends { key: string; name: string }>(list: T[], query: string, limit: number): T[] {
+	const q = query.toLowerCase().trim();
+	if (!q) return [];
+
+	return list
+		.filter((i) => i.name.toLowerCase().includes(q) || i.key.includes(q))
+		.sort((a, b) => {
+			const aStarts = a.name.toLowerCase().startsWith(q);
+			const bStarts = b.name.toLowerCase().startsWith(q);
+			if (aStarts && !bStarts) return -1;
+			if (!aStarts && bStarts) return 1;
+			return a.name.localeCompare(b.name);
+		})
+		.slice(0, limit);
+}
+
+// Keystroke sequences as typed into the search boxes
+function keystrokes(words: string[]): string[] {
+	return words.flatMap((word) => Array.from({ length: word.length }, (_, i) => word.slice(0, i + 1)));
+}
+
+const ingredientQueries = keystrokes(['chicken thigh', 'olive oil', 'pepper', 'saffron', 'garam masala', 'zzz']);
+const equipmentQueries = keystrokes(['stand mixer', 'dutch oven', 'thermometer', 'wok']);
+
+function check<T extends { key: string }>(label: string, queries: string[], expected: (q: string) => T[], actual: (q: string) => T[]): number {
+	let mismatches = 0;
+	for (const q of queries) {
+		const a = expected(q).map((e) => e.key).join(',');
+		const b = actual(q).map((e) => e.key).join(',');
+		if (a !== b) {
+			mismatches++;
+			console.error(`✗ ${label} "${q}"\n  linear: ${a}\n  index:  ${b}`);
+		}
+	}
+	return mismatches;
+}
+
+function time(fn: () => void): number {
+	const start = performance.now();
+	for (let i = 0; i < ITERATIONS; i++) fn();
+	return performance.now() - start;
+}
+
+function report(label: string, queryCount: number, linearMs: number, indexMs: number) {
+	const perQuery = (ms: number) => ((ms * 1000) / (ITERATIONS * queryCount)).toFixed(2);
+	console.log(
+		`${label.padEnd(22)} ${perQuery(linearMs).padStart(12)} ${perQuery(indexMs).padStart(12)} ${(linearMs / indexMs).toFixed(1).padStart(8)}x`
+	);
+}
+
+const mismatches =
+	check('ingredients', ingredientQueries, (q) => linearSearch<IngredientDef>(ingredients, q, LIMIT), (q) => searchIngredients(q, LIMIT)) +
+	check('equipment', equipmentQueries, (q) => linearSearch<EquipmentDef>(equipmentList, q, LIMIT), (q) => searchEquipment(q, LIMIT));
+
+if (mismatches > 0) {
+	console.error(`\n${mismatches} queries returned different results`);
+	process.exit(1);
+}
+console.log(`✓ Same results for ${ingredientQueries.length + equipmentQueries.length} queries\n`);
+
+console.log(`${ITERATIONS} iterations, µs per query`);
+console.log(`${''.padEnd(22)} ${'linear'.padStart(12)} ${'index'.padStart(12)} ${'speedup'.padStart(9)}`);
+
+report(
+	'searchIngredients',
+	ingredientQueries.length,
+	time(() => ingredientQueries.forEach((q) => linearSearch(ingredients, q, LIMIT))),
+	time(() => ingredientQueries.forEach((q) => searchIngredients(q, LIMIT)))
+);
+
+report(
+	'searchEquipment',
+	equipmentQueries.length,
+	time(() => equipmentQueries.forEach((q) => linearSearch(equipmentList, q, LIMIT))),
+	time(() => equipmentQueries.forEach((q) => searchEquipment(q, LIMIT)))
+);
+
+const sampleKeys = ingredients.filter((_, i) => i % 7 === 0).map((i) => i.key);
+report(
+	'getIngredient',
+	sampleKeys.length,
+	time(() => sampleKeys.forEach((key) => ingredients.find((i) => i.key === key))),
+	time(() => sampleKeys.forEach((key) => getIngredient(key)))
+);
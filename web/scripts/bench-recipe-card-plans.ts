@@ -0,0 +1,164 @@
+/**
+ * Benchmark: query plans of recipe card listings before/after denormalized counters
+ * "before" is the old shape (LEFT JOIN votes + GROUP BY + SUM(CASE ...)), "after" reads
+ * recipes.upvotes/downvotes as in src/lib/server/recipeCards.ts. Each pair runs with
+ * EXPLAIN (ANALYZE, BUFFERS); the summary shows time, shared buffers touched and the
+ * rows the plan had to read, then the full plans with --plans.
+ *
+ * Needs a seeded database (bun run db:seed; more votes make the gap larger).
+ *
+ * Run with: bun run scripts/bench-recipe-card-plans.ts [lang] [--plans]
+ */
+
+import postgres from 'postgres';
+
+const DATABASE_URL = process.env.DATABASE_URL;
+if (!DATABASE_URL) {
+	console.error('DATABASE_URL environment variable is required');
+	process.exit(1);
+}
+
+const LANG = process.argv.slice(2).find((arg) => !arg.startsWith('--')) || 'en';
+const SHOW_PLANS = process.argv.includes('--plans');
+const RUNS = 5;
+
+const sql = postgres(DATABASE_URL, { max: 1 });
+
+interface PlanNode {
+	'Node Type': string;
+	'Actual Rows': number;
+	'Actual Loops': number;
+	'Shared Hit Blocks'?: number;
+	'Shared Read Blocks'?: number;
+	Plans?: PlanNode[];
+}
+
+interface ExplainResult {
+	Plan: PlanNode;
+	'Planning Time': number;
+	'Execution Time': number;
+}
+
+const cardColumns = `
+	r."id", r."slug", r."title", r."description", r."photo_url", r."prep_time_minutes",
+	r."cook_time_minutes", r."difficulty", r."cuisine", r."tag", r."author_id", r."published_at",
+	u."username", u."full_name", u."name"`;
+
+const cases: { name: string; before: string; after: string; params?: string[] }[] = [
+	{
+		name: 'api/recipes (latest, page 1)',
+		before: `
+			SELECT ${cardColumns},
+				COALESCE(SUM(CASE WHEN v."value" > 0 THEN 1 ELSE 0 END), 0)::int AS "upvotes",
+				COALESCE(SUM(CASE WHEN v."value" < 0 THEN 1 ELSE 0 END), 0)::int AS "downvotes"
+			FROM "recipes" r
+			LEFT JOIN "votes" v ON v."recipe_id" = r."id"
+			LEFT JOIN "user" u ON u."id" = r."author_id"
+			WHERE r."is_published" AND r."language" = $1
+			GROUP BY r."id", u."id", u."username", u."full_name", u."name"
+			ORDER BY r."published_at" DESC
+			LIMIT 20`,
+		after: `
+			SELECT ${cardColumns}, r."upvotes", r."downvotes"
+			FROM "recipes" r
+			LEFT JOIN "user" u ON u."id" = r."author_id"
+			WHERE r."is_published" AND r."language" = $1
+			ORDER BY r."published_at" DESC
+			LIMIT 20`
+	},
+	{
+		name: 'recipes page (sort=total)',
+		before: `
+			SELECT ${cardColumns},
+				COALESCE(SUM(CASE WHEN v."value" > 0 THEN 1 ELSE 0 END), 0)::int AS "upvotes",
+				COALESCE(SUM(CASE WHEN v."value" < 0 THEN 1 ELSE 0 END), 0)::int AS "downvotes"
+			FROM "recipes" r
+			LEFT JOIN "votes" v ON v."recipe_id" = r."id"
+			LEFT JOIN "user" u ON u."id" = r."author_id"
+			WHERE r."is_published" AND r."language" = $1
+			GROUP BY r."id", u."id", u."username", u."full_name", u."name"
+			ORDER BY COALESCE(SUM(CASE WHEN v."value" > 0 THEN 1 ELSE 0 END), 0) DESC
+			LIMIT 12`,
+		after: `
+			SELECT ${cardColumns}, r."upvotes", r."downvotes"
+			FROM "recipes" r
+			LEFT JOIN "user" u ON u."id" = r."author_id"
+			WHERE r."is_published" AND r."language" = $1
+			ORDER BY r."upvotes" DESC
+			LIMIT 12`
+	},
+	{
+		name: 'author stats (settings, tier upgrade)',
+		before: `
+			SELECT COUNT(DISTINCT r."id")::int AS "recipe_count",
+				COALESCE(SUM(CASE WHEN v."value" > 0 THEN 1 ELSE 0 END), 0)::int AS "total_upvotes"
+			FROM "recipes" r
+			LEFT JOIN "votes" v ON v."recipe_id" = r."id"
+			WHERE r."author_id" = (SELECT "author_id" FROM "recipes" GROUP BY "author_id" ORDER BY count(*) DESC LIMIT 1)
+			  AND r."is_published"`,
+		after: `
+			SELECT count(*)::int AS "recipe_count", COALESCE(SUM(r."upvotes"), 0)::int AS "total_upvotes"
+			FROM "recipes" r
+			WHERE r."author_id" = (SELECT "author_id" FROM "recipes" GROUP BY "author_id" ORDER BY count(*) DESC LIMIT 1)
+			  AND r."is_published"`,
+		params: []
+	}
+];
+
+function sumNodes(node: PlanNode, pick: (n: PlanNode) => number): number {
+	return pick(node) + (node.Plans ?? []).reduce((sum, child) => sum + sumNodes(child, pick), 0);
+}
+
+async function explain(query: string, params: string[]): Promise<{ ms: number; buffers: number; rowsRead: number; text: string }> {
+	let best: ExplainResult | null = null;
+	for (let i = 0; i < RUNS; i++) {
+		const [row] = await sql.unsafe(`EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ${query}`, params);
+		const result = (row['QUERY PLAN'] as ExplainResult[])[0];
+		if (!best || result['Execution Time'] < best['Execution Time']) {
+			best = result;
+		}
+	}
+
+	const textRows = SHOW_PLANS
+		? await sql.unsafe(`EXPLAIN (ANALYZE, BUFFERS) ${query}`, params)
+		: [];
+
+	const plan = best!.Plan;
+	return {
+		ms: best!['Execution Time'],
+		// Top node buffer counts already include their children
+		buffers: (plan['Shared Hit Blocks'] ?? 0) + (plan['Shared Read Blocks'] ?? 0),
+		// Rows produced by leaf scans: how much data the plan had to touch
+		rowsRead: sumNodes(plan, (n) => (n.Plans?.length ? 0 : n['Actual Rows'] * n['Actual Loops'])),
+		text: textRows.map((r) => r['QUERY PLAN']).join('\n')
+	};
+}
+
+async function main() {
+	console.log(`Language: ${LANG}, best of ${RUNS} runs\n`);
+	console.log(`${'query'.padEnd(40)} ${''.padEnd(7)} ${'exec ms'.padStart(9)} ${'buffers'.padStart(9)} ${'rows read'.padStart(10)}`);
+
+	for (const c of cases) {
+		const params = c.params ?? [LANG];
+		const before = await explain(c.before, params);
+		const after = await explain(c.after, params);
+
+		for (const [label, r] of [['before', before], ['after', after]] as const) {
+			console.log(
+				`${(label === 'before' ? c.name : '').padEnd(40)} ${label.padEnd(7)} ${r.ms.toFixed(2).padStart(9)} ` +
+					`${String(r.buffers).padStart(9)} ${String(r.rowsRead).padStart(10)}`
+			);
+		}
+
+		if (SHOW_PLANS) {
+			console.log(`\n--- ${c.name}: before ---\n${before.text}\n\n--- ${c.name}: after ---\n${after.text}\n`);
+		}
+	}
+}
+
+main()
+	.catch((err) => {
+		console.error('Benchmark failed:', err);
+		process.exitCode = 1;
+	})
+	.finally(() => sql.end());
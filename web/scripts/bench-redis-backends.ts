@@ -0,0 +1,101 @@
+/**
+ * Benchmark: per-request Redis latency of the Upstash REST and native TCP backends
+ * Each simulated request does what hooks.server.ts + a cached page load do:
+ * one rate-limit check and one tagged cache read (MGET of entry + tag version).
+ *
+ * Needs a local Redis; the Upstash client talks to it through an HTTP proxy
+ * speaking the Upstash REST protocol (serverless-redis-http):
+ *
+ *   docker run -d -p 6379:6379 redis:7-alpine
+ *   docker run -d -p 8079:80 -e SRH_MODE=env -e SRH_TOKEN=bench \
+ *     -e SRH_CONNECTION_STRING=redis://host.docker.internal:6379 hiett/serverless-redis-http
+ *
+ * Run with: bun run scripts/bench-redis-backends.ts [requests] [concurrency]
+ * Env: REDIS_URL (default redis://localhost:6379),
+ *      UPSTASH_REDIS_REST_URL (default http://localhost:8079), UPSTASH_REDIS_REST_TOKEN (default bench)
+ */
+
+import { Redis } from '@upstash/redis';
+import type { RedisBackend } from '../src/lib/server/redis/backend';
+import { createRespClient } from '../src/lib/server/redis/resp';
+import { createTcpBackend } from '../src/lib/server/redis/tcp';
+import { createUpstashBackend } from '../src/lib/server/redis/upstash';
+
+const REQUESTS = parseInt(process.argv[2] || '2000', 10);
+const CONCURRENCY = parseInt(process.argv[3] || '32', 10);
+
+const REDIS_URL = process.env.REDIS_URL || 'redis://localhost:6379';
+const UPSTASH_URL = process.env.UPSTASH_REDIS_REST_URL || 'http://localhost:8079';
+const UPSTASH_TOKEN = process.env.UPSTASH_REDIS_REST_TOKEN || 'bench';
+
+const PAYLOAD = {
+	data: Array.from({ length: 20 }, (_, i) => ({ id: `recipe-${i}`, title: `Recipe ${i}`, upvotes: i * 3 })),
+	tagVersions: [1]
+};
+
+async function simulateRequest(backend: RedisBackend, i: number): Promise<void> {
+	await backend.slidingWindow('bench:ratelimit', `ip-${i % 200}`, 1_000_000, 60_000);
+	await backend.mget('bench:homepage:en', 'tagv:bench');
+}
+
+function percentile(sorted: number[], p: number): number {
+	return sorted[Math.min(sorted.length - 1, Math.floor((p / 100) * sorted.length))];
+}
+
+async function run(name: string, backend: RedisBackend) {
+	await backend.set('bench:homepage:en', PAYLOAD, { ex: 300 });
+	await backend.set('tagv:bench', 1);
+
+	// Warm up connections (TLS/HTTP keep-alive, TCP pool)
+	await Promise.all(Array.from({ length: CONCURRENCY }, (_, i) => simulateRequest(backend, i)));
+
+	const latencies: number[] = [];
+	let next = 0;
+	const start = performance.now();
+
+	await Promise.all(
+		Array.from({ length: CONCURRENCY }, async () => {
+			while (next < REQUESTS) {
+				const i = next++;
+				const t0 = performance.now();
+				await simulateRequest(backend, i);
+				latencies.push(performance.now() - t0);
+			}
+		})
+	);
+
+	const elapsed = performance.now() - start;
+	latencies.sort((a, b) => a - b);
+
+	console.log(
+		`${name.padEnd(10)} ${percentile(latencies, 50).toFixed(2).padStart(8)} ${percentile(latencies, 95).toFixed(2).padStart(8)} ${percentile(latencies, 99).toFixed(2).padStart(8)} ${((REQUESTS / elapsed) * 1000).toFixed(0).padStart(10)}`
+	);
+
+	await backend.del('bench:homepage:en', 'tagv:bench');
+}
+
+async function main() {
+	console.log(`Requests: ${REQUESTS}, concurrency: ${CONCURRENCY}`);
+	console.log(`TCP: ${REDIS_URL}, Upstash REST: ${UPSTASH_URL}\n`);
+	console.log(`${'backend'.padEnd(10)} ${'p50 ms'.padStart(8)} ${'p95 ms'.padStart(8)} ${'p99 ms'.padStart(8)} ${'req/s'.padStart(10)}`);
+
+	const respClient = createRespClient(REDIS_URL, { poolSize: 4 });
+	try {
+		await run('tcp', createTcpBackend(respClient));
+	} catch (err) {
+		console.log(`tcp        skipped (${err instanceof Error ? err.message : err})`);
+	} finally {
+		respClient.close();
+	}
+
+	try {
+		await run('upstash', createUpstashBackend(new Redis({ url: UPSTASH_URL, token: UPSTASH_TOKEN })));
+	} catch (err) {
+		console.log(`upstash    skipped (${err instanceof Error ? err.message : err})`);
+	}
+}
+
+main().catch((err) => {
+	console.error('Benchmark failed:', err);
+	process.exit(1);
+});
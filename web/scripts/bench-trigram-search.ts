@@ -0,0 +1,216 @@
+/**
+ * Benchmark: recipe browse search predicates with and without trigram indexes
+ * Seeds a scratch table shaped like recipes (language, title, cuisine, tag,
+ * is_published) with --rows rows (default 1,000,000) of word-list titles, then runs
+ * each predicate from the recipes page with EXPLAIN (ANALYZE, BUFFERS): first with only
+ * a btree on language (what the hashtag/prefix filters had before), then again after
+ * creating the pg_trgm GIN indexes from migration 0025.
+ *
+ * The scratch table is dropped at the end unless --keep is passed (then reruns skip
+ * seeding). The real recipes table is never touched.
+ *
+ * Run with: bun run scripts/bench-trigram-search.ts [--rows=1000000] [--keep] [--plans]
+ */
+
+import postgres from 'postgres';
+
+const DATABASE_URL = process.env.DATABASE_URL;
+if (!DATABASE_URL) {
+	console.error('DATABASE_URL environment variable is required');
+	process.exit(1);
+}
+
+const args = process.argv.slice(2);
+const ROWS = parseInt(args.find((arg) => arg.startsWith('--rows='))?.split('=')[1] || '1000000', 10);
+const KEEP = args.includes('--keep');
+const SHOW_PLANS = args.includes('--plans');
+const RUNS = 5;
+const TABLE = 'bench_trigram_recipes';
+
+const sql = postgres(DATABASE_URL, { max: 1 });
+
+interface PlanNode {
+	'Node Type': string;
+	'Actual Rows': number;
+	'Actual Loops': number;
+	'Shared Hit Blocks'?: number;
+	'Shared Read Blocks'?: number;
+	Plans?: PlanNode[];
+}
+
+interface ExplainResult {
+	Plan: PlanNode;
+	'Execution Time': number;
+}
+
+const adjectives = ['crispy', 'creamy', 'spicy', 'smoky', 'roasted', 'grilled', 'braised', 'quick', 'rustic', 'lemony', 'garlicky', 'sticky'];
+const dishes = ['chicken', 'salmon', 'lentil', 'mushroom', 'pumpkin', 'chickpea', 'beef', 'tofu', 'shrimp', 'eggplant', 'potato', 'spinach'];
+const forms = ['curry', 'risotto', 'stew', 'tacos', 'lasagna', 'noodles', 'soup', 'salad', 'pie', 'burger', 'ramen', 'casserole'];
+const cuisines = ['italian', 'mexican', 'indian', 'thai', 'japanese', 'french', 'greek', 'korean', 'moroccan', 'norwegian'];
+const tags = ['weeknight', 'vegetarian', 'vegan', 'glutenfree', 'comfortfood', 'mealprep', 'bbq', 'dessert', 'breakfast', 'holiday'];
+const languages = ['en', 'en', 'en', 'en', 'no', 'de', 'fr', 'es'];
+
+function pick(list: string[]): string {
+	return `(ARRAY[${list.map((item) => `'${item}'`).join(',')}])[1 + floor(random() * ${list.length})::int]`;
+}
+
+// Same predicates as src/lib/server/search.ts, on the scratch table
+const cases: { name: string; query: string }[] = [
+	{
+		name: '#hashtag (ILIKE %x% on cuisine/tag)',
+		query: `SELECT "id" FROM ${TABLE}
+			WHERE "is_published" AND "language" = 'en'
+			  AND ("cuisine" ILIKE '%moroc%' OR "tag" ILIKE '%moroc%')
+			ORDER BY "id" DESC LIMIT 12`
+	},
+	{
+		name: 'short query (title prefix)',
+		query: `SELECT "id" FROM ${TABLE}
+			WHERE "is_published" AND "language" = 'en' AND "title" ILIKE 'stick%'
+			ORDER BY "id" DESC LIMIT 12`
+	},
+	{
+		name: 'count for #hashtag',
+		query: `SELECT count(*) FROM (
+				SELECT 1 FROM ${TABLE}
+				WHERE "is_published" AND "language" = 'en'
+				  AND ("cuisine" ILIKE '%moroc%' OR "tag" ILIKE '%moroc%')
+				LIMIT 1001
+			) "capped"`
+	},
+	{
+		name: 'fuzzy title ("chiken risoto")',
+		query: `SELECT "id", word_similarity('chiken risoto', "title") AS "rank" FROM ${TABLE}
+			WHERE "is_published" AND "language" = 'en' AND 'chiken risoto' <% "title"
+			ORDER BY "rank" DESC, "id" DESC LIMIT 12`
+	}
+];
+
+function sumNodes(node: PlanNode, pick: (n: PlanNode) => number): number {
+	return pick(node) + (node.Plans ?? []).reduce((sum, child) => sum + sumNodes(child, pick), 0);
+}
+
+async function explain(query: string): Promise<{ ms: number; buffers: number; rowsRead: number; text: string }> {
+	let best: ExplainResult | null = null;
+	for (let i = 0; i < RUNS; i++) {
+		const [row] = await sql.unsafe(`EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) ${query}`);
+		const result = (row['QUERY PLAN'] as ExplainResult[])[0];
+		if (!best || result['Execution Time'] < best['Execution Time']) {
+			best = result;
+		}
+	}
+
+	const textRows = SHOW_PLANS ? await sql.unsafe(`EXPLAIN (ANALYZE, BUFFERS) ${query}`) : [];
+
+	const plan = best!.Plan;
+	return {
+		ms: best!['Execution Time'],
+		buffers: (plan['Shared Hit Blocks'] ?? 0) + (plan['Shared Read Blocks'] ?? 0),
+		rowsRead: sumNodes(plan, (n) => (n.Plans?.length ? 0 : n['Actual Rows'] * n['Actual Loops'])),
+		text: textRows.map((r) => r['QUERY PLAN']).join('\n')
+	};
+}
+
+async function seed() {
+	const [existing] = await sql`SELECT to_regclass(${TABLE}) IS NOT NULL AS "exists"`;
+	if (existing.exists) {
+		const [{ count }] = await sql.unsafe(`SELECT count(*)::int AS "count" FROM ${TABLE}`);
+		console.log(`✓ Reusing ${TABLE} (${count} rows)`);
+		return;
+	}
+
+	console.log(`Seeding ${ROWS} rows into ${TABLE}...`);
+	const started = Date.now();
+
+	await sql.unsafe(`
+		CREATE TABLE ${TABLE} (
+			"id" bigint PRIMARY KEY,
+			"language" varchar(10) NOT NULL,
+			"title" text NOT NULL,
+			"cuisine" varchar(100),
+			"tag" varchar(100),
+			"is_published" boolean NOT NULL
+		)
+	`);
+	await sql.unsafe(`SELECT setseed(0.42)`);
+	await sql.unsafe(`
+		INSERT INTO ${TABLE} ("id", "language", "title", "cuisine", "tag", "is_published")
+		SELECT
+			g,
+			${pick(languages)},
+			initcap(${pick(adjectives)} || ' ' || ${pick(dishes)} || ' ' || ${pick(forms)}) || ' #' || g,
+			CASE WHEN random() < 0.8 THEN ${pick(cuisines)} END,
+			CASE WHEN random() < 0.7 THEN ${pick(tags)} END,
+			random() < 0.9
+		FROM generate_series(1, ${ROWS}) g
+	`);
+	// The browse indexes that exist regardless of this change
+	await sql.unsafe(`CREATE INDEX ON ${TABLE} ("language")`);
+	await sql.unsafe(`ANALYZE ${TABLE}`);
+
+	console.log(`✓ Seeded in ${((Date.now() - started) / 1000).toFixed(1)}s`);
+}
+
+async function createTrigramIndexes() {
+	const started = Date.now();
+	await sql`CREATE EXTENSION IF NOT EXISTS pg_trgm`;
+	await sql`CREATE EXTENSION IF NOT EXISTS btree_gin`;
+	for (const column of ['title', 'cuisine', 'tag']) {
+		await sql.unsafe(`
+			CREATE INDEX IF NOT EXISTS ${TABLE}_${column}_trgm_idx
+			ON ${TABLE} USING gin ("language", "${column}" gin_trgm_ops)
+			WHERE "is_published"
+		`);
+	}
+	await sql.unsafe(`ANALYZE ${TABLE}`);
+	console.log(`✓ Trigram indexes built in ${((Date.now() - started) / 1000).toFixed(1)}s\n`);
+}
+
+async function dropTrigramIndexes() {
+	for (const column of ['title', 'cuisine', 'tag']) {
+		await sql.unsafe(`DROP INDEX IF EXISTS ${TABLE}_${column}_trgm_idx`);
+	}
+}
+
+async function main() {
+	await sql`CREATE EXTENSION IF NOT EXISTS pg_trgm`;
+	await seed();
+	await dropTrigramIndexes();
+
+	const before = [];
+	for (const c of cases) {
+		before.push(await explain(c.query));
+	}
+
+	await createTrigramIndexes();
+
+	console.log(`Best of ${RUNS} runs\n`);
+	console.log(`${'query'.padEnd(40)} ${''.padEnd(7)} ${'exec ms'.padStart(9)} ${'buffers'.padStart(9)} ${'rows read'.padStart(10)}`);
+
+	for (const [i, c] of cases.entries()) {
+		const after = await explain(c.query);
+
+		for (const [label, r] of [['before', before[i]], ['after', after]] as const) {
+			console.log(
+				`${(label === 'before' ? c.name : '').padEnd(40)} ${label.padEnd(7)} ${r.ms.toFixed(2).padStart(9)} ` +
+					`${String(r.buffers).padStart(9)} ${String(r.rowsRead).padStart(10)}`
+			);
+		}
+
+		if (SHOW_PLANS) {
+			console.log(`\n--- ${c.name}: before ---\n${before[i].text}\n\n--- ${c.name}: after ---\n${after.text}\n`);
+		}
+	}
+
+	if (!KEEP) {
+		await sql.unsafe(`DROP TABLE ${TABLE}`);
+		console.log(`\n✓ Dropped ${TABLE}`);
+	}
+}
+
+main()
+	.catch((err) => {
+		console.error('Benchmark failed:', err);
+		process.exitCode = 1;
+	})
+	.finally(() => sql.end());
@@ -0,0 +1,286 @@
+/**
+ * Benchmark: vote writes under concurrent voting on one popular recipe
+ * "legacy" replays the previous vote handler's round trips (select recipe, select
+ * existing vote, BEGIN, write the vote, update the counters, record the vote window,
+ * COMMIT, re-select the counts); "single" is castVote from src/lib/server/votes/apply
+ * (one statement); "deferred" is castVote in write-behind mode, with the counter
+ * deltas buffered and flushed every --flush ms (src/lib/server/votes/writeBehind).
+ * --concurrency workers cast --ops random up/down votes from --users
+ * scratch voters on one scratch recipe, so every write contends for the same recipe
+ * row. A sampler polls pg_stat_activity for this run's connections: busy ones (active
+ * or idle in transaction) and ones waiting on a lock.
+ *
+ * After each run the recipe counters are checked against a recount of votes. The
+ * scratch users and recipe (ids starting with bench-votes-) are deleted at the end.
+ *
+ * Run with: bun run scripts/bench-votes.ts [--ops=5000] [--concurrency=50] [--users=2000] [--flush=250]
+ */
+
+import { drizzle } from 'drizzle-orm/postgres-js';
+import postgres from 'postgres';
+import * as schema from '../src/lib/server/db/schema';
+import { castVote, type VoteValue } from '../src/lib/server/votes/apply';
+import { PendingVoteCounters } from '../src/lib/server/votes/writeBehind';
+
+const DATABASE_URL = process.env.DATABASE_URL;
+if (!DATABASE_URL) {
+	console.error('DATABASE_URL environment variable is required');
+	process.exit(1);
+}
+
+const args = process.argv.slice(2);
+const arg = (name: string, fallback: number) =>
+	parseInt(args.find((a) => a.startsWith(`--${name}=`))?.split('=')[1] || String(fallback), 10);
+const OPS = arg('ops', 5000);
+const CONCURRENCY = arg('concurrency', 50);
+const USERS = arg('users', 2000);
+const FLUSH_MS = arg('flush', 250);
+const APPLICATION_NAME = 'bench_votes';
+const SAMPLE_MS = 5;
+const AUTHOR_ID = 'bench-votes-author';
+
+const admin = postgres(DATABASE_URL, { max: 1 });
+
+interface RunStats {
+	latencies: number[];
+	errors: number;
+	durationMs: number;
+	peakBusy: number;
+	meanBusy: number;
+	peakLockWaits: number;
+}
+
+async function setup(): Promise<string> {
+	await cleanup();
+	await admin`
+		INSERT INTO "user" ("id", "name", "email")
+		SELECT 'bench-votes-user-' || g, 'Bench voter ' || g, 'bench-votes-' || g || '@example.invalid'
+		FROM generate_series(1, ${USERS}) g
+	`;
+	await admin`INSERT INTO "user" ("id", "name", "email") VALUES (${AUTHOR_ID}, 'Bench author', 'bench-votes-author@example.invalid')`;
+	const [recipe] = await admin<{ id: string }[]>`
+		INSERT INTO "recipes" ("author_id", "title", "slug", "language", "is_published", "published_at")
+		VALUES (${AUTHOR_ID}, 'Bench popular recipe', 'bench-votes-popular-recipe', 'en', true, now())
+		RETURNING "id"
+	`;
+	return recipe.id;
+}
+
+async function reset(recipeId: string) {
+	await admin`DELETE FROM "votes" WHERE "recipe_id" = ${recipeId}`;
+	await admin`DELETE FROM "recipe_vote_buckets" WHERE "recipe_id" = ${recipeId}`;
+	await admin`
+		UPDATE "recipes" SET "upvotes" = 0, "downvotes" = 0, "vote_score" = 0, "week_upvotes" = 0, "month_upvotes" = 0
+		WHERE "id" = ${recipeId}
+	`;
+}
+
+async function cleanup() {
+	await admin`DELETE FROM "recipe_ranking_queue" WHERE "recipe_id" IN (SELECT "id" FROM "recipes" WHERE "author_id" = ${AUTHOR_ID})`;
+	// Recipes, votes and buckets cascade from the users
+	await admin`DELETE FROM "user" WHERE "id" LIKE 'bench-votes-%'`;
+}
+
+/**
+ * The previous handler: up to five sequential round trips, with the recipe row
+ * locked from the counter update until COMMIT
+ */
+async function legacyVote(pool: postgres.Sql, userId: string, recipeId: string, value: VoteValue) {
+	const [recipe] = await pool`SELECT "id", "author_id" FROM "recipes" WHERE "id" = ${recipeId} LIMIT 1`;
+	if (!recipe || recipe.author_id === userId) return;
+
+	const [existing] = await pool<{ id: string; value: number; created_at: Date }[]>`
+		SELECT "id", "value", "created_at" FROM "votes" WHERE "user_id" = ${userId} AND "recipe_id" = ${recipeId} LIMIT 1
+	`;
+
+	const counters = (tx: postgres.TransactionSql, up: number, down: number) => tx`
+		UPDATE "recipes" SET
+			"upvotes" = "upvotes" + ${up},
+			"downvotes" = "downvotes" + ${down},
+			"vote_score" = "vote_score" + ${up} - ${down},
+			"hot_score" = recipe_hot_score("vote_score" + ${up} - ${down}, "published_at")
+		WHERE "id" = ${recipeId}
+	`;
+	const window = (tx: postgres.TransactionSql, voteValue: number, delta: number, votedAt: Date | null = null) => {
+		const up = voteValue > 0 ? delta : 0;
+		const down = voteValue < 0 ? delta : 0;
+		return tx`
+			WITH "d" AS (
+				SELECT (COALESCE(${votedAt}::timestamptz, now()) AT TIME ZONE 'UTC')::date AS "day", (now() AT TIME ZONE 'UTC')::date AS "today"
+			),
+			"bucket" AS (
+				INSERT INTO "recipe_vote_buckets" ("recipe_id", "day", "upvotes", "downvotes")
+				SELECT ${recipeId}, "d"."day", ${up}, ${down} FROM "d" WHERE "d"."day" > "d"."today" - 30
+				ON CONFLICT ("recipe_id", "day") DO UPDATE SET
+					"upvotes" = "recipe_vote_buckets"."upvotes" + EXCLUDED."upvotes",
+					"downvotes" = "recipe_vote_buckets"."downvotes" + EXCLUDED."downvotes"
+			)
+			UPDATE "recipes" SET
+				"week_upvotes" = "week_upvotes" + CASE WHEN "d"."day" > "d"."today" - 7 THEN ${up} ELSE 0 END,
+				"month_upvotes" = "month_upvotes" + CASE WHEN "d"."day" > "d"."today" - 30 THEN ${up} ELSE 0 END
+			FROM "d"
+			WHERE "recipes"."id" = ${recipeId} AND ${up} <> 0 AND "d"."day" > "d"."today" - 30
+		`;
+	};
+
+	await pool.begin(async (tx) => {
+		if (!existing) {
+			await tx`INSERT INTO "votes" ("recipe_id", "user_id", "value") VALUES (${recipeId}, ${userId}, ${value})`;
+			await counters(tx, value > 0 ? 1 : 0, value < 0 ? 1 : 0);
+			await window(tx, value, 1);
+		} else if (existing.value === value) {
+			await tx`DELETE FROM "votes" WHERE "id" = ${existing.id}`;
+			await counters(tx, value > 0 ? -1 : 0, value < 0 ? -1 : 0);
+			await window(tx, existing.value, -1, existing.created_at);
+		} else {
+			await tx`UPDATE "votes" SET "value" = ${value}, "created_at" = now() WHERE "id" = ${existing.id}`;
+			await counters(tx, value > 0 ? 1 : -1, value < 0 ? 1 : -1);
+			await window(tx, existing.value, -1, existing.created_at);
+			await window(tx, value, 1);
+		}
+	});
+
+	await pool`SELECT "upvotes", "downvotes" FROM "recipes" WHERE "id" = ${recipeId} LIMIT 1`;
+}
+
+interface Voter {
+	vote: (userId: string, value: VoteValue) => Promise<unknown>;
+	/** Called after the last vote, before the counters are checked */
+	finish?: () => Promise<void>;
+}
+
+async function run(label: string, recipeId: string, createVoter: (pool: postgres.Sql) => Voter): Promise<RunStats> {
+	await reset(recipeId);
+
+	const pool = postgres(DATABASE_URL!, { max: CONCURRENCY, connection: { application_name: APPLICATION_NAME } });
+	const sampler = postgres(DATABASE_URL!, { max: 1 });
+	// Open every pooled connection up front so connection setup isn't timed
+	await Promise.all(Array.from({ length: CONCURRENCY }, () => pool`SELECT 1`));
+	const voter = createVoter(pool);
+
+	const samples: { busy: number; lockWaits: number }[] = [];
+	let sampling = true;
+	const sampling$ = (async () => {
+		while (sampling) {
+			const [row] = await sampler<{ busy: number; lock_waits: number }[]>`
+				SELECT
+					count(*) FILTER (WHERE "state" = 'active' OR "state" LIKE 'idle in transaction%')::int AS "busy",
+					count(*) FILTER (WHERE "wait_event_type" = 'Lock')::int AS "lock_waits"
+				FROM pg_stat_activity
+				WHERE "application_name" = ${APPLICATION_NAME}
+			`;
+			samples.push({ busy: row.busy, lockWaits: row.lock_waits });
+			await new Promise((resolve) => setTimeout(resolve, SAMPLE_MS));
+		}
+	})();
+
+	const latencies: number[] = [];
+	let errors = 0;
+	let next = 0;
+	const started = performance.now();
+
+	await Promise.all(
+		Array.from({ length: CONCURRENCY }, async () => {
+			while (next < OPS) {
+				next++;
+				const userId = `bench-votes-user-${1 + Math.floor(Math.random() * USERS)}`;
+				const value: VoteValue = Math.random() < 0.8 ? 1 : -1;
+				const start = performance.now();
+				try {
+					await voter.vote(userId, value);
+					latencies.push(performance.now() - start);
+				} catch {
+					// e.g. a unique violation when the same voter races itself (legacy)
+					errors++;
+				}
+			}
+		})
+	);
+
+	const durationMs = performance.now() - started;
+	sampling = false;
+	await sampling$;
+	await voter.finish?.();
+	await Promise.all([pool.end(), sampler.end()]);
+
+	const [check] = await admin<{ upvotes: number; downvotes: number; actual_up: number; actual_down: number }[]>`
+		SELECT r."upvotes", r."downvotes",
+			count(v.*) FILTER (WHERE v."value" > 0)::int AS "actual_up",
+			count(v.*) FILTER (WHERE v."value" < 0)::int AS "actual_down"
+		FROM "recipes" r LEFT JOIN "votes" v ON v."recipe_id" = r."id"
+		WHERE r."id" = ${recipeId}
+		GROUP BY r."id"
+	`;
+	if (check.upvotes !== check.actual_up || check.downvotes !== check.actual_down) {
+		console.error(`✗ ${label}: counters ${check.upvotes}/${check.downvotes} but votes ${check.actual_up}/${check.actual_down}`);
+	} else {
+		console.log(`✓ ${label}: counters match votes (${check.upvotes} up, ${check.downvotes} down)`);
+	}
+
+	const busy = samples.map((s) => s.busy);
+	return {
+		latencies: latencies.sort((a, b) => a - b),
+		errors,
+		durationMs,
+		peakBusy: Math.max(0, ...busy),
+		meanBusy: busy.length > 0 ? busy.reduce((sum, b) => sum + b, 0) / busy.length : 0,
+		peakLockWaits: Math.max(0, ...samples.map((s) => s.lockWaits))
+	};
+}
+
+function percentile(sorted: number[], p: number): string {
+	if (sorted.length === 0) return '-';
+	return sorted[Math.min(sorted.length - 1, Math.floor((p / 100) * sorted.length))].toFixed(1);
+}
+
+function report(label: string, stats: RunStats) {
+	const opsPerSecond = ((stats.latencies.length / stats.durationMs) * 1000).toFixed(0);
+	console.log(
+		`${label.padEnd(8)} ${opsPerSecond.padStart(8)} ${percentile(stats.latencies, 50).padStart(8)} ${percentile(stats.latencies, 95).padStart(8)} ${percentile(stats.latencies, 99).padStart(8)}` +
+			` ${String(stats.peakBusy).padStart(9)} ${stats.meanBusy.toFixed(1).padStart(9)} ${String(stats.peakLockWaits).padStart(10)} ${String(stats.errors).padStart(7)}`
+	);
+}
+
+async function main() {
+	console.log(`${OPS} votes from ${USERS} voters on one recipe, ${CONCURRENCY} concurrent connections\n`);
+	const recipeId = await setup();
+
+	try {
+		const legacy = await run('legacy', recipeId, (pool) => ({
+			vote: (userId, value) => legacyVote(pool, userId, recipeId, value)
+		}));
+		const single = await run('single', recipeId, (pool) => {
+			const db = drizzle(pool, { schema });
+			return { vote: (userId, value) => castVote(db, userId, recipeId, value) };
+		});
+		const deferred = await run('deferred', recipeId, (pool) => {
+			const db = drizzle(pool, { schema });
+			const pending = new PendingVoteCounters();
+			const timer = setInterval(() => void pending.flush(db).catch((error) => console.error(error)), FLUSH_MS);
+			return {
+				async vote(userId, value) {
+					const result = await castVote(db, userId, recipeId, value, { deferCounters: true });
+					pending.add(recipeId, result.deltas);
+				},
+				async finish() {
+					clearInterval(timer);
+					await pending.flush(db);
+				}
+			};
+		});
+
+		console.log(`\n${''.padEnd(8)} ${'ops/s'.padStart(8)} ${'p50 ms'.padStart(8)} ${'p95 ms'.padStart(8)} ${'p99 ms'.padStart(8)} ${'peak busy'.padStart(9)} ${'mean busy'.padStart(9)} ${'lock waits'.padStart(10)} ${'errors'.padStart(7)}`);
+		report('legacy', legacy);
+		report('single', single);
+		report('deferred', deferred);
+	} finally {
+		await cleanup();
+	}
+}
+
+main()
+	.catch((error) => {
+		console.error(error);
+		process.exit(1);
+	})
+	.finally(() => admin.end());
@@ -0,0 +1,66 @@
+/**
+ * Check the denormalized recipe vote counters against the votes table
+ * Reports drifted recipes; with --repair, rewrites them from a fresh recount and
+ * queues their rankings refresh (same code path as the periodic job).
+ * Cached recipe stats expire on their own TTL; the in-app job also deletes them.
+ * With write-behind vote counters enabled, pass --settle=ms (a few flush intervals) so
+ * drift from deltas that are still pending isn't "repaired".
+ *
+ * Run with: bun run scripts/check-vote-counters.ts [--repair] [--max=1000] [--settle=0]
+ */
+
+import { drizzle } from 'drizzle-orm/postgres-js';
+import postgres from 'postgres';
+import * as schema from '../src/lib/server/db/schema';
+import { reconcileVoteCounters } from '../src/lib/server/voteCounters/reconcile';
+
+const DATABASE_URL = process.env.DATABASE_URL;
+if (!DATABASE_URL) {
+	console.error('DATABASE_URL environment variable is required');
+	process.exit(1);
+}
+
+const repair = process.argv.includes('--repair');
+const maxArg = process.argv.find((arg) => arg.startsWith('--max='));
+const maxRepairs = maxArg ? parseInt(maxArg.slice('--max='.length), 10) : undefined;
+const settleArg = process.argv.find((arg) => arg.startsWith('--settle='));
+const settleMs = settleArg ? parseInt(settleArg.slice('--settle='.length), 10) : undefined;
+
+const client = postgres(DATABASE_URL);
+const db = drizzle(client, { schema });
+
+async function main() {
+	const report = await reconcileVoteCounters(db, { repair, maxRepairs, settleMs });
+
+	if (!report) {
+		console.log('Another instance is reconciling vote counters; try again later');
+		return;
+	}
+
+	if (report.drifted.length === 0) {
+		console.log('✓ Vote counters match votes');
+		return;
+	}
+
+	console.log(`${report.drifted.length} recipe(s) with drifted counters:\n`);
+	console.log(`${'recipe'.padEnd(38)} ${'up'.padStart(8)} ${'actual'.padStart(8)} ${'down'.padStart(8)} ${'actual'.padStart(8)}`);
+	for (const d of report.drifted) {
+		console.log(
+			`${d.recipeId.padEnd(38)} ${String(d.upvotes).padStart(8)} ${String(d.actualUpvotes).padStart(8)} ` +
+				`${String(d.downvotes).padStart(8)} ${String(d.actualDownvotes).padStart(8)}`
+		);
+	}
+
+	if (repair) {
+		console.log(`\n✓ Repaired ${report.repaired.length} recipe(s)`);
+	} else {
+		console.log('\nRun with --repair to fix them');
+	}
+}
+
+main()
+	.catch((err) => {
+		console.error('Vote counter check failed:', err);
+		process.exitCode = 1;
+	})
+	.finally(() => client.end());
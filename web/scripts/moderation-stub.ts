@@ -0,0 +1,104 @@
+/**
+ * Local stand-in for the OpenAI moderation endpoint (POST /v1/moderations)
+ * For exercising MODERATION_MODE=async without an API key or network: point the app at
+ * it with OPENAI_BASE_URL=http://localhost:4010/v1 and any OPENAI_API_KEY.
+ *
+ * Text containing one of the --flag words (case-insensitive) is flagged as harassment.
+ * Each request waits --latency ms (±50%) and fails with a 500 at --fail-rate, so the
+ * workers' batching, retries and backoff can be observed. Requests and inputs per
+ * request are logged every 5 seconds.
+ *
+ * Run with: bun run scripts/moderation-stub.ts [--port=4010] [--latency=200] [--fail-rate=0] [--flag=flagme,spamword]
+ */
+
+const args = process.argv.slice(2);
+const arg = (name: string, fallback: string) =>
+	args.find((a) => a.startsWith(`--${name}=`))?.split('=')[1] ?? fallback;
+const PORT = parseInt(arg('port', '4010'), 10);
+const LATENCY_MS = parseInt(arg('latency', '200'), 10);
+const FAIL_RATE = parseFloat(arg('fail-rate', '0'));
+const FLAG_WORDS = arg('flag', 'flagme')
+	.split(',')
+	.map((word) => word.trim().toLowerCase())
+	.filter(Boolean);
+
+const CATEGORIES = [
+	'harassment',
+	'harassment/threatening',
+	'hate',
+	'hate/threatening',
+	'illicit',
+	'illicit/violent',
+	'self-harm',
+	'self-harm/instructions',
+	'self-harm/intent',
+	'sexual',
+	'sexual/minors',
+	'violence',
+	'violence/graphic'
+];
+
+type MultiModalInput = { type: 'text'; text: string } | { type: 'image_url'; image_url: { url: string } };
+
+function moderationResult(text: string) {
+	const lower = text.toLowerCase();
+	const flagged = FLAG_WORDS.some((word) => lower.includes(word));
+	const categories = Object.fromEntries(CATEGORIES.map((c) => [c, flagged && c === 'harassment']));
+	const scores = Object.fromEntries(CATEGORIES.map((c) => [c, flagged && c === 'harassment' ? 0.98 : 0.001]));
+	const appliedTypes = Object.fromEntries(CATEGORIES.map((c) => [c, ['text']]));
+	return { flagged, categories, category_scores: scores, category_applied_input_types: appliedTypes };
+}
+
+const stats = { requests: 0, failures: 0, inputs: 0 };
+
+setInterval(() => {
+	if (stats.requests === 0) return;
+	console.log(
+		`${stats.requests} requests (${stats.failures} failed), ${(stats.inputs / stats.requests).toFixed(1)} inputs per request`
+	);
+	stats.requests = stats.failures = stats.inputs = 0;
+}, 5000);
+
+Bun.serve({
+	port: PORT,
+	async fetch(request) {
+		const { pathname } = new URL(request.url);
+		if (request.method !== 'POST' || !pathname.endsWith('/moderations')) {
+			return Response.json({ error: { message: 'Not found' } }, { status: 404 });
+		}
+
+		const body = (await request.json()) as { model?: string; input: string | string[] | MultiModalInput[] };
+		stats.requests++;
+
+		await new Promise((resolve) => setTimeout(resolve, LATENCY_MS * (0.5 + Math.random())));
+
+		if (Math.random() < FAIL_RATE) {
+			stats.failures++;
+			return Response.json({ error: { message: 'Stub failure', type: 'server_error' } }, { status: 500 });
+		}
+
+		// A string array yields one result per string; a multi-modal array yields one result
+		let results;
+		if (typeof body.input === 'string') {
+			stats.inputs++;
+			results = [moderationResult(body.input)];
+		} else if (body.input.every((item) => typeof item === 'string')) {
+			stats.inputs += body.input.length;
+			results = (body.input as string[]).map(moderationResult);
+		} else {
+			stats.inputs++;
+			const text = (body.input as MultiModalInput[])
+				.map((item) => (item.type === 'text' ? item.text : ''))
+				.join('\n');
+			results = [moderationResult(text)];
+		}
+
+		return Response.json({
+			id: `modr-stub-${crypto.randomUUID()}`,
+			model: body.model ?? 'omni-moderation-latest',
+			results
+		});
+	}
+});
+
+console.log(`Moderation stub listening on http://localhost:${PORT}/v1 (flagging: ${FLAG_WORDS.join(', ')})`);
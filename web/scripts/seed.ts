@@ -369,6 +369,9 @@ async function seed() {
 		{ recipeId: cacioEPepe.id, stepNumber: 5, instruction: 'Remove from heat, add pecorino gradually while tossing to create a creamy sauce. Add more pasta water if needed.' }
 	]);
 
+	// Index the ingredients and steps for search and pantry matching (the API does this per recipe)
+	await client`SELECT refresh_recipe_content_vector("id"), refresh_recipe_ingredient_keys("id") FROM "recipes"`;
+
 	// Create follows with recent timestamps for trending chefs
 	console.log('Creating follows...');
 	const recentFollows = [
@@ -408,6 +411,12 @@ async function seed() {
 			arr.findIndex((x) => x.followerId === f.followerId && x.followingId === f.followingId) === i
 	);
 	await db.insert(schema.follows).values(uniqueFollows);
+	// Denormalized follow counters (api/follow keeps them current at runtime)
+	await client`
+		UPDATE "user" u SET
+			"follower_count" = (SELECT count(*) FROM "follows" f WHERE f."following_id" = u."id"),
+			"following_count" = (SELECT count(*) FROM "follows" f WHERE f."follower_id" = u."id")
+	`;
 
 	// Create votes with mix of upvotes and downvotes
 	console.log('Creating votes...');
@@ -0,0 +1,87 @@
+/**
+ * Simulate cross-instance L1 invalidation locally (no Redis required)
+ * Two "nodes" share an in-memory invalidation log; an invalidation published by
+ * node A must evict node B's L1 entry after B's next poll. A publish that has taken its
+ * sequence number but not yet written its entry must not reset B; entries trimmed past
+ * B must, once the grace period is over.
+ *
+ * Run with: bun run scripts/simulate-cache-invalidation.ts
+ */
+
+import { BoundedCache } from '../src/lib/server/redis/lru';
+import {
+	createInMemoryInvalidationLog,
+	createPolledInvalidationBus,
+	type InvalidationLog,
+	type InvalidationMessage
+} from '../src/lib/server/redis/invalidation';
+
+function createNode(name: string, log: InvalidationLog) {
+	const l1 = new BoundedCache<unknown>({ maxEntries: 100 });
+	const bus = createPolledInvalidationBus(log, { gapGraceMs: 0 });
+	bus.subscribe((message: InvalidationMessage) => {
+		if (message.type === 'keys') {
+			message.keys.forEach((key) => l1.delete(key));
+		} else if (message.type === 'reset') {
+			l1.clear();
+		}
+	});
+	return { name, l1, bus };
+}
+
+function check(condition: boolean, label: string) {
+	console.log(`${condition ? '✓' : '✗'} ${label}`);
+	if (!condition) process.exitCode = 1;
+}
+
+async function main() {
+	const shared = createInMemoryInvalidationLog(5);
+	// Publishes numbered but not yet written
+	let pending = 0;
+	const log: InvalidationLog = {
+		...shared,
+		latestSequence: async () => (await shared.latestSequence()) + pending
+	};
+	const a = createNode('A', log);
+	const b = createNode('B', log);
+
+	// First poll establishes each node's position in the log
+	await a.bus.poll();
+	await b.bus.poll();
+
+	a.l1.set('trending:en', { version: 1 }, 5000);
+	b.l1.set('trending:en', { version: 1 }, 5000);
+
+	await a.bus.publish({ type: 'keys', keys: ['trending:en'] });
+	check(b.l1.has('trending:en'), 'node B still serves its L1 entry before polling');
+
+	await b.bus.poll();
+	check(!b.l1.has('trending:en'), 'node B evicted the key after polling');
+
+	// A publish in flight - node must wait for its entry rather than reset
+	b.l1.set('homepage:en', { version: 1 }, 5000);
+	b.l1.set('recipe:r1', { version: 1 }, 5000);
+	pending = 1;
+	await b.bus.poll();
+	check(b.l1.has('homepage:en'), 'node B kept its L1 while a publish was in flight');
+	pending = 0;
+	await a.bus.publish({ type: 'keys', keys: ['recipe:r1'] });
+	await b.bus.poll();
+	check(
+		!b.l1.has('recipe:r1') && b.l1.has('homepage:en'),
+		'node B applied the in-flight entry once it was written'
+	);
+
+	// Fall further behind than the log retains - node must reset its L1
+	for (let i = 0; i < 10; i++) {
+		await a.bus.publish({ type: 'keys', keys: [`chef:user${i}`] });
+	}
+	await b.bus.poll();
+	await b.bus.poll();
+	check(!b.l1.has('homepage:en'), 'node B reset its L1 after missing trimmed log entries');
+}
+
+main().catch((err) => {
+	console.error('Simulation failed:', err);
+	process.exit(1);
+});
@@ -10,10 +10,31 @@ import { rateLimit, getRateLimitType } from '$lib/server/rateLimit';
 import { logger, requestContext, generateRequestId, getRequestId } from '$lib/server/logger';
 import { auditAuthFailure } from '$lib/server/logger/audit';
 import { initSentry, captureException, setUser } from '$lib/server/sentry';
+import { startRecipeRankingsJob } from '$lib/server/rankings';
+import { startVoteCounterCheckJob } from '$lib/server/voteCounters';
+import { startVoteWindowRollupJob } from '$lib/server/voteWindows';
+import { startVoteFlushJob } from '$lib/server/votes';
+import { startSuggestIndexJob } from '$lib/server/suggest';
+import { startTimelineTrimJob } from '$lib/server/timeline';
+import { startModerationWorkers } from '$lib/server/moderation/queue';
+import { startStatsLogJob } from '$lib/server/stats';
 
 // Initialize Sentry on server startup
 initSentry();
 
+// Keep precomputed rankings, vote windows, vote counters, suggestion indexes and timelines current,
+// moderate queued content and log cache/rate-limit stats (not while building)
+if (!building) {
+	startRecipeRankingsJob();
+	startVoteWindowRollupJob();
+	startVoteCounterCheckJob();
+	startVoteFlushJob();
+	startSuggestIndexJob();
+	startTimelineTrimJob();
+	startModerationWorkers();
+	startStatsLogJob();
+}
+
 /**
  * Request body size limits (in bytes)
  * Protects against DoS attacks via large payloads
@@ -3,6 +3,8 @@
 // Note: This list focuses on specialty/uncommon equipment
 // Common items like pots, pans, knives are assumed to be available
 
+import { createCatalogIndex } from '../utils/catalogIndex';
+
 export interface EquipmentDef {
 	key: string;
 	name: string;
@@ -166,25 +168,15 @@ export const equipmentList: EquipmentDef[] = [
 	{ key: 'smoking_gun', name: 'Smoking gun', category: 'specialty' }
 ];
 
-// Helper function to search equipment
-export function searchEquipment(query: string, limit = 10): EquipmentDef[] {
-	const q = query.toLowerCase().trim();
-	if (!q) return [];
+const equipmentIndex = createCatalogIndex(equipmentList);
 
-	return equipmentList
-		.filter((e) => e.name.toLowerCase().includes(q) || e.key.includes(q))
-		.sort((a, b) => {
-			// Prioritize matches at the start of the name
-			const aStarts = a.name.toLowerCase().startsWith(q);
-			const bStarts = b.name.toLowerCase().startsWith(q);
-			if (aStarts && !bStarts) return -1;
-			if (!aStarts && bStarts) return 1;
-			return a.name.localeCompare(b.name);
-		})
-		.slice(0, limit);
+// Helper function to search equipment (prefix matches on the name first, then other
+// name/key substring matches, alphabetical within each)
+export function searchEquipment(query: string, limit = 10): EquipmentDef[] {
+	return equipmentIndex.search(query, limit);
 }
 
 // Get equipment by key
 export function getEquipment(key: string): EquipmentDef | undefined {
-	return equipmentList.find((e) => e.key === key);
+	return equipmentIndex.get(key);
 }
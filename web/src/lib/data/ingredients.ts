@@ -1,6 +1,8 @@
 // Ingredient repository for localization support
 // Each ingredient has a key (for DB/localization) and default English name
 
+import { createCatalogIndex } from '../utils/catalogIndex';
+
 export interface IngredientDef {
 	key: string;
 	name: string;
@@ -695,25 +697,15 @@ export const ingredients: IngredientDef[] = [
 	{ key: 'matcha', name: 'matcha', category: 'misc' },
 ];
 
-// Helper function to search ingredients
+const ingredientIndex = createCatalogIndex(ingredients);
+
+// Helper function to search ingredients (prefix matches on the name first, then other
+// name/key substring matches, alphabetical within each)
 export function searchIngredients(query: string, limit = 10): IngredientDef[] {
-	const q = query.toLowerCase().trim();
-	if (!q) return [];
-
-	return ingredients
-		.filter((i) => i.name.toLowerCase().includes(q) || i.key.includes(q))
-		.sort((a, b) => {
-			// Prioritize matches at the start of the name
-			const aStarts = a.name.toLowerCase().startsWith(q);
-			const bStarts = b.name.toLowerCase().startsWith(q);
-			if (aStarts && !bStarts) return -1;
-			if (!aStarts && bStarts) return 1;
-			return a.name.localeCompare(b.name);
-		})
-		.slice(0, limit);
+	return ingredientIndex.search(query, limit);
 }
 
 // Get ingredient by key
 export function getIngredient(key: string): IngredientDef | undefined {
-	return ingredients.find((i) => i.key === key);
+	return ingredientIndex.get(key);
 }
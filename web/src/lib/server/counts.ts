@@ -0,0 +1,86 @@
+/**
+ * Totals for filtered listings
+ * An exact count(*) is only paid for small results: the count is capped at
+ * EXACT_COUNT_THRESHOLD + 1 rows, and anything past the cap is reported as the
+ * planner's row estimate instead. Either way the total is cached per filter
+ * key for a short TTL, so paging through a listing doesn't recount.
+ */
+
+import { createHash } from 'node:crypto';
+import { sql, type SQL } from 'drizzle-orm';
+import type { PgTable } from 'drizzle-orm/pg-core';
+import { db } from '$lib/server/db';
+import { recipes } from '$lib/server/db/schema';
+import { cacheGetOrSet, cacheKeys, cacheTags } from '$lib/server/redis/cache';
+
+// Results up to this size are counted exactly
+export const EXACT_COUNT_THRESHOLD = 1000;
+
+export interface ListCount {
+	count: number;
+	/** false when count is a planner estimate (at least EXACT_COUNT_THRESHOLD + 1) */
+	exact: boolean;
+}
+
+/**
+ * Stable cache key for a filter set: key order and empty values don't matter
+ * Values are kept verbatim, since equality filters match case-sensitively; only the
+ * free-text filters in `textKeys` (matched case-insensitively) are trimmed and lowercased.
+ */
+export function filterKey(
+	filters: Record<string, string | number | boolean | null | undefined>,
+	textKeys: readonly string[] = []
+): string {
+	const normalized = Object.keys(filters)
+		.sort()
+		.filter((key) => filters[key] !== null && filters[key] !== undefined && filters[key] !== '')
+		.map((key) => {
+			const value = String(filters[key]);
+			return `${key}=${textKeys.includes(key) ? value.trim().toLowerCase() : value}`;
+		})
+		.join('&');
+	return createHash('sha1').update(normalized).digest('base64url');
+}
+
+async function countRows(table: PgTable, where: SQL | undefined): Promise<ListCount> {
+	const whereClause = where ? sql`WHERE ${where}` : sql``;
+
+	// Bounded exact count: stops after threshold + 1 matching rows
+	const [bounded] = await db.execute<{ count: number }>(sql`
+		SELECT count(*)::int AS "count" FROM (
+			SELECT 1 FROM ${table} ${whereClause} LIMIT ${EXACT_COUNT_THRESHOLD + 1}
+		) "capped"
+	`);
+	const capped = bounded?.count ?? 0;
+
+	if (capped <= EXACT_COUNT_THRESHOLD) {
+		return { count: capped, exact: true };
+	}
+
+	// Too many to count on every cache miss: use the planner's estimate (planning only,
+	// no execution). Estimates can be far off for selective filters, so never report
+	// fewer rows than the bounded count has already seen.
+	const [plan] = await db.execute<{ 'QUERY PLAN': { Plan: { 'Plan Rows': number } }[] }>(
+		sql`EXPLAIN (FORMAT JSON) SELECT 1 FROM ${table} ${whereClause}`
+	);
+	const estimate = Math.round(plan?.['QUERY PLAN']?.[0]?.Plan?.['Plan Rows'] ?? 0);
+
+	return { count: Math.max(estimate, capped), exact: false };
+}
+
+/**
+ * Count published recipes matching a browse filter set
+ * @param filters - The raw filter values; only used to build the cache key (`q` is free text)
+ * @param where - The same conditions the listing query uses (without any cursor)
+ */
+export async function countRecipes(
+	filters: Record<string, string | number | boolean | null | undefined>,
+	where: SQL | undefined
+): Promise<ListCount> {
+	return cacheGetOrSet<ListCount>(
+		cacheKeys.recipeCount(filterKey(filters, ['q'])),
+		'recipeCount',
+		() => countRows(recipes, where),
+		{ tags: [cacheTags.recipeCounts] }
+	);
+}
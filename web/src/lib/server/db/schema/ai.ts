@@ -17,7 +17,7 @@ export const aiConversations = pgTable(
 	},
 	(table) => [
 		index('ai_conversations_user_id_idx').on(table.userId),
-		index('ai_conversations_user_updated_idx').on(table.userId, table.updatedAt)
+		index('ai_conversations_user_updated_id_idx').on(table.userId, table.updatedAt, table.id)
 	]
 );
 
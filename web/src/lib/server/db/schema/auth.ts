@@ -1,4 +1,4 @@
-import { pgTable, text, timestamp, boolean, varchar } from 'drizzle-orm/pg-core';
+import { pgTable, text, timestamp, boolean, varchar, integer } from 'drizzle-orm/pg-core';
 
 export type ProfileTier = 'user' | 'author' | 'chef';
 
@@ -24,6 +24,9 @@ export const user = pgTable('user', {
 	bio: text('bio'),
 	photoUrl: text('photo_url'),
 	profileTier: varchar('profile_tier', { length: 20 }).default('user').notNull().$type<ProfileTier>(),
+	// Denormalized follow counters (maintained by api/follow)
+	followerCount: integer('follower_count').notNull().default(0),
+	followingCount: integer('following_count').notNull().default(0),
 	createdAt: timestamp('created_at').notNull().defaultNow(),
 	updatedAt: timestamp('updated_at').notNull().defaultNow()
 });
@@ -1,4 +1,4 @@
-import { pgTable, uuid, integer, text, timestamp, unique, index } from 'drizzle-orm/pg-core';
+import { pgTable, uuid, integer, text, varchar, timestamp, unique, index } from 'drizzle-orm/pg-core';
 import { user } from './auth';
 import { recipes } from './recipes';
 
@@ -35,6 +35,7 @@ export const comments = pgTable(
 			.notNull()
 			.references(() => user.id, { onDelete: 'cascade' }),
 		content: text('content').notNull(),
+		moderationStatus: varchar('moderation_status', { length: 20 }).notNull().default('approved'), // 'pending' | 'approved' | 'rejected'
 		createdAt: timestamp('created_at', { withTimezone: true }).defaultNow().notNull(),
 		updatedAt: timestamp('updated_at', { withTimezone: true }).defaultNow().notNull()
 	},
@@ -42,8 +43,8 @@ export const comments = pgTable(
 		index('comments_recipe_id_idx').on(table.recipeId),
 		index('comments_user_id_idx').on(table.userId),
 		index('comments_created_at_idx').on(table.createdAt),
-		// Composite index for efficient paginated comment fetching sorted by date
-		index('comments_recipe_created_idx').on(table.recipeId, table.createdAt)
+		// Composite index for keyset-paginated comment fetching sorted by date (id breaks ties)
+		index('comments_recipe_created_id_idx').on(table.recipeId, table.createdAt, table.id)
 	]
 );
 
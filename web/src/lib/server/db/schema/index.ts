@@ -5,3 +5,5 @@ export * from './engagement';
 export * from './auth';
 export * from './moderation';
 export * from './ai';
+export * from './rankings';
+export * from './timeline';
@@ -1,4 +1,4 @@
-import { pgTable, uuid, text, timestamp, varchar, index } from 'drizzle-orm/pg-core';
+import { pgTable, uuid, text, timestamp, varchar, integer, index, unique } from 'drizzle-orm/pg-core';
 
 export const moderationQueue = pgTable(
 	'moderation_queue',
@@ -19,3 +19,22 @@ export const moderationQueue = pgTable(
 		index('moderation_queue_status_created_idx').on(table.status, table.createdAt)
 	]
 );
+
+// Content waiting for the moderation workers (MODERATION_MODE=async)
+export const moderationJobs = pgTable(
+	'moderation_jobs',
+	{
+		id: uuid('id').primaryKey().defaultRandom(),
+		contentType: varchar('content_type', { length: 20 }).notNull(), // 'recipe' | 'comment'
+		contentId: uuid('content_id').notNull(),
+		attempts: integer('attempts').notNull().default(0),
+		runAt: timestamp('run_at', { withTimezone: true }).defaultNow().notNull(), // Next attempt (retry backoff)
+		lockedUntil: timestamp('locked_until', { withTimezone: true }), // Claimed by a worker until then
+		lastError: text('last_error'),
+		enqueuedAt: timestamp('enqueued_at', { withTimezone: true }).defaultNow().notNull() // Reset when the content is edited
+	},
+	(table) => [
+		unique('moderation_jobs_content_unique').on(table.contentType, table.contentId),
+		index('moderation_jobs_run_at_idx').on(table.runAt)
+	]
+);
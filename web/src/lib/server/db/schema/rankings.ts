@@ -0,0 +1,52 @@
+import { pgTable, uuid, varchar, integer, boolean, timestamp, date, doublePrecision, index, primaryKey } from 'drizzle-orm/pg-core';
+import { sql } from 'drizzle-orm';
+import { recipes } from './recipes';
+
+// Precomputed discover eligibility and sample order (maintained by the rankings refresh job)
+export const recipeRankings = pgTable(
+	'recipe_rankings',
+	{
+		recipeId: uuid('recipe_id')
+			.primaryKey()
+			.references(() => recipes.id, { onDelete: 'cascade' }),
+		language: varchar('language', { length: 10 }).notNull(),
+		publishedAt: timestamp('published_at', { withTimezone: true }),
+		discoverEligible: boolean('discover_eligible').notNull().default(false), // 20+ votes, 85%+ upvoted
+		shuffleKey: doublePrecision('shuffle_key').notNull().default(sql`random()`),
+		refreshedAt: timestamp('refreshed_at', { withTimezone: true }).defaultNow().notNull()
+	},
+	(table) => [
+		index('recipe_rankings_discover_idx')
+			.on(table.language, table.shuffleKey)
+			.where(sql`${table.discoverEligible}`)
+	]
+);
+
+// Recipes whose ranking needs recomputing (filled by triggers on votes/recipes)
+export const recipeRankingQueue = pgTable('recipe_ranking_queue', {
+	recipeId: uuid('recipe_id').primaryKey(),
+	queuedAt: timestamp('queued_at', { withTimezone: true }).defaultNow().notNull()
+});
+
+// Per-recipe votes per UTC day, last 30 days (source of recipes.week_upvotes/month_upvotes)
+export const recipeVoteBuckets = pgTable(
+	'recipe_vote_buckets',
+	{
+		recipeId: uuid('recipe_id')
+			.notNull()
+			.references(() => recipes.id, { onDelete: 'cascade' }),
+		day: date('day').notNull(),
+		upvotes: integer('upvotes').notNull().default(0),
+		downvotes: integer('downvotes').notNull().default(0)
+	},
+	(table) => [
+		primaryKey({ columns: [table.recipeId, table.day] }),
+		index('recipe_vote_buckets_day_idx').on(table.day)
+	]
+);
+
+// Last successful run of background jobs (shared across instances)
+export const jobRuns = pgTable('job_runs', {
+	name: varchar('name', { length: 100 }).primaryKey(),
+	lastRunAt: timestamp('last_run_at', { withTimezone: true }).notNull()
+});
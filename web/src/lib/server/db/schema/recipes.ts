@@ -1,4 +1,5 @@
-import { pgTable, uuid, varchar, text, integer, boolean, timestamp, decimal, index, customType } from 'drizzle-orm/pg-core';
+import { pgTable, uuid, varchar, text, integer, boolean, timestamp, decimal, doublePrecision, index, customType } from 'drizzle-orm/pg-core';
+import { sql } from 'drizzle-orm';
 import { user } from './auth';
 
 // Custom type for PostgreSQL tsvector (full-text search)
@@ -29,10 +30,16 @@ export const recipes = pgTable(
 		upvotes: integer('upvotes').notNull().default(0),
 		downvotes: integer('downvotes').notNull().default(0),
 		voteScore: integer('vote_score').notNull().default(0),
+		hotScore: doublePrecision('hot_score').notNull().default(0), // recipe_hot_score(vote_score, published_at)
+		weekUpvotes: integer('week_upvotes').notNull().default(0), // Upvotes in the last 7 UTC days (vote buckets)
+		monthUpvotes: integer('month_upvotes').notNull().default(0), // Upvotes in the last 30 UTC days (vote buckets)
 		commentCount: integer('comment_count').notNull().default(0),
 		isPublished: boolean('is_published').notNull().default(false),
 		publishedAt: timestamp('published_at', { withTimezone: true }),
-		searchVector: tsvector('search_vector'), // Full-text search vector (auto-updated by trigger)
+		moderationStatus: varchar('moderation_status', { length: 20 }).notNull().default('approved'), // 'pending' | 'approved' | 'rejected'
+		searchVector: tsvector('search_vector'), // Full-text search vector in the language's config (auto-updated by trigger)
+		contentVector: tsvector('content_vector'), // Ingredients/steps/tips part of search_vector (refresh_recipe_content_vector)
+		ingredientKeys: varchar('ingredient_keys', { length: 100 }).array().notNull().default(sql`'{}'`), // Distinct ingredient catalog keys (refresh_recipe_ingredient_keys)
 		createdAt: timestamp('created_at', { withTimezone: true }).defaultNow().notNull(),
 		updatedAt: timestamp('updated_at', { withTimezone: true }).defaultNow().notNull()
 	},
@@ -43,7 +50,47 @@ export const recipes = pgTable(
 		index('recipes_tag_idx').on(table.tag),
 		index('recipes_language_idx').on(table.language),
 		index('recipes_published_at_idx').on(table.publishedAt),
-		index('recipes_published_language_idx').on(table.isPublished, table.language, table.publishedAt)
+		index('recipes_published_language_idx').on(table.isPublished, table.language, table.publishedAt),
+		// Full-text search per language (btree_gin); vectors use recipe_search_config(language)
+		index('recipes_search_language_idx')
+			.using('gin', table.language, table.searchVector)
+			.where(sql`${table.isPublished}`),
+		// Trigram indexes (pg_trgm + btree_gin): hashtag ILIKE '%x%', title prefix and fuzzy title search
+		index('recipes_title_trgm_idx')
+			.using('gin', table.language, table.title.op('gin_trgm_ops'))
+			.where(sql`${table.isPublished}`),
+		index('recipes_cuisine_trgm_idx')
+			.using('gin', table.language, table.cuisine.op('gin_trgm_ops'))
+			.where(sql`${table.isPublished}`),
+		index('recipes_tag_trgm_idx')
+			.using('gin', table.language, table.tag.op('gin_trgm_ops'))
+			.where(sql`${table.isPublished}`),
+		// Pantry search: inverted index from ingredient key to recipes (btree_gin)
+		index('recipes_ingredient_keys_idx')
+			.using('gin', table.language, table.ingredientKeys)
+			.where(sql`${table.isPublished}`),
+		index('recipes_hot_score_idx')
+			.on(table.language, table.hotScore.desc())
+			.where(sql`${table.isPublished}`),
+		index('recipes_upvotes_idx')
+			.on(table.language, table.upvotes.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`),
+		index('recipes_week_upvotes_idx')
+			.on(table.language, table.weekUpvotes.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`),
+		index('recipes_month_upvotes_idx')
+			.on(table.language, table.monthUpvotes.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`),
+		// Keyset pagination: (sort key, id) for the latest and chef listings
+		index('recipes_latest_idx')
+			.on(table.language, table.publishedAt.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`),
+		index('recipes_author_published_idx')
+			.on(table.authorId, table.publishedAt.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`),
+		index('recipes_author_upvotes_idx')
+			.on(table.authorId, table.upvotes.desc(), table.id.desc())
+			.where(sql`${table.isPublished}`)
 	]
 );
 
@@ -0,0 +1,31 @@
+import { pgTable, uuid, text, timestamp, index, primaryKey } from 'drizzle-orm/pg-core';
+import { user } from './auth';
+import { recipes } from './recipes';
+
+// Per-user following feed inbox (fan-out on write, trimmed to the newest entries)
+export const timelineEntries = pgTable(
+	'timeline_entries',
+	{
+		userId: text('user_id')
+			.notNull()
+			.references(() => user.id, { onDelete: 'cascade' }),
+		recipeId: uuid('recipe_id')
+			.notNull()
+			.references(() => recipes.id, { onDelete: 'cascade' }),
+		authorId: text('author_id').notNull(),
+		publishedAt: timestamp('published_at', { withTimezone: true }).notNull()
+	},
+	(table) => [
+		primaryKey({ columns: [table.userId, table.recipeId] }),
+		index('timeline_entries_user_published_idx').on(table.userId, table.publishedAt.desc(), table.recipeId.desc()),
+		index('timeline_entries_recipe_id_idx').on(table.recipeId)
+	]
+);
+
+// Authors with too many followers to fan out to; their recipes are merged in on read
+export const timelinePullAuthors = pgTable('timeline_pull_authors', {
+	authorId: text('author_id')
+		.primaryKey()
+		.references(() => user.id, { onDelete: 'cascade' }),
+	markedAt: timestamp('marked_at', { withTimezone: true }).defaultNow().notNull()
+});
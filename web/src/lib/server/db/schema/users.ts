@@ -22,6 +22,8 @@ export const follows = pgTable(
 		followerIdx: index('follows_follower_id_idx').on(table.followerId),
 		followingIdx: index('follows_following_id_idx').on(table.followingId),
 		// Composite index for efficient follower count queries with time-based sorting
-		followingCreatedIdx: index('follows_following_created_idx').on(table.followingId, table.createdAt)
+		followingCreatedIdx: index('follows_following_created_idx').on(table.followingId, table.createdAt),
+		// Trending chefs: follows created in the last 7 days
+		createdIdx: index('follows_created_at_idx').on(table.createdAt, table.followingId)
 	})
 );
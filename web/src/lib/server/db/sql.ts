@@ -0,0 +1,14 @@
+/**
+ * SQL fragments shared by raw queries
+ * Kept free of SvelteKit imports so scripts can use it.
+ */
+
+import { sql, type SQL } from 'drizzle-orm';
+
+/**
+ * Bind an id list as one uuid[] parameter (IN (...) would take one bind parameter per id)
+ * Use as `"id" = ANY(${uuidArray(ids)})`; ids must be non-empty UUID strings.
+ */
+export function uuidArray(ids: string[]): SQL {
+	return sql`string_to_array(${ids.join(',')}, ',')::uuid[]`;
+}
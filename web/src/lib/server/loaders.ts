@@ -0,0 +1,112 @@
+/**
+ * Batched, cached loaders for small per-item data shown on list pages
+ * (recipe stats, author cards, follow state). Create loaders per request:
+ *
+ *   const stats = createRecipeStatsLoader();
+ *   const [a, b] = await stats.loadMany([idA, idB]); // one MGET, one IN (...) for misses
+ */
+
+import { db } from '$lib/server/db';
+import { follows, recipes, user } from '$lib/server/db/schema';
+import { and, eq, inArray } from 'drizzle-orm';
+import { CACHE_TTL, cacheGetMany, cacheKeys, cacheSetMany } from '$lib/server/redis/cache';
+import { createCachedLoader, type CachedLoader, type LoaderStore } from '$lib/server/redis/loader';
+import { withPendingVotes } from '$lib/server/votes';
+
+const cacheStore: LoaderStore = {
+	getMany: cacheGetMany,
+	setMany: cacheSetMany
+};
+
+export interface RecipeStats {
+	upvotes: number;
+	downvotes: number;
+	commentCount: number;
+}
+
+export interface AuthorCard {
+	id: string;
+	username: string | null;
+	fullName: string | null;
+	name: string | null;
+	photoUrl: string | null;
+}
+
+/**
+ * Vote and comment counts by recipe id (from the denormalized counters)
+ * Invalidated by api/votes, api/comments and vote counter flushes; in write-behind
+ * mode this instance's unflushed votes are added on top of the cached counts
+ */
+export function createRecipeStatsLoader(): CachedLoader<string, RecipeStats> {
+	const loader = createCachedLoader<string, RecipeStats>(cacheStore, {
+		cacheKey: cacheKeys.recipeStats,
+		ttlSeconds: CACHE_TTL.recipeStats,
+		async batchLoad(ids) {
+			const rows = await db
+				.select({
+					id: recipes.id,
+					upvotes: recipes.upvotes,
+					downvotes: recipes.downvotes,
+					commentCount: recipes.commentCount
+				})
+				.from(recipes)
+				.where(inArray(recipes.id, ids));
+
+			return new Map(
+				rows.map((r) => [r.id, { upvotes: r.upvotes, downvotes: r.downvotes, commentCount: r.commentCount }])
+			);
+		}
+	});
+
+	const load = async (id: string) => {
+		const stats = await loader.load(id);
+		return stats && withPendingVotes(id, stats);
+	};
+	return { load, loadMany: (ids) => Promise.all(ids.map(load)) };
+}
+
+/**
+ * Public author info by user id
+ * Invalidated by profile and username updates
+ */
+export function createAuthorCardLoader() {
+	return createCachedLoader<string, AuthorCard>(cacheStore, {
+		cacheKey: cacheKeys.authorCard,
+		ttlSeconds: CACHE_TTL.chefProfile,
+		async batchLoad(ids) {
+			const rows = await db
+				.select({
+					id: user.id,
+					username: user.username,
+					fullName: user.fullName,
+					name: user.name,
+					photoUrl: user.photoUrl
+				})
+				.from(user)
+				.where(inArray(user.id, ids));
+
+			return new Map(rows.map((r) => [r.id, r]));
+		}
+	});
+}
+
+/**
+ * Whether the viewer follows each user id
+ * Every requested id gets an entry (false included) so misses are cached too;
+ * invalidated by api/follow
+ */
+export function createFollowStateLoader(viewerId: string) {
+	return createCachedLoader<string, boolean>(cacheStore, {
+		cacheKey: (followingId) => cacheKeys.followState(viewerId, followingId),
+		ttlSeconds: CACHE_TTL.chefProfile,
+		async batchLoad(ids) {
+			const rows = await db
+				.select({ followingId: follows.followingId })
+				.from(follows)
+				.where(and(eq(follows.followerId, viewerId), inArray(follows.followingId, ids)));
+
+			const followed = new Set(rows.map((r) => r.followingId));
+			return new Map(ids.map((id) => [id, followed.has(id)]));
+		}
+	});
+}
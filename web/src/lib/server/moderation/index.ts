@@ -1,8 +1,9 @@
 import OpenAI from 'openai';
+import { and, eq, or, type SQL } from 'drizzle-orm';
 import { env } from '$env/dynamic/private';
 import { dev } from '$app/environment';
 import { db } from '$lib/server/db';
-import { moderationQueue } from '$lib/server/db/schema';
+import { comments, moderationQueue } from '$lib/server/db/schema';
 import { logger } from '$lib/server/logger';
 import { rateLimit } from '$lib/server/rateLimit';
 
@@ -167,11 +168,32 @@ function getModerationFallback(): ModerationFallback {
 	return 'allow';
 }
 
+/**
+ * Moderation mode:
+ * - 'sync': Requests wait for the moderation API before saving content
+ * - 'async': Content passing the pre-filter is saved as pending and checked by the
+ *   moderation workers (see ./queue), which publish or reject it
+ */
+export const asyncModeration = env.MODERATION_MODE === 'async';
+
+const MODERATION_MODEL = 'omni-moderation-latest';
+const MODERATION_TIMEOUT_MS = parseInt(env.MODERATION_TIMEOUT_MS || '10000', 10) || 10000;
+
+// One client per process (keeps its HTTP connections alive between calls)
+let openaiClient: OpenAI | null | undefined;
+
 function getOpenAIClient(): OpenAI | null {
-	if (!env.OPENAI_API_KEY) {
-		return null;
+	if (openaiClient === undefined) {
+		openaiClient = env.OPENAI_API_KEY
+			? new OpenAI({
+					apiKey: env.OPENAI_API_KEY,
+					// e.g. a local stub server (scripts/moderation-stub.ts)
+					baseURL: env.OPENAI_BASE_URL || undefined,
+					timeout: MODERATION_TIMEOUT_MS
+				})
+			: null;
 	}
-	return new OpenAI({ apiKey: env.OPENAI_API_KEY });
+	return openaiClient;
 }
 
 export interface ModerationResult {
@@ -180,6 +202,8 @@ export interface ModerationResult {
 	message?: string;
 	needsReview?: boolean;
 	reviewReason?: string;
+	/** Passed the pre-filter; the API check is queued (async mode) */
+	pending?: boolean;
 }
 
 /**
@@ -201,7 +225,17 @@ export async function queueForReview(
 	}
 }
 
-interface ModerationInput {
+/**
+ * Comments a viewer may see: approved ones, plus their own awaiting moderation
+ */
+export function visibleComments(viewerId?: string | null): SQL | undefined {
+	const approved = eq(comments.moderationStatus, 'approved');
+	return viewerId
+		? or(approved, and(eq(comments.moderationStatus, 'pending'), eq(comments.userId, viewerId)))
+		: approved;
+}
+
+export interface ModerationInput {
 	title?: string;
 	description?: string;
 	steps?: string[];
@@ -211,7 +245,7 @@ interface ModerationInput {
 /**
  * Handle moderation unavailability based on fallback setting
  */
-function handleModerationUnavailable(reason: string): ModerationResult {
+export function handleModerationUnavailable(reason: string): ModerationResult {
 	const fallback = getModerationFallback();
 
 	if (fallback === 'reject') {
@@ -294,82 +328,153 @@ export async function moderateContent(input: ModerationInput, userId?: string):
 		}
 	}
 
+	// The moderation workers make the API call
+	if (asyncModeration) {
+		return { flagged: false, categories: [], pending: true };
+	}
+
 	try {
-		// Build formatted text for API
-		const formattedTextParts: string[] = [];
+		const moderationInput = buildModerationInput(input);
 
-		if (input.title) {
-			formattedTextParts.push(`Title: ${input.title}`);
+		// If nothing to moderate, return clean
+		if (moderationInput.length === 0) {
+			return { flagged: false, categories: [] };
 		}
 
-		if (input.description) {
-			formattedTextParts.push(`Description: ${input.description}`);
-		}
+		const response = await openai.moderations.create({
+			model: MODERATION_MODEL,
+			input: moderationInput
+		});
 
-		if (input.steps && input.steps.length > 0) {
-			formattedTextParts.push(`Instructions: ${input.steps.join(' ')}`);
-		}
+		return toModerationResult(response.results[0]);
+	} catch (error) {
+		logger.error('Moderation API error', error);
+		// Handle based on fallback setting
+		return handleModerationUnavailable('api_error');
+	}
+}
 
-		const formattedTextContent = formattedTextParts.join('\n');
+/**
+ * Build the API input for one piece of content (labelled text, plus the image if any)
+ */
+function buildModerationInput(input: ModerationInput): OpenAI.Moderations.ModerationMultiModalInput[] {
+	const formattedTextParts: string[] = [];
 
-		// Build moderation input
-		const moderationInput: OpenAI.Moderations.ModerationMultiModalInput[] = [];
+	if (input.title) {
+		formattedTextParts.push(`Title: ${input.title}`);
+	}
 
-		if (formattedTextContent) {
-			moderationInput.push({
-				type: 'text',
-				text: formattedTextContent
-			});
-		}
+	if (input.description) {
+		formattedTextParts.push(`Description: ${input.description}`);
+	}
 
-		if (input.imageUrl) {
-			moderationInput.push({
-				type: 'image_url',
-				image_url: {
-					url: input.imageUrl
-				}
-			});
-		}
+	if (input.steps && input.steps.length > 0) {
+		formattedTextParts.push(`Instructions: ${input.steps.join(' ')}`);
+	}
 
-		// If nothing to moderate, return clean
-		if (moderationInput.length === 0) {
-			return { flagged: false, categories: [] };
-		}
+	const formattedTextContent = formattedTextParts.join('\n');
 
-		const response = await openai.moderations.create({
-			model: 'omni-moderation-latest',
-			input: moderationInput
+	const moderationInput: OpenAI.Moderations.ModerationMultiModalInput[] = [];
+
+	if (formattedTextContent) {
+		moderationInput.push({
+			type: 'text',
+			text: formattedTextContent
+		});
+	}
+
+	if (input.imageUrl) {
+		moderationInput.push({
+			type: 'image_url',
+			image_url: {
+				url: input.imageUrl
+			}
 		});
+	}
 
-		const result = response.results[0];
+	return moderationInput;
+}
 
-		if (!result.flagged) {
-			return { flagged: false, categories: [] };
-		}
+function toModerationResult(result: OpenAI.Moderations.Moderation): ModerationResult {
+	if (!result.flagged) {
+		return { flagged: false, categories: [] };
+	}
 
-		// Collect flagged categories
-		const flaggedCategories: string[] = [];
-		const categories = result.categories;
+	// Collect flagged categories
+	const flaggedCategories: string[] = [];
 
-		for (const [category, flagged] of Object.entries(categories)) {
-			if (flagged) {
-				flaggedCategories.push(category);
-			}
+	for (const [category, flagged] of Object.entries(result.categories)) {
+		if (flagged) {
+			flaggedCategories.push(category);
 		}
+	}
 
-		// Generate user-friendly message
-		const message = generateModerationMessage(flaggedCategories);
+	return {
+		flagged: true,
+		categories: flaggedCategories,
+		message: generateModerationMessage(flaggedCategories)
+	};
+}
 
-		return {
-			flagged: true,
-			categories: flaggedCategories,
-			message
-		};
-	} catch (error) {
-		logger.error('Moderation API error', error);
-		// Handle based on fallback setting
-		return handleModerationUnavailable('api_error');
+/**
+ * Moderate several pieces of content with as few API calls as possible (moderation workers)
+ * Text-only inputs share one request (one result per input string); inputs with an
+ * image are sent on their own, since a multi-modal input yields a single result.
+ * Unlike moderateContent this throws on API errors so the caller can retry, and
+ * returns null when no API key is configured.
+ * @param requestOptions - Per-call overrides (e.g. maxRetries: 0 when the caller retries)
+ */
+export async function moderateBatch(
+	inputs: ModerationInput[],
+	requestOptions?: OpenAI.RequestOptions
+): Promise<ModerationResult[] | null> {
+	const openai = getOpenAIClient();
+	if (!openai) {
+		return null;
 	}
+
+	const results: ModerationResult[] = inputs.map(() => ({ flagged: false, categories: [] }));
+	const textIndexes: number[] = [];
+	const texts: string[] = [];
+	const requests: Promise<void>[] = [];
+
+	inputs.forEach((input, i) => {
+		const moderationInput = buildModerationInput(input);
+		if (moderationInput.length === 0) {
+			return;
+		}
+		const [first] = moderationInput;
+		if (moderationInput.length === 1 && first.type === 'text') {
+			textIndexes.push(i);
+			texts.push(first.text);
+			return;
+		}
+		requests.push(
+			openai.moderations
+				.create({ model: MODERATION_MODEL, input: moderationInput }, requestOptions)
+				.then((response) => {
+					results[i] = toModerationResult(response.results[0]);
+				})
+		);
+	});
+
+	if (texts.length > 0) {
+		requests.push(
+			openai.moderations
+				.create({ model: MODERATION_MODEL, input: texts }, requestOptions)
+				.then((response) => {
+					if (response.results.length !== texts.length) {
+						throw new Error(`Moderation API returned ${response.results.length} results for ${texts.length} inputs`);
+					}
+					response.results.forEach((result, j) => {
+						results[textIndexes[j]] = toModerationResult(result);
+					});
+				})
+		);
+	}
+
+	await Promise.all(requests);
+	return results;
 }
 
 /**
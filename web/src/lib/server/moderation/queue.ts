@@ -0,0 +1,367 @@
+/**
+ * Moderation job queue and workers (MODERATION_MODE=async)
+ * Routes save content as pending and call enqueueModeration in the same transaction.
+ * Each instance runs MODERATION_WORKERS workers; a worker claims up to
+ * MODERATION_BATCH_SIZE due jobs (FOR UPDATE SKIP LOCKED, so instances never share a
+ * job), moderates the batch in as few API calls as possible and then approves or
+ * rejects each item. Failed calls are retried with exponential backoff; after
+ * MODERATION_MAX_ATTEMPTS the fallback setting decides (see handleModerationUnavailable).
+ *
+ * A claim is a lease: a job whose worker died is picked up again after CLAIM_LEASE_SECONDS.
+ * Editing content re-arms its job (new enqueued_at), and a result computed from the old
+ * content is discarded.
+ *
+ * Pending recipes (new ones and edits) are unpublished, so only their author sees them,
+ * and are published once approved. Pending comments are only shown to their author and
+ * count towards comment_count once approved.
+ */
+
+import { sql } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { uuidArray } from '$lib/server/db/sql';
+import { logger } from '$lib/server/logger';
+import { cacheDelete, cacheInvalidateTags, cacheKeys, cacheTags } from '$lib/server/redis/cache';
+import { fanOutRecipe } from '$lib/server/timeline';
+import {
+	asyncModeration,
+	handleModerationUnavailable,
+	moderateBatch,
+	queueForReview,
+	type ModerationInput,
+	type ModerationResult
+} from './index';
+
+type Executor = Pick<typeof db, 'execute'>;
+type ContentType = 'recipe' | 'comment';
+
+const WORKERS = parseInt(env.MODERATION_WORKERS || '2', 10) || 0;
+const BATCH_SIZE = parseInt(env.MODERATION_BATCH_SIZE || '16', 10) || 16;
+const MAX_ATTEMPTS = parseInt(env.MODERATION_MAX_ATTEMPTS || '6', 10) || 6;
+// Workers also poll for jobs enqueued by other instances and for retries coming due
+const POLL_MS = parseInt(env.MODERATION_POLL_MS || '5000', 10) || 5000;
+const RETRY_BASE_MS = 2000;
+const RETRY_MAX_MS = 5 * 60 * 1000;
+const CLAIM_LEASE_SECONDS = 120;
+
+interface JobRow {
+	id: string;
+	content_type: ContentType;
+	content_id: string;
+	attempts: number;
+	enqueued_at: string;
+}
+
+/**
+ * Queue content for the moderation workers (call inside the transaction that saves it)
+ * Re-queuing content that already has a job resets it, so edits are moderated afresh.
+ */
+export async function enqueueModeration(executor: Executor, contentType: ContentType, contentId: string): Promise<void> {
+	// clock_timestamp(): an edit in a later transaction must change enqueued_at
+	await executor.execute(sql`
+		INSERT INTO "moderation_jobs" ("content_type", "content_id", "enqueued_at")
+		VALUES (${contentType}, ${contentId}, clock_timestamp())
+		ON CONFLICT ("content_type", "content_id") DO UPDATE SET
+			"attempts" = 0,
+			"run_at" = now(),
+			"locked_until" = NULL,
+			"last_error" = NULL,
+			"enqueued_at" = EXCLUDED."enqueued_at"
+	`);
+}
+
+// Resolvers of idle workers, waiting for the poll interval or a wake-up
+const idleWorkers = new Set<() => void>();
+
+/**
+ * Start an idle worker on this instance (call after the enqueuing transaction commits)
+ */
+export function wakeModerationWorkers(): void {
+	const [wake] = idleWorkers;
+	wake?.();
+}
+
+function idle(ms: number): Promise<void> {
+	return new Promise((resolve) => {
+		const done = () => {
+			clearTimeout(timer);
+			idleWorkers.delete(done);
+			resolve();
+		};
+		const timer = setTimeout(done, ms);
+		// Don't keep the process alive just for the workers
+		(timer as { unref?: () => void }).unref?.();
+		idleWorkers.add(done);
+	});
+}
+
+async function claimJobs(): Promise<JobRow[]> {
+	return db.execute<JobRow>(sql`
+		UPDATE "moderation_jobs" j SET
+			"locked_until" = now() + make_interval(secs => ${CLAIM_LEASE_SECONDS}),
+			"attempts" = j."attempts" + 1
+		FROM (
+			SELECT "id" FROM "moderation_jobs"
+			WHERE "run_at" <= now() AND ("locked_until" IS NULL OR "locked_until" < now())
+			ORDER BY "run_at"
+			LIMIT ${BATCH_SIZE}
+			FOR UPDATE SKIP LOCKED
+		) due
+		WHERE j."id" = due."id"
+		RETURNING j."id", j."content_type", j."content_id", j."attempts", j."enqueued_at"::text AS "enqueued_at"
+	`);
+}
+
+/**
+ * Current text of the claimed content (jobs whose content was deleted are missing)
+ */
+async function loadInputs(jobs: JobRow[]): Promise<Map<string, ModerationInput>> {
+	const recipeIds = jobs.filter((job) => job.content_type === 'recipe').map((job) => job.content_id);
+	const commentIds = jobs.filter((job) => job.content_type === 'comment').map((job) => job.content_id);
+	const inputs = new Map<string, ModerationInput>();
+
+	if (recipeIds.length > 0) {
+		const rows = await db.execute<{ id: string; title: string; description: string | null; steps: string[] }>(sql`
+			SELECT r."id", r."title", r."description",
+				ARRAY(SELECT s."instruction" FROM "steps" s WHERE s."recipe_id" = r."id" ORDER BY s."step_number") AS "steps"
+			FROM "recipes" r
+			WHERE r."id" = ANY(${uuidArray(recipeIds)})
+		`);
+		for (const row of rows) {
+			inputs.set(`recipe:${row.id}`, { title: row.title, description: row.description ?? undefined, steps: row.steps });
+		}
+	}
+
+	if (commentIds.length > 0) {
+		const rows = await db.execute<{ id: string; content: string }>(sql`
+			SELECT "id", "content" FROM "comments" WHERE "id" = ANY(${uuidArray(commentIds)})
+		`);
+		for (const row of rows) {
+			inputs.set(`comment:${row.id}`, { description: row.content });
+		}
+	}
+
+	return inputs;
+}
+
+/**
+ * Delete the job if it wasn't re-armed since it was claimed
+ * @returns Whether the job was still current
+ */
+async function completeJob(executor: Executor, job: JobRow): Promise<boolean> {
+	const deleted = await executor.execute(sql`
+		DELETE FROM "moderation_jobs" WHERE "id" = ${job.id} AND "enqueued_at" = ${job.enqueued_at}::timestamptz
+		RETURNING "id"
+	`);
+	return deleted.length > 0;
+}
+
+/**
+ * Approve or reject the content and remove its job
+ */
+async function finishJob(job: JobRow, result: ModerationResult): Promise<void> {
+	const approve = !result.flagged;
+
+	const changed = await db.transaction(async (tx) => {
+		// Re-armed by an edit: the new job moderates the new content
+		if (!(await completeJob(tx, job))) {
+			return null;
+		}
+
+		if (job.content_type === 'recipe') {
+			const [recipe] = approve
+				? await tx.execute<{ author_id: string; first_publish: boolean }>(sql`
+						UPDATE "recipes" r SET
+							"moderation_status" = 'approved',
+							"is_published" = true,
+							"published_at" = COALESCE(r."published_at", now())
+						FROM "recipes" previous
+						WHERE r."id" = ${job.content_id} AND previous."id" = r."id" AND r."moderation_status" = 'pending'
+						RETURNING r."author_id", previous."published_at" IS NULL AS "first_publish"
+					`)
+				: await tx.execute<{ author_id: string; first_publish: boolean }>(sql`
+						UPDATE "recipes" SET "moderation_status" = 'rejected', "is_published" = false
+						WHERE "id" = ${job.content_id} AND "moderation_status" = 'pending'
+						RETURNING "author_id", false AS "first_publish"
+					`);
+			return recipe ? { recipeId: job.content_id, authorId: recipe.author_id, firstPublish: recipe.first_publish } : null;
+		}
+
+		// Approved comments start counting towards the recipe's comment_count. The recipe
+		// row is locked first, in the same order as api/comments
+		if (approve) {
+			await tx.execute(sql`
+				SELECT 1 FROM "recipes"
+				WHERE "id" = (SELECT "recipe_id" FROM "comments" WHERE "id" = ${job.content_id})
+				FOR UPDATE
+			`);
+		}
+		const [comment] = approve
+			? await tx.execute<{ recipe_id: string }>(sql`
+					WITH approved AS (
+						UPDATE "comments" SET "moderation_status" = 'approved'
+						WHERE "id" = ${job.content_id} AND "moderation_status" = 'pending'
+						RETURNING "recipe_id"
+					)
+					UPDATE "recipes" r SET "comment_count" = r."comment_count" + 1
+					FROM approved WHERE r."id" = approved."recipe_id"
+					RETURNING r."id" AS "recipe_id"
+				`)
+			: await tx.execute<{ recipe_id: string }>(sql`
+					UPDATE "comments" SET "moderation_status" = 'rejected'
+					WHERE "id" = ${job.content_id} AND "moderation_status" = 'pending'
+					RETURNING "recipe_id"
+				`);
+		return comment ? { recipeId: comment.recipe_id, authorId: null, firstPublish: false } : null;
+	});
+
+	if (!changed) {
+		return;
+	}
+
+	if (result.flagged) {
+		logger.info('Content rejected by moderation', {
+			contentType: job.content_type,
+			contentId: job.content_id,
+			categories: result.categories
+		});
+	}
+
+	if (result.needsReview && result.reviewReason) {
+		await queueForReview(job.content_type, job.content_id, result.reviewReason);
+	}
+
+	if (job.content_type === 'comment') {
+		await cacheDelete(cacheKeys.recipeStats(changed.recipeId));
+		return;
+	}
+
+	await cacheInvalidateTags(cacheTags.trending, cacheTags.discover, cacheTags.homepage, cacheTags.recipeCounts);
+
+	if (changed.firstPublish && changed.authorId) {
+		// Deliver to followers' feeds; the recipe is published either way
+		try {
+			await fanOutRecipe(changed.recipeId, changed.authorId);
+		} catch (fanOutError) {
+			logger.error('Failed to fan out recipe to followers', fanOutError, { recipeId: changed.recipeId });
+		}
+	}
+}
+
+/**
+ * Schedule another attempt with exponential backoff and jitter, or give up after
+ * MAX_ATTEMPTS and apply the fallback
+ */
+async function retryJobs(jobs: JobRow[], error: unknown): Promise<void> {
+	const message = error instanceof Error ? error.message : String(error);
+
+	for (const job of jobs) {
+		if (job.attempts >= MAX_ATTEMPTS) {
+			logger.warn('Moderation attempts exhausted, using fallback behavior', {
+				contentType: job.content_type,
+				contentId: job.content_id,
+				attempts: job.attempts
+			});
+			await finishJob(job, handleModerationUnavailable('api_error'));
+			continue;
+		}
+
+		const backoffMs = Math.min(RETRY_MAX_MS, RETRY_BASE_MS * 2 ** (job.attempts - 1));
+		const delayMs = Math.round(backoffMs * (0.5 + Math.random() / 2));
+		await db.execute(sql`
+			UPDATE "moderation_jobs" SET
+				"run_at" = now() + make_interval(secs => ${delayMs / 1000}),
+				"locked_until" = NULL,
+				"last_error" = ${message.slice(0, 1000)}
+			WHERE "id" = ${job.id} AND "enqueued_at" = ${job.enqueued_at}::timestamptz
+		`);
+	}
+}
+
+/**
+ * Claim and moderate one batch
+ * @returns Number of jobs claimed
+ */
+async function processBatch(): Promise<number> {
+	const jobs = await claimJobs();
+	if (jobs.length === 0) {
+		return 0;
+	}
+
+	const inputs = await loadInputs(jobs);
+	const live: JobRow[] = [];
+	for (const job of jobs) {
+		if (inputs.has(`${job.content_type}:${job.content_id}`)) {
+			live.push(job);
+		} else {
+			// Content deleted while queued
+			await completeJob(db, job);
+		}
+	}
+	if (live.length === 0) {
+		return jobs.length;
+	}
+
+	let results: ModerationResult[] | null;
+	try {
+		// Retries are ours (with backoff), not the client's
+		results = await moderateBatch(
+			live.map((job) => inputs.get(`${job.content_type}:${job.content_id}`)!),
+			{ maxRetries: 0 }
+		);
+	} catch (error) {
+		logger.error('Moderation API error', error, { jobs: live.length });
+		await retryJobs(live, error);
+		return jobs.length;
+	}
+
+	for (const [i, job] of live.entries()) {
+		try {
+			await finishJob(job, results ? results[i] : handleModerationUnavailable('api_key_missing'));
+		} catch (error) {
+			// The lease expires and the job is claimed again
+			logger.error('Failed to apply moderation result', error, { contentType: job.content_type, contentId: job.content_id });
+		}
+	}
+
+	return jobs.length;
+}
+
+let started = false;
+let stopping = false;
+
+async function runWorker(): Promise<void> {
+	while (!stopping) {
+		let claimed = 0;
+		try {
+			claimed = await processBatch();
+		} catch (error) {
+			logger.error('Moderation worker failed', error);
+		}
+		// A full batch means more jobs are probably due
+		if (claimed < BATCH_SIZE) {
+			await idle(POLL_MS);
+		}
+	}
+}
+
+/**
+ * Start the moderation workers (MODERATION_MODE=async; MODERATION_WORKERS, default 2, 0 disables)
+ * With the workers disabled, jobs wait for another instance to process them.
+ */
+export function startModerationWorkers(): void {
+	if (started || !asyncModeration || WORKERS <= 0 || typeof setTimeout === 'undefined') {
+		return;
+	}
+	started = true;
+
+	for (let i = 0; i < WORKERS; i++) {
+		void runWorker();
+	}
+
+	// Claimed jobs that don't finish are picked up again once their lease expires
+	process.once('sveltekit:shutdown', () => {
+		stopping = true;
+		for (const wake of [...idleWorkers]) wake();
+	});
+}
@@ -0,0 +1,147 @@
+/**
+ * Keyset (cursor) pagination
+ * A cursor is an opaque base64url token holding the last row's sort value and id (plus
+ * the sort it was issued for). The next page is `WHERE (sort, id) < (value, id)`, an
+ * index seek, instead of scanning and discarding OFFSET rows.
+ *
+ * Sort values travel as Postgres text (`column::text`) so timestamps keep their
+ * microseconds; JS Dates would truncate them and skip rows.
+ *
+ * A NULL sort value (e.g. a recipe without published_at) is carried as null. DESC
+ * orders NULLs first, so the rows after a NULL cursor are the rest of the NULL run by id,
+ * then every non-NULL row.
+ */
+
+import { sql, desc, type SQL } from 'drizzle-orm';
+import type { AnyPgColumn } from 'drizzle-orm/pg-core';
+
+export interface Cursor {
+	value: string | null;
+	id: string;
+}
+
+/**
+ * What the sort column holds, checked when a cursor is decoded
+ */
+export type CursorValueType = 'timestamp' | 'integer';
+
+interface CursorPayload {
+	s: string;
+	v: string | null;
+	id: string;
+}
+
+const UUID_PATTERN = /^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$/i;
+// timestamptz::text under the default ISO DateStyle, e.g. 2025-03-01 12:30:45.123456+00
+const TIMESTAMP_PATTERN = /^(\d{4})-(\d{2})-(\d{2}) (\d{2}):(\d{2}):(\d{2})(\.\d{1,6})?[+-]\d{2}(:\d{2}){0,2}$/;
+const INTEGER_PATTERN = /^-?\d{1,10}$/;
+const INT4_MAX = 2147483647;
+
+/**
+ * Whether a cursor sort value would cast cleanly to the column's type
+ */
+function isValidCursorValue(value: string, type: CursorValueType): boolean {
+	if (type === 'integer') {
+		return INTEGER_PATTERN.test(value) && Math.abs(Number(value)) <= INT4_MAX;
+	}
+
+	const match = TIMESTAMP_PATTERN.exec(value);
+	if (!match) {
+		return false;
+	}
+	const [year, month, day, hour, minute, second] = match.slice(1, 7).map(Number);
+	const date = new Date(Date.UTC(year, month - 1, day));
+	return (
+		date.getUTCFullYear() === year &&
+		date.getUTCMonth() === month - 1 &&
+		date.getUTCDate() === day &&
+		hour < 24 &&
+		minute < 60 &&
+		second < 60
+	);
+}
+
+export class InvalidCursorError extends Error {
+	constructor() {
+		super('Invalid cursor');
+		this.name = 'InvalidCursorError';
+	}
+}
+
+/**
+ * Select this alongside the row to build its cursor
+ */
+export function cursorKey(column: AnyPgColumn): SQL<string | null> {
+	return sql<string | null>`${column}::text`;
+}
+
+export function encodeCursor(sort: string, value: string | null, id: string): string {
+	const payload: CursorPayload = { s: sort, v: value, id };
+	return Buffer.from(JSON.stringify(payload)).toString('base64url');
+}
+
+/**
+ * @param sort - The sort the current request uses; a cursor issued for another sort is rejected
+ * @param valueType - Type of the sort column, so a tampered value can't reach the query
+ * @returns null when no cursor was sent
+ * @throws InvalidCursorError when the token is malformed or belongs to another sort
+ */
+export function decodeCursor(token: string | null, sort: string, valueType: CursorValueType): Cursor | null {
+	if (!token) {
+		return null;
+	}
+
+	let payload: CursorPayload;
+	try {
+		payload = JSON.parse(Buffer.from(token, 'base64url').toString('utf8')) as CursorPayload;
+	} catch {
+		throw new InvalidCursorError();
+	}
+
+	if (
+		typeof payload !== 'object' ||
+		payload === null ||
+		payload.s !== sort ||
+		typeof payload.id !== 'string' ||
+		!UUID_PATTERN.test(payload.id) ||
+		(payload.v !== null && (typeof payload.v !== 'string' || !isValidCursorValue(payload.v, valueType)))
+	) {
+		throw new InvalidCursorError();
+	}
+	return { value: payload.v, id: payload.id };
+}
+
+/**
+ * Rows after the cursor for an ORDER BY column DESC, id DESC listing
+ */
+export function afterCursor(column: AnyPgColumn, idColumn: AnyPgColumn, cursor: Cursor): SQL {
+	if (cursor.value === null) {
+		return sql`((${column} IS NULL AND ${idColumn} < ${cursor.id}::${sql.raw(idColumn.getSQLType())}) OR ${column} IS NOT NULL)`;
+	}
+	return sql`(${column}, ${idColumn}) < (${cursor.value}::${sql.raw(column.getSQLType())}, ${cursor.id}::${sql.raw(idColumn.getSQLType())})`;
+}
+
+/**
+ * ORDER BY for a keyset listing: the id breaks ties so the order is total
+ * (DESC puts NULL sort values first, which afterCursor relies on)
+ */
+export function keysetOrder(column: AnyPgColumn, idColumn: AnyPgColumn): SQL[] {
+	return [desc(column), desc(idColumn)];
+}
+
+/**
+ * Trim a limit + 1 fetch to the page and build the cursor for the next one
+ */
+export function keysetPage<T extends { id: string; cursorKey: string | null }>(
+	rows: T[],
+	limit: number,
+	sort: string
+): { rows: T[]; nextCursor: string | null } {
+	if (rows.length <= limit) {
+		return { rows, nextCursor: null };
+	}
+
+	const page = rows.slice(0, limit);
+	const last = page[page.length - 1];
+	return { rows: page, nextCursor: encodeCursor(sort, last.cursorKey, last.id) };
+}
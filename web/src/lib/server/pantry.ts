@@ -0,0 +1,105 @@
+/**
+ * Pantry search ("what can I cook")
+ * recipes.ingredient_keys holds each recipe's distinct ingredient catalog keys, and a
+ * (language, ingredient_keys) GIN index maps every key to the recipes using it. A pantry
+ * lookup unions the posting lists of the given keys (&&) and ranks every recipe found by
+ * coverage: fewest missing ingredients, then most matched, then votes. Ranking only reads
+ * ingredient_keys; card columns are fetched for the page that is returned.
+ *
+ * Ingredients without a catalog key can't be matched and don't count as missing.
+ */
+
+import { and, asc, desc, eq, sql, type SQL } from 'drizzle-orm';
+import { db } from '$lib/server/db';
+import { recipes, user } from '$lib/server/db/schema';
+import { recipeCardColumns, toRecipeCard, type RecipeCard } from '$lib/server/recipeCards';
+
+export const MAX_PANTRY_KEYS = 30;
+
+export interface PantryMatch extends RecipeCard {
+	matchedCount: number;
+	missingCount: number;
+	missingKeys: string[];
+}
+
+/**
+ * Bind a key list as one varchar[] parameter (catalog keys are snake_case, no commas)
+ */
+function keyArray(keys: string[]): SQL {
+	return sql`string_to_array(${keys.join(',')}, ',')::varchar[]`;
+}
+
+/**
+ * Rebuild a recipe's ingredient_keys from its ingredient rows
+ * Call in the transaction that wrote the ingredients, after the last insert.
+ */
+export async function refreshRecipeIngredientKeys(
+	tx: { execute: typeof db.execute },
+	recipeId: string
+): Promise<void> {
+	await tx.execute(sql`SELECT refresh_recipe_ingredient_keys(${recipeId})`);
+}
+
+/**
+ * Published recipes in `language` using any of `keys`, best coverage first
+ * @param keys - Distinct ingredient catalog keys (at most MAX_PANTRY_KEYS)
+ * @param maxMissing - Only return recipes missing at most this many keyed ingredients
+ */
+export async function findPantryMatches(
+	keys: string[],
+	language: string,
+	options: { limit: number; maxMissing?: number }
+): Promise<PantryMatch[]> {
+	if (keys.length === 0) {
+		return [];
+	}
+
+	const pantry = keyArray(keys);
+
+	// Coverage is computed from ingredient_keys alone, so no recipe that covers the pantry
+	// better can be cut off by a pre-limit on some other order
+	const matchedCount = sql<number>`cardinality(ARRAY(
+		SELECT unnest(${recipes.ingredientKeys}) INTERSECT SELECT unnest(${pantry})
+	))`;
+	const missingCount = sql<number>`(cardinality(${recipes.ingredientKeys}) - ${matchedCount})`;
+
+	const ranked = db
+		.select({
+			id: recipes.id,
+			matchedCount: matchedCount.as('matched_count'),
+			missingCount: missingCount.as('missing_count')
+		})
+		.from(recipes)
+		.where(and(
+			eq(recipes.isPublished, true),
+			eq(recipes.language, language),
+			sql`${recipes.ingredientKeys} && ${pantry}`,
+			options.maxMissing !== undefined ? sql`${missingCount} <= ${options.maxMissing}` : undefined
+		))
+		.orderBy(asc(missingCount), desc(matchedCount), desc(recipes.upvotes), desc(recipes.id))
+		.limit(options.limit)
+		.as('ranked');
+
+	const rows = await db
+		.select({
+			...recipeCardColumns,
+			ingredientKeys: recipes.ingredientKeys,
+			matchedCount: ranked.matchedCount
+		})
+		.from(ranked)
+		.innerJoin(recipes, eq(recipes.id, ranked.id))
+		.leftJoin(user, eq(recipes.authorId, user.id))
+		.orderBy(asc(ranked.missingCount), desc(ranked.matchedCount), desc(recipes.upvotes), desc(recipes.id));
+
+	const pantryKeys = new Set(keys);
+
+	return rows.map(({ ingredientKeys, matchedCount: matched, ...card }) => {
+		const missingKeys = ingredientKeys.filter((key) => !pantryKeys.has(key));
+		return {
+			...toRecipeCard(card),
+			matchedCount: matched,
+			missingCount: missingKeys.length,
+			missingKeys
+		};
+	});
+}
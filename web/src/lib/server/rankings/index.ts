@@ -0,0 +1,70 @@
+/**
+ * Ranked recipe reads
+ * Trending is a top-N scan of recipes_hot_score_idx; discover samples eligible
+ * rows from a random point in recipe_rankings_discover_idx instead of loading
+ * every candidate to shuffle it.
+ */
+
+import { db } from '$lib/server/db';
+import { recipeRankings, recipes, user } from '$lib/server/db/schema';
+import { recipeCardColumns, selectRecipeCards } from '$lib/server/recipeCards';
+import { and, desc, asc, eq, gte, lt, notInArray, type SQL } from 'drizzle-orm';
+
+export { refreshRecipeRankings, startRecipeRankingsJob } from './refresh';
+
+// Rankings only order rows; live vote counts come from the recipe card columns
+function selectRanked() {
+	return db
+		.select(recipeCardColumns)
+		.from(recipeRankings)
+		.innerJoin(recipes, eq(recipes.id, recipeRankings.recipeId))
+		.leftJoin(user, eq(recipes.authorId, user.id));
+}
+
+export type RankedRecipe = Awaited<ReturnType<typeof getTrendingRecipes>>[number];
+
+/**
+ * Hottest published recipes (net votes on a log scale, decayed by age)
+ * hot_score is maintained in the vote transaction, so this is always current
+ */
+export async function getTrendingRecipes(language: string, limit: number) {
+	return selectRecipeCards()
+		.where(and(eq(recipes.isPublished, true), eq(recipes.language, language)))
+		.orderBy(desc(recipes.hotScore))
+		.limit(limit);
+}
+
+/**
+ * Random sample of discover-eligible recipes (20+ votes, 85%+ upvoted)
+ * Starts at a random shuffle key and wraps around, so each call reads at most
+ * `limit` rows from the index.
+ * @param excludeIds - Recipes to leave out (e.g. the ones already shown as trending)
+ */
+export async function sampleDiscoverRecipes(
+	language: string,
+	limit: number,
+	excludeIds: string[] = []
+): Promise<RankedRecipe[]> {
+	const pivot = Math.random();
+
+	const sample = (range: SQL, count: number) =>
+		selectRanked()
+			.where(
+				and(
+					eq(recipeRankings.language, language),
+					eq(recipeRankings.discoverEligible, true),
+					range,
+					excludeIds.length > 0 ? notInArray(recipeRankings.recipeId, excludeIds) : undefined
+				)
+			)
+			.orderBy(asc(recipeRankings.shuffleKey))
+			.limit(count);
+
+	const first = await sample(gte(recipeRankings.shuffleKey, pivot), limit);
+	if (first.length >= limit) {
+		return first;
+	}
+
+	const wrapped = await sample(lt(recipeRankings.shuffleKey, pivot), limit - first.length);
+	return [...first, ...wrapped];
+}
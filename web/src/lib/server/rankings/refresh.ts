@@ -0,0 +1,150 @@
+/**
+ * Background refresh of recipe_rankings
+ * Incremental: only recipes queued by the vote/recipe triggers are recomputed.
+ * Discover eligibility comes from the denormalized vote counters on recipes; the
+ * 7d/30d windows live on recipes too (week_upvotes/month_upvotes, see voteWindows).
+ *
+ * A Postgres advisory lock makes sure only one instance refreshes at a time.
+ */
+
+import { sql, type SQL } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { uuidArray } from '$lib/server/db/sql';
+import { logger } from '$lib/server/logger';
+
+const JOB_NAME = 'recipe_rankings';
+// Arbitrary application-wide advisory lock id for this job
+const ADVISORY_LOCK_ID = 72810001;
+const QUEUE_BATCH_SIZE = 1000;
+const REFRESH_INTERVAL_MS = parseInt(env.RANKINGS_REFRESH_MS || '60000', 10) || 0;
+
+export interface RankingRefreshResult {
+	full: boolean;
+	refreshed: number;
+	removed: number;
+}
+
+/**
+ * Recompute rankings for the given recipes (or all published recipes when ids is null)
+ */
+function upsertRankings(ids: string[] | null): SQL {
+	const recipeFilter = ids ? sql`AND r."id" = ANY(${uuidArray(ids)})` : sql``;
+
+	return sql`
+		INSERT INTO "recipe_rankings" ("recipe_id", "language", "published_at", "discover_eligible", "refreshed_at")
+		SELECT
+			r."id", r."language", r."published_at",
+			r."upvotes" + r."downvotes" >= 20 AND r."upvotes" * 15 >= r."downvotes" * 85,
+			now()
+		FROM "recipes" r
+		WHERE r."is_published" ${recipeFilter}
+		ON CONFLICT ("recipe_id") DO UPDATE SET
+			"language" = EXCLUDED."language",
+			"published_at" = EXCLUDED."published_at",
+			"discover_eligible" = EXCLUDED."discover_eligible",
+			"refreshed_at" = EXCLUDED."refreshed_at"
+	`;
+}
+
+/**
+ * Drop rankings for recipes that were unpublished or deleted
+ */
+function removeUnpublished(ids: string[] | null): SQL {
+	const filter = ids ? sql`rr."recipe_id" = ANY(${uuidArray(ids)}) AND` : sql``;
+	return sql`
+		DELETE FROM "recipe_rankings" rr
+		WHERE ${filter} NOT EXISTS (
+			SELECT 1 FROM "recipes" r WHERE r."id" = rr."recipe_id" AND r."is_published"
+		)
+	`;
+}
+
+/**
+ * Refresh recipe rankings
+ * @param options.full - Recompute every published recipe (also used when the job has never run)
+ * @returns Counts of refreshed/removed rows, or null if another instance holds the lock
+ */
+export async function refreshRecipeRankings(
+	options: { full?: boolean } = {}
+): Promise<RankingRefreshResult | null> {
+	return db.transaction(async (tx) => {
+		const [lock] = await tx.execute<{ locked: boolean }>(
+			sql`SELECT pg_try_advisory_xact_lock(${ADVISORY_LOCK_ID}) AS "locked"`
+		);
+		if (!lock?.locked) {
+			return null;
+		}
+
+		const [state] = await tx.execute<{ last_run_at: Date }>(
+			sql`SELECT "last_run_at" FROM "job_runs" WHERE "name" = ${JOB_NAME}`
+		);
+		const full = options.full === true || !state;
+
+		let ids: string[] | null = null;
+
+		if (full) {
+			await tx.execute(sql`DELETE FROM "recipe_ranking_queue"`);
+		} else {
+			const queued = await tx.execute<{ recipe_id: string }>(sql`
+				DELETE FROM "recipe_ranking_queue"
+				WHERE "recipe_id" IN (
+					SELECT "recipe_id" FROM "recipe_ranking_queue"
+					ORDER BY "queued_at"
+					LIMIT ${QUEUE_BATCH_SIZE}
+				)
+				RETURNING "recipe_id"
+			`);
+
+			ids = queued.map((row) => row.recipe_id);
+		}
+
+		let refreshed = 0;
+		let removed = 0;
+
+		if (ids === null || ids.length > 0) {
+			refreshed = (await tx.execute(upsertRankings(ids))).count;
+			removed = (await tx.execute(removeUnpublished(ids))).count;
+		}
+
+		await tx.execute(sql`
+			INSERT INTO "job_runs" ("name", "last_run_at") VALUES (${JOB_NAME}, now())
+			ON CONFLICT ("name") DO UPDATE SET "last_run_at" = EXCLUDED."last_run_at"
+		`);
+
+		return { full, refreshed, removed };
+	});
+}
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Refresh rankings on an interval (RANKINGS_REFRESH_MS, default 60000, 0 disables)
+ * Safe to call on every instance; the advisory lock keeps runs exclusive.
+ */
+export function startRecipeRankingsJob(): void {
+	if (timer || REFRESH_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	const run = async () => {
+		if (running) return;
+		running = true;
+		try {
+			const result = await refreshRecipeRankings();
+			if (result && (result.refreshed > 0 || result.removed > 0)) {
+				logger.debug('Recipe rankings refreshed', { ...result });
+			}
+		} catch (error) {
+			logger.error('Recipe rankings refresh failed', error);
+		} finally {
+			running = false;
+		}
+	};
+
+	void run();
+	timer = setInterval(() => void run(), REFRESH_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -1,10 +1,11 @@
 /**
- * Distributed rate limiting with Redis
+ * Distributed rate limiting with Redis (Upstash or native TCP backend, see ./redis)
  * Falls back to in-memory rate limiting when Redis is not configured
  */
 
-import { Ratelimit } from '@upstash/ratelimit';
 import { redis, isRedisConfigured } from './redis';
+import { BoundedCache, type BoundedCacheStats } from './redis/lru';
+import { logger } from '$lib/server/logger';
 
 export interface RateLimitResult {
 	allowed: boolean;
@@ -30,67 +31,73 @@ export const RATE_LIMITS = {
 
 type RateLimitType = keyof typeof RATE_LIMITS;
 
-/**
- * Create Redis-based rate limiters for each endpoint type
- * Uses sliding window algorithm for smooth rate limiting
- */
-const redisLimiters: Record<RateLimitType, Ratelimit> | null = redis
-	? {
-			api: new Ratelimit({
-				redis,
-				limiter: Ratelimit.slidingWindow(RATE_LIMITS.api.limit, '1m'),
-				prefix: 'ratelimit:api',
-				analytics: true
-			}),
-			upload: new Ratelimit({
-				redis,
-				limiter: Ratelimit.slidingWindow(RATE_LIMITS.upload.limit, '1m'),
-				prefix: 'ratelimit:upload',
-				analytics: true
-			}),
-			engagement: new Ratelimit({
-				redis,
-				limiter: Ratelimit.slidingWindow(RATE_LIMITS.engagement.limit, '1m'),
-				prefix: 'ratelimit:engagement',
-				analytics: true
-			}),
-			strict: new Ratelimit({
-				redis,
-				limiter: Ratelimit.slidingWindow(RATE_LIMITS.strict.limit, '1m'),
-				prefix: 'ratelimit:strict',
-				analytics: true
-			}),
-			auth: new Ratelimit({
-				redis,
-				limiter: Ratelimit.slidingWindow(RATE_LIMITS.auth.limit, '15m'),
-				prefix: 'ratelimit:auth',
-				analytics: true
-			})
-		}
-	: null;
-
 /**
  * In-memory fallback for when Redis is not configured
+ * Bounded so a flood of distinct identifiers can't grow the heap without limit;
+ * records expire with their window. When the store is full only expired windows are
+ * reclaimed: evicting a live one would reset a client's count, letting a flood of new
+ * identifiers unthrottle the clients already being limited.
+ *
+ * Identifiers that don't fit share one overflow window per limit type, allowing
+ * IN_MEMORY_OVERFLOW_FACTOR times the per-client limit. During a flood new clients are
+ * throttled together rather than locked out; a warning is logged and the overflowed
+ * count shows in the stats.
  */
 interface InMemoryRecord {
 	count: number;
 	resetAt: number;
 }
 
-const inMemoryStore = new Map<string, InMemoryRecord>();
+export interface InMemoryRateLimitStats extends BoundedCacheStats {
+	/** Requests counted against an overflow window because the store was full */
+	overflowed: number;
+}
 
-function inMemoryRateLimit(
-	identifier: string,
+const IN_MEMORY_MAX_IDENTIFIERS = 50000;
+// Minimum gap between full-store sweeps for expired windows (a sweep is O(entries))
+const IN_MEMORY_FULL_PRUNE_INTERVAL_MS = 1000;
+const IN_MEMORY_OVERFLOW_FACTOR = 20;
+const OVERFLOW_WARNING_INTERVAL_MS = 60000;
+
+const inMemoryStore = new BoundedCache<InMemoryRecord>({
+	maxEntries: IN_MEMORY_MAX_IDENTIFIERS,
+	sizeOf: () => 32
+});
+
+// Shared windows for identifiers the full store can't track, keyed by limit type
+const overflowWindows = new Map<string, InMemoryRecord>();
+
+let lastFullPruneAt = 0;
+let lastOverflowWarningAt = 0;
+let overflowed = 0;
+
+/**
+ * Whether a new identifier can get a window, reclaiming expired ones if the store is full
+ */
+function hasRoomForNewIdentifier(now: number): boolean {
+	if (inMemoryStore.size < IN_MEMORY_MAX_IDENTIFIERS) {
+		return true;
+	}
+	if (now - lastFullPruneAt >= IN_MEMORY_FULL_PRUNE_INTERVAL_MS) {
+		lastFullPruneAt = now;
+		inMemoryStore.prune(now);
+	}
+	return inMemoryStore.size < IN_MEMORY_MAX_IDENTIFIERS;
+}
+
+/**
+ * Count a request against a window, starting a new one if it has expired
+ */
+function countRequest(
+	record: InMemoryRecord | undefined,
 	limit: number,
-	windowMs: number
+	windowMs: number,
+	now: number,
+	start: (record: InMemoryRecord) => void
 ): RateLimitResult {
-	const now = Date.now();
-	const key = identifier;
-	const record = inMemoryStore.get(key);
-
 	// First request or window expired - reset counter
 	if (!record || now > record.resetAt) {
-		inMemoryStore.set(key, { count: 1, resetAt: now + windowMs });
+		start({ count: 1, resetAt: now + windowMs });
 		return { allowed: true, remaining: limit - 1, resetIn: windowMs };
 	}
 
@@ -104,16 +111,47 @@ function inMemoryRateLimit(
 	return { allowed: true, remaining: limit - record.count, resetIn: record.resetAt - now };
 }
 
-// Cleanup old in-memory entries every minute
+function inMemoryRateLimit(
+	type: RateLimitType,
+	identifier: string,
+	limit: number,
+	windowMs: number
+): RateLimitResult {
+	const now = Date.now();
+	const key = `${type}:${identifier}`;
+	const record = inMemoryStore.get(key, now);
+
+	if (record || hasRoomForNewIdentifier(now)) {
+		return countRequest(record, limit, windowMs, now, (fresh) =>
+			inMemoryStore.set(key, fresh, windowMs, now)
+		);
+	}
+
+	// Store full of live windows - share the overflow window for this limit type
+	overflowed++;
+	if (now - lastOverflowWarningAt >= OVERFLOW_WARNING_INTERVAL_MS) {
+		lastOverflowWarningAt = now;
+		logger.warn('In-memory rate limit store full, using shared overflow windows', {
+			identifiers: inMemoryStore.size,
+			overflowed
+		});
+	}
+	const overflowLimit = limit * IN_MEMORY_OVERFLOW_FACTOR;
+	return countRequest(overflowWindows.get(type), overflowLimit, windowMs, now, (fresh) =>
+		overflowWindows.set(type, fresh)
+	);
+}
+
+// Cleanup expired in-memory entries every minute (records also expire lazily on access)
 if (typeof setInterval !== 'undefined') {
-	setInterval(() => {
-		const now = Date.now();
-		for (const [key, value] of inMemoryStore.entries()) {
-			if (now > value.resetAt) {
-				inMemoryStore.delete(key);
-			}
-		}
-	}, 60000);
+	setInterval(() => inMemoryStore.prune(), 60000);
+}
+
+/**
+ * Get hit/miss/eviction stats for the in-memory rate limit store
+ */
+export function getInMemoryRateLimitStats(): InMemoryRateLimitStats {
+	return { ...inMemoryStore.stats(), overflowed };
 }
 
 /**
@@ -127,10 +165,9 @@ export async function rateLimit(
 ): Promise<RateLimitResult> {
 	const config = RATE_LIMITS[type];
 
-	// Use Redis if available
-	if (redisLimiters) {
-		const limiter = redisLimiters[type];
-		const result = await limiter.limit(identifier);
+	// Use Redis if available (sliding window algorithm for smooth rate limiting)
+	if (redis) {
+		const result = await redis.slidingWindow(`ratelimit:${type}`, identifier, config.limit, config.windowMs);
 
 		return {
 			allowed: result.success,
@@ -140,7 +177,7 @@ export async function rateLimit(
 	}
 
 	// Fallback to in-memory
-	return inMemoryRateLimit(`${type}:${identifier}`, config.limit, config.windowMs);
+	return inMemoryRateLimit(type, identifier, config.limit, config.windowMs);
 }
 
 /**
@@ -0,0 +1,106 @@
+/**
+ * Recipe card reads
+ * Vote counts come from the denormalized counters on recipes (kept current by the
+ * vote handler, checked by the vote counter reconciliation job), so list queries
+ * never join votes or GROUP BY and can stop after LIMIT rows of an index scan.
+ */
+
+import { db } from '$lib/server/db';
+import { recipes, user } from '$lib/server/db/schema';
+import { and, eq, sql } from 'drizzle-orm';
+import type { AnyPgColumn } from 'drizzle-orm/pg-core';
+import { cursorKey } from '$lib/server/pagination';
+
+type Transaction = Parameters<Parameters<typeof db.transaction>[0]>[0];
+
+export const recipeCardColumns = {
+	id: recipes.id,
+	slug: recipes.slug,
+	title: recipes.title,
+	description: recipes.description,
+	photoUrl: recipes.photoUrl,
+	prepTimeMinutes: recipes.prepTimeMinutes,
+	cookTimeMinutes: recipes.cookTimeMinutes,
+	difficulty: recipes.difficulty,
+	cuisine: recipes.cuisine,
+	tag: recipes.tag,
+	authorId: recipes.authorId,
+	publishedAt: recipes.publishedAt,
+	upvotes: recipes.upvotes,
+	downvotes: recipes.downvotes,
+	authorUsername: user.username,
+	authorFullName: user.fullName,
+	authorName: user.name
+};
+
+/**
+ * Base card query: recipes plus the author join; callers add where/order/limit
+ * @param sortColumn - Column the listing is ordered by; its value is returned as
+ *   cursorKey for keyset pagination (see $lib/server/pagination)
+ */
+export function selectRecipeCards(sortColumn: AnyPgColumn = recipes.publishedAt) {
+	return db
+		.select({ ...recipeCardColumns, cursorKey: cursorKey(sortColumn) })
+		.from(recipes)
+		.leftJoin(user, eq(recipes.authorId, user.id));
+}
+
+export type RecipeCardRow = Awaited<ReturnType<typeof selectRecipeCards>>[number];
+
+export interface RecipeCard {
+	slug: string;
+	title: string;
+	description: string | null;
+	photoUrl: string | null;
+	authorName: string;
+	authorUsername: string;
+	cuisine: string | null;
+	tag: string | null;
+	difficulty: string | null;
+	prepTimeMinutes: number | null;
+	cookTimeMinutes: number | null;
+	upvotes: number;
+	downvotes: number;
+	publishedAt: Date | null;
+}
+
+/**
+ * Shape a card row for API responses (any select of recipeCardColumns)
+ */
+export function toRecipeCard(row: Omit<RecipeCardRow, 'cursorKey'>): RecipeCard {
+	return {
+		slug: row.slug,
+		title: row.title,
+		description: row.description,
+		photoUrl: row.photoUrl,
+		authorName: row.authorFullName || row.authorName || 'Unknown',
+		authorUsername: row.authorUsername || '',
+		cuisine: row.cuisine,
+		tag: row.tag,
+		difficulty: row.difficulty,
+		prepTimeMinutes: row.prepTimeMinutes,
+		cookTimeMinutes: row.cookTimeMinutes,
+		upvotes: row.upvotes,
+		downvotes: row.downvotes,
+		publishedAt: row.publishedAt
+	};
+}
+
+/**
+ * Published recipe count and upvotes received by an author (tier requirements, chef stats)
+ * @param executor - Pass a transaction to read inside it
+ */
+export async function getAuthorRecipeStats(
+	authorId: string,
+	executor: typeof db | Transaction = db
+): Promise<{ recipeCount: number; totalUpvotes: number }> {
+	const [stats] = await executor
+		.select({
+			recipeCount: sql<number>`count(*)::int`,
+			totalUpvotes: sql<number>`COALESCE(SUM(${recipes.upvotes}), 0)::int`
+		})
+		.from(recipes)
+		.where(and(eq(recipes.authorId, authorId), eq(recipes.isPublished, true)));
+
+	return stats ?? { recipeCount: 0, totalUpvotes: 0 };
+}
@@ -0,0 +1,82 @@
+/**
+ * Pluggable Redis backend used by the cache and rate limiter
+ * Two implementations:
+ * - upstash: @upstash/redis over HTTPS (serverless-friendly, one request per command/pipeline)
+ * - tcp: pipelined RESP over a pooled TCP connection (self-hosted Redis)
+ *
+ * Values are JSON-serialized the same way @upstash/redis does it, so both backends
+ * can read each other's keys during a migration.
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+export type RedisBackendKind = 'upstash' | 'tcp';
+
+export interface SetOptions {
+	/** Expiry in seconds */
+	ex?: number;
+	/** Only set if the key doesn't exist */
+	nx?: boolean;
+}
+
+/**
+ * Commands that can be batched into one round trip
+ */
+export type PipelineCommand =
+	| ['incr', string]
+	| ['set', string, unknown, SetOptions?]
+	| ['del', string]
+	| ['zadd', string, number, string]
+	| ['zremrangebyrank', string, number, number];
+
+export interface SlidingWindowResult {
+	success: boolean;
+	remaining: number;
+	/** Unix time in ms when the current window ends */
+	reset: number;
+}
+
+export interface RedisBackend {
+	readonly kind: RedisBackendKind;
+	get<T>(key: string): Promise<T | null>;
+	mget<T extends unknown[]>(...keys: string[]): Promise<T>;
+	/** Returns 'OK' when written, null when NX prevented the write */
+	set(key: string, value: unknown, options?: SetOptions): Promise<'OK' | null>;
+	del(...keys: string[]): Promise<number>;
+	incr(key: string): Promise<number>;
+	scan(cursor: string, options: { match: string; count: number }): Promise<[string, string[]]>;
+	/** Members with min <= score <= max ("(" prefix for exclusive, "+inf"/"-inf") */
+	zrangeByScore(key: string, min: number | string, max: number | string): Promise<string[]>;
+	/** Run commands in one round trip, returning each reply in order */
+	pipeline(commands: PipelineCommand[]): Promise<unknown[]>;
+	/**
+	 * Sliding window rate limit check for prefix:identifier
+	 * @param limit - Requests allowed per window
+	 * @param windowMs - Window length in milliseconds
+	 */
+	slidingWindow(prefix: string, identifier: string, limit: number, windowMs: number): Promise<SlidingWindowResult>;
+}
+
+/**
+ * Serialize a value for storage (strings are stored as-is, like @upstash/redis)
+ */
+export function serializeValue(value: unknown): string {
+	return typeof value === 'string' ? value : JSON.stringify(value);
+}
+
+/**
+ * Deserialize a stored value, falling back to the raw string for non-JSON values
+ */
+export function deserializeValue<T>(raw: unknown): T | null {
+	if (raw === null || raw === undefined) {
+		return null;
+	}
+	if (typeof raw !== 'string') {
+		return raw as T;
+	}
+	try {
+		return JSON.parse(raw) as T;
+	} catch {
+		return raw as T;
+	}
+}
@@ -1,10 +1,23 @@
 /**
  * Redis caching utilities for expensive queries
  * Provides type-safe caching with automatic serialization and TTL
+ *
+ * Two tiers when Redis is configured: a short-lived in-process L1 in front of
+ * Redis (L2), kept coherent across instances by a polled invalidation log.
+ * Without Redis the in-process store is the only tier.
  */
 
 import { redis, isRedisConfigured } from './index';
+import type { PipelineCommand, RedisBackend } from './backend';
+import { createSingleFlight } from './singleflight';
+import { BoundedCache, type BoundedCacheStats } from './lru';
+import {
+	createPolledInvalidationBus,
+	type InvalidationLog,
+	type InvalidationMessage
+} from './invalidation';
 import { dev } from '$app/environment';
+import { env } from '$env/dynamic/private';
 import { logger } from '$lib/server/logger';
 
 /**
@@ -13,11 +26,13 @@ import { logger } from '$lib/server/logger';
 export const CACHE_TTL = {
 	// Short-lived caches (1-2 minutes)
 	trending: 60, // 1 minute - trending data changes frequently
+	recipeCount: 60, // 1 minute - browse page totals (exact or estimated)
 	discover: 120, // 2 minutes - discovery feed
 
 	// Medium-lived caches (5-15 minutes)
 	chefProfile: 300, // 5 minutes - chef stats
 	recipeStats: 300, // 5 minutes - vote counts, comment counts
+	followSet: 900, // 15 minutes - followed ids per user (dropped by api/follow)
 
 	// Long-lived caches (1 hour+)
 	categories: 3600, // 1 hour - rarely changes
@@ -27,50 +42,377 @@ export const CACHE_TTL = {
 type CacheTTLKey = keyof typeof CACHE_TTL;
 
 /**
- * In-memory cache fallback when Redis is not available
+ * Stale-while-revalidate windows (seconds past the TTL)
+ * During this window callers get the stale value immediately while a single
+ * background refresh rebuilds it. Matches the Cache-Control headers on the endpoints.
  */
-interface InMemoryCacheEntry<T> {
-	data: T;
-	expiresAt: number;
+export const CACHE_STALE_TTL = {
+	trending: 300, // 5 minutes
+	discover: 600 // 10 minutes
+} as const;
+
+/**
+ * Cache counters for observability
+ */
+interface CacheCounters {
+	hits: number;
+	l1Hits: number; // Subset of hits served from the in-process L1 without a Redis call
+	misses: number;
+	staleHits: number; // Served a stale value while refreshing in the background
+	backgroundRefreshes: number;
+	backgroundRefreshErrors: number;
+	stampedeFallbacks: number; // Waited for another refresher and gave up
+	coalesced: number; // Joined an in-flight cacheGetOrSet for the same key
+}
+
+export interface CacheStats extends CacheCounters {
+	memory: BoundedCacheStats; // In-memory fallback store, or the L1 when Redis is configured
 }
 
-const inMemoryCache = new Map<string, InMemoryCacheEntry<unknown>>();
+const cacheStats: CacheCounters = {
+	hits: 0,
+	l1Hits: 0,
+	misses: 0,
+	staleHits: 0,
+	backgroundRefreshes: 0,
+	backgroundRefreshErrors: 0,
+	stampedeFallbacks: 0,
+	coalesced: 0
+};
+
+/**
+ * Get a snapshot of the cache counters for this process
+ */
+export function getCacheStats(): CacheStats {
+	return { ...cacheStats, memory: inMemoryCache.stats() };
+}
+
+/**
+ * In-memory cache fallback when Redis is not available, and the L1 when it is
+ * Bounded LRU with a configurable memory budget (CACHE_MEMORY_BUDGET_MB, default 64MB)
+ * so crawlers walking many discover/chef keys can't grow the heap without limit
+ */
+const IN_MEMORY_CACHE_MAX_BYTES = (parseInt(env.CACHE_MEMORY_BUDGET_MB || '', 10) || 64) * 1024 * 1024;
+const IN_MEMORY_CACHE_MAX_ENTRIES = 10000;
 
-// Cleanup expired entries every minute
+const inMemoryCache = new BoundedCache<unknown>({
+	maxEntries: IN_MEMORY_CACHE_MAX_ENTRIES,
+	maxBytes: IN_MEMORY_CACHE_MAX_BYTES
+});
+
+// Entries expire lazily on access; sweep every minute to reclaim memory from cold keys
 if (typeof setInterval !== 'undefined') {
-	setInterval(() => {
-		const now = Date.now();
-		for (const [key, entry] of inMemoryCache.entries()) {
-			if (now > entry.expiresAt) {
+	setInterval(() => inMemoryCache.prune(), 60000);
+}
+
+/**
+ * Tag version counters for the in-memory fallback
+ */
+const inMemoryTagVersions = new Map<string, number>();
+
+/**
+ * L1 settings (only used when Redis is configured)
+ * L1 entries live for at most CACHE_L1_TTL_SECONDS (default 5, 0 disables the L1);
+ * remote invalidations arrive within CACHE_INVALIDATION_POLL_MS (default 1000)
+ */
+const L1_TTL_SECONDS = Math.max(0, parseInt(env.CACHE_L1_TTL_SECONDS ?? '5', 10) || 0);
+const INVALIDATION_POLL_MS = parseInt(env.CACHE_INVALIDATION_POLL_MS || '', 10) || 1000;
+const INVALIDATION_SEQUENCE_KEY = 'cache:invalidation:seq';
+const INVALIDATION_LOG_KEY = 'cache:invalidation:log';
+const INVALIDATION_LOG_LENGTH = 1000;
+
+/**
+ * Tag versions last seen in Redis by this node, used to validate L1 entries
+ * A missing tag means its version is unknown and the L1 can't be trusted for it
+ */
+const l1TagVersions = new Map<string, number>();
+
+const useL1 = redis !== null && L1_TTL_SECONDS > 0;
+
+/**
+ * Invalidation log stored in Redis: a sequence counter plus a sorted set of
+ * "sequence:message" members scored by sequence, trimmed to the newest entries
+ */
+function createRedisInvalidationLog(client: RedisBackend): InvalidationLog {
+	return {
+		async append(message) {
+			const sequence = await client.incr(INVALIDATION_SEQUENCE_KEY);
+			await client.pipeline([
+				['zadd', INVALIDATION_LOG_KEY, sequence, `${sequence}:${message}`],
+				['zremrangebyrank', INVALIDATION_LOG_KEY, 0, -(INVALIDATION_LOG_LENGTH + 1)]
+			]);
+		},
+
+		async latestSequence() {
+			return Number((await client.get<number>(INVALIDATION_SEQUENCE_KEY)) ?? 0);
+		},
+
+		async readAfter(sequence) {
+			const members = await client.zrangeByScore(INVALIDATION_LOG_KEY, `(${sequence}`, '+inf');
+			return members.map((member) => {
+				const separator = member.indexOf(':');
+				return {
+					sequence: Number(member.slice(0, separator)),
+					message: member.slice(separator + 1)
+				};
+			});
+		}
+	};
+}
+
+/**
+ * Apply an invalidation published by any node (including this one)
+ */
+function applyInvalidation(message: InvalidationMessage): void {
+	switch (message.type) {
+		case 'tags':
+			for (const tag of message.tags) {
+				l1TagVersions.delete(tag);
+			}
+			break;
+		case 'keys':
+			for (const key of message.keys) {
 				inMemoryCache.delete(key);
 			}
-		}
-	}, 60000);
+			break;
+		case 'reset':
+			inMemoryCache.clear();
+			l1TagVersions.clear();
+			break;
+	}
+}
+
+const invalidationBus =
+	useL1 && redis
+		? createPolledInvalidationBus(createRedisInvalidationLog(redis), {
+				intervalMs: INVALIDATION_POLL_MS,
+				onError: (error) => logger.debug('Cache invalidation poll error', { error: String(error) })
+			})
+		: null;
+
+if (invalidationBus) {
+	invalidationBus.subscribe(applyInvalidation);
+	invalidationBus.start();
 }
 
 /**
- * Get a value from cache
- * @param key - Cache key
- * @returns Cached value or null if not found/expired
+ * Tell other nodes to drop L1 state
  */
-export async function cacheGet<T>(key: string): Promise<T | null> {
+async function publishInvalidation(message: InvalidationMessage): Promise<void> {
+	if (!invalidationBus) {
+		return;
+	}
+	try {
+		await invalidationBus.publish(message);
+	} catch (error) {
+		logger.debug('Cache invalidation publish error', { error: String(error) });
+	}
+}
+
+function rememberTagVersions(tags: readonly string[], versions: number[]): void {
+	tags.forEach((tag, i) => {
+		l1TagVersions.set(tag, Math.max(l1TagVersions.get(tag) ?? 0, versions[i]));
+	});
+}
+
+/**
+ * Envelope stored for tagged and stale-while-revalidate entries
+ * Records the version of each tag (in the order the tags were given) at the time
+ * the value was computed. The entry is only valid while every version still matches.
+ * freshUntil marks the soft TTL; the store TTL is the hard TTL.
+ */
+interface CacheEnvelope<T> {
+	data: T;
+	tagVersions: number[];
+	freshUntil?: number;
+}
+
+function isCacheEnvelope<T>(value: unknown): value is CacheEnvelope<T> {
+	return (
+		typeof value === 'object' &&
+		value !== null &&
+		'data' in value &&
+		Array.isArray((value as CacheEnvelope<T>).tagVersions)
+	);
+}
+
+function tagVersionKey(tag: string): string {
+	return `tagv:${tag}`;
+}
+
+function tagVersionsMatch(stored: number[], current: number[]): boolean {
+	return stored.length === current.length && stored.every((version, i) => version === current[i]);
+}
+
+/**
+ * Get the current version of each tag (missing tags are at version 0)
+ */
+async function getTagVersions(tags: readonly string[]): Promise<number[]> {
+	if (tags.length === 0) {
+		return [];
+	}
+
 	if (redis) {
 		try {
-			const value = await redis.get<T>(key);
-			return value;
+			const versions = await redis.mget<(number | null)[]>(...tags.map(tagVersionKey));
+			return versions.map((v) => Number(v ?? 0));
 		} catch (error) {
-			logger.debug('Redis get error', { key, error: String(error) });
+			logger.debug('Redis tag version error', { tags, error: String(error) });
+			return tags.map(() => 0);
+		}
+	}
+
+	return tags.map((tag) => inMemoryTagVersions.get(tag) ?? 0);
+}
+
+interface EntryRead<T> {
+	value: T | null;
+	tagVersions: number[];
+	stale: boolean;
+}
+
+/**
+ * Validate a stored entry against the current tag versions
+ */
+function resolveEntry<T>(raw: unknown, tags: readonly string[], tagVersions: number[]): EntryRead<T> {
+	if (raw === null || raw === undefined) {
+		return { value: null, tagVersions, stale: false };
+	}
+
+	if (!isCacheEnvelope<T>(raw)) {
+		// Plain entries are only valid for untagged reads
+		return tags.length === 0
+			? { value: raw as T, tagVersions, stale: false }
+			: { value: null, tagVersions, stale: false };
+	}
+
+	// Entry must carry matching tag versions, otherwise it was invalidated
+	if (!tagVersionsMatch(raw.tagVersions, tagVersions)) {
+		return { value: null, tagVersions, stale: false };
+	}
+
+	const stale = raw.freshUntil !== undefined && Date.now() > raw.freshUntil;
+	return { value: raw.data, tagVersions, stale };
+}
+
+/**
+ * Try the in-process L1, validating tags against the last versions seen in Redis
+ * Returns null when the L1 can't answer and Redis must be consulted
+ */
+function readFromL1<T>(key: string, tags: readonly string[]): EntryRead<T> | null {
+	const tagVersions: number[] = [];
+	for (const tag of tags) {
+		const version = l1TagVersions.get(tag);
+		if (version === undefined) {
 			return null;
 		}
+		tagVersions.push(version);
 	}
 
-	// In-memory fallback
-	const entry = inMemoryCache.get(key) as InMemoryCacheEntry<T> | undefined;
-	if (!entry || Date.now() > entry.expiresAt) {
-		inMemoryCache.delete(key);
+	const raw = inMemoryCache.get(key);
+	if (raw === undefined) {
 		return null;
 	}
-	return entry.data;
+
+	const entry = resolveEntry<T>(raw, tags, tagVersions);
+	return entry.value !== null ? entry : null;
+}
+
+/**
+ * Read an entry together with the current versions of its tags
+ * Checks the L1 first; Redis reads use a single MGET so tagged reads cost one round trip
+ */
+async function readEntry<T>(key: string, tags: readonly string[]): Promise<EntryRead<T>> {
+	let raw: unknown = null;
+	let tagVersions: number[];
+
+	if (redis) {
+		if (useL1) {
+			const l1 = readFromL1<T>(key, tags);
+			if (l1) {
+				cacheStats.l1Hits++;
+				return l1;
+			}
+		}
+
+		try {
+			if (tags.length === 0) {
+				raw = await redis.get<unknown>(key);
+				tagVersions = [];
+			} else {
+				const [entry, ...versions] = await redis.mget<unknown[]>(key, ...tags.map(tagVersionKey));
+				raw = entry;
+				tagVersions = versions.map((v) => Number(v ?? 0));
+			}
+		} catch (error) {
+			logger.debug('Redis get error', { key, error: String(error) });
+			return { value: null, tagVersions: tags.map(() => 0), stale: false };
+		}
+
+		// Populate the L1 so the next reads on this node skip the network
+		if (useL1) {
+			rememberTagVersions(tags, tagVersions);
+			if (raw !== null && raw !== undefined) {
+				inMemoryCache.set(key, raw, L1_TTL_SECONDS * 1000);
+			}
+		}
+	} else {
+		// In-memory fallback
+		raw = inMemoryCache.get(key) ?? null;
+		tagVersions = tags.map((tag) => inMemoryTagVersions.get(tag) ?? 0);
+	}
+
+	return resolveEntry<T>(raw, tags, tagVersions);
+}
+
+/**
+ * Wrap a value in an envelope when tags or a soft TTL are given
+ */
+function toStored<T>(value: T, tagVersions: number[], freshUntil?: number): T | CacheEnvelope<T> {
+	return tagVersions.length > 0 || freshUntil !== undefined
+		? { data: value, tagVersions, freshUntil }
+		: value;
+}
+
+/**
+ * Write an entry, wrapping it in an envelope when tags or a soft TTL are given
+ * @param ttlSeconds - Hard TTL (how long the store keeps the entry)
+ * @param freshUntil - Soft TTL timestamp after which the entry is served as stale
+ */
+async function writeEntry<T>(
+	key: string,
+	value: T,
+	ttlSeconds: number,
+	tagVersions: number[],
+	freshUntil?: number
+): Promise<void> {
+	const stored = toStored(value, tagVersions, freshUntil);
+
+	if (redis) {
+		if (useL1) {
+			inMemoryCache.set(key, stored, Math.min(ttlSeconds, L1_TTL_SECONDS) * 1000);
+		}
+		try {
+			await redis.set(key, stored, { ex: ttlSeconds });
+		} catch (error) {
+			logger.debug('Redis set error', { key, error: String(error) });
+		}
+		return;
+	}
+
+	// In-memory fallback
+	inMemoryCache.set(key, stored, ttlSeconds * 1000);
+}
+
+/**
+ * Get a value from cache
+ * @param key - Cache key
+ * @param tags - Tags the entry was stored with (entry is treated as missing if any tag was invalidated)
+ * @returns Cached value or null if not found/expired/invalidated
+ */
+export async function cacheGet<T>(key: string, tags: readonly string[] = []): Promise<T | null> {
+	const { value } = await readEntry<T>(key, tags);
+	return value;
 }
 
 /**
@@ -78,35 +420,170 @@ export async function cacheGet<T>(key: string): Promise<T | null> {
  * @param key - Cache key
  * @param value - Value to cache (must be JSON-serializable)
  * @param ttlSeconds - Time to live in seconds
+ * @param tags - Tags the value depends on (see cacheInvalidateTags)
+ */
+export async function cacheSet<T>(
+	key: string,
+	value: T,
+	ttlSeconds: number,
+	tags: readonly string[] = []
+): Promise<void> {
+	const tagVersions = await getTagVersions(tags);
+	await writeEntry(key, value, ttlSeconds, tagVersions);
+}
+
+/**
+ * Get several values in one round trip
+ * Keys the L1 can answer are served locally; the rest (plus tag versions) share one MGET.
+ * @param keys - Cache keys
+ * @param tags - Tags every entry was stored with
+ * @returns Values in key order, null for missing/expired/invalidated keys
+ */
+export async function cacheGetMany<T>(
+	keys: readonly string[],
+	tags: readonly string[] = []
+): Promise<(T | null)[]> {
+	if (keys.length === 0) {
+		return [];
+	}
+
+	if (!redis) {
+		// In-memory fallback
+		const tagVersions = tags.map((tag) => inMemoryTagVersions.get(tag) ?? 0);
+		return keys.map((key) => resolveEntry<T>(inMemoryCache.get(key) ?? null, tags, tagVersions).value);
+	}
+
+	const results: (T | null)[] = keys.map(() => null);
+	const pending: number[] = [];
+
+	keys.forEach((key, i) => {
+		const l1 = useL1 ? readFromL1<T>(key, tags) : null;
+		if (l1) {
+			cacheStats.l1Hits++;
+			results[i] = l1.value;
+		} else {
+			pending.push(i);
+		}
+	});
+
+	if (pending.length === 0) {
+		return results;
+	}
+
+	let raws: unknown[];
+	let tagVersions: number[];
+	try {
+		const values = await redis.mget<unknown[]>(...pending.map((i) => keys[i]), ...tags.map(tagVersionKey));
+		raws = values.slice(0, pending.length);
+		tagVersions = values.slice(pending.length).map((v) => Number(v ?? 0));
+	} catch (error) {
+		logger.debug('Redis mget error', { keys: pending.length, error: String(error) });
+		return results;
+	}
+
+	if (useL1) {
+		rememberTagVersions(tags, tagVersions);
+	}
+
+	pending.forEach((index, j) => {
+		const raw = raws[j];
+		if (useL1 && raw !== null && raw !== undefined) {
+			inMemoryCache.set(keys[index], raw, L1_TTL_SECONDS * 1000);
+		}
+		results[index] = resolveEntry<T>(raw, tags, tagVersions).value;
+	});
+
+	return results;
+}
+
+export interface CacheEntry<T> {
+	key: string;
+	value: T;
+	ttlSeconds: number;
+}
+
+/**
+ * Set several values in one pipelined round trip, each with its own TTL
+ * @param entries - Keys, values (JSON-serializable) and TTLs in seconds
+ * @param tags - Tags every value depends on (see cacheInvalidateTags)
  */
-export async function cacheSet<T>(key: string, value: T, ttlSeconds: number): Promise<void> {
+export async function cacheSetMany<T>(
+	entries: readonly CacheEntry<T>[],
+	tags: readonly string[] = []
+): Promise<void> {
+	if (entries.length === 0) {
+		return;
+	}
+
+	const tagVersions = await getTagVersions(tags);
+	const stored = entries.map((entry) => toStored(entry.value, tagVersions));
+
 	if (redis) {
+		if (useL1) {
+			entries.forEach((entry, i) => {
+				inMemoryCache.set(entry.key, stored[i], Math.min(entry.ttlSeconds, L1_TTL_SECONDS) * 1000);
+			});
+		}
 		try {
-			await redis.set(key, value, { ex: ttlSeconds });
+			await redis.pipeline(
+				entries.map((entry, i): PipelineCommand => ['set', entry.key, stored[i], { ex: entry.ttlSeconds }])
+			);
 		} catch (error) {
-			logger.debug('Redis set error', { key, error: String(error) });
+			logger.debug('Redis pipelined set error', { keys: entries.length, error: String(error) });
 		}
 		return;
 	}
 
 	// In-memory fallback
-	inMemoryCache.set(key, {
-		data: value,
-		expiresAt: Date.now() + ttlSeconds * 1000
+	entries.forEach((entry, i) => {
+		inMemoryCache.set(entry.key, stored[i], entry.ttlSeconds * 1000);
 	});
 }
 
+/**
+ * Invalidate every entry that depends on any of the given tags
+ * Bumps a per-tag version counter (O(1) per tag) instead of scanning the keyspace;
+ * dependent entries stop matching on their next read and age out via their TTL.
+ * @param tags - Tags to invalidate (see cacheTags)
+ */
+export async function cacheInvalidateTags(...tags: string[]): Promise<void> {
+	if (tags.length === 0) {
+		return;
+	}
+
+	if (redis) {
+		try {
+			await redis.pipeline(tags.map((tag): PipelineCommand => ['incr', tagVersionKey(tag)]));
+		} catch (error) {
+			logger.debug('Redis tag invalidation error', { tags, error: String(error) });
+		}
+		applyInvalidation({ type: 'tags', tags });
+		await publishInvalidation({ type: 'tags', tags });
+		return;
+	}
+
+	// In-memory fallback
+	for (const tag of tags) {
+		inMemoryTagVersions.set(tag, (inMemoryTagVersions.get(tag) ?? 0) + 1);
+	}
+}
+
 /**
  * Delete a value from cache
+ * A cacheGetOrSet already in flight for the key on this process is detached, so later
+ * callers don't join a load that started before the delete.
  * @param key - Cache key to delete
  */
 export async function cacheDelete(key: string): Promise<void> {
+	cacheFlights.forget(key);
 	if (redis) {
 		try {
 			await redis.del(key);
 		} catch (error) {
 			logger.debug('Redis delete error', { key, error: String(error) });
 		}
+		applyInvalidation({ type: 'keys', keys: [key] });
+		await publishInvalidation({ type: 'keys', keys: [key] });
 		return;
 	}
 
@@ -116,7 +593,8 @@ export async function cacheDelete(key: string): Promise<void> {
 
 /**
  * Delete all keys matching a pattern
- * Uses SCAN for non-blocking iteration (safe for production at scale)
+ * Uses SCAN for non-blocking iteration, but still walks the whole keyspace -
+ * prefer cacheInvalidateTags for invalidation on hot write paths
  * @param pattern - Pattern to match (e.g., "recipe:*")
  */
 export async function cacheDeletePattern(pattern: string): Promise<void> {
@@ -144,14 +622,14 @@ export async function cacheDeletePattern(pattern: string): Promise<void> {
 					const batch = keysToDelete.slice(i, i + 100);
 					await redis.del(...batch);
 				}
+				await publishInvalidation({ type: 'keys', keys: keysToDelete });
 			}
 		} catch (error) {
 			logger.debug('Redis delete pattern error', { pattern, error: String(error) });
 		}
-		return;
 	}
 
-	// In-memory fallback - delete matching keys
+	// In-memory fallback (or this node's L1) - delete matching keys
 	const regex = new RegExp('^' + pattern.replace(/\*/g, '.*') + '$');
 	for (const key of inMemoryCache.keys()) {
 		if (regex.test(key)) {
@@ -162,8 +640,9 @@ export async function cacheDeletePattern(pattern: string): Promise<void> {
 
 /**
  * In-memory locks for stampede prevention when Redis is not available
+ * Entries expire with the lock TTL so a crashed holder can't deadlock the key
  */
-const inMemoryLocks = new Map<string, Promise<unknown>>();
+const inMemoryLocks = new BoundedCache<true>({ maxEntries: 10000, sizeOf: () => 8 });
 
 /**
  * Try to acquire a distributed lock using Redis SETNX
@@ -182,8 +661,12 @@ async function acquireLock(lockKey: string, ttlSeconds: number): Promise<boolean
 			return false;
 		}
 	}
-	// In-memory fallback - check if lock exists
-	return !inMemoryLocks.has(lockKey);
+	// In-memory fallback - take the lock if it is free or has expired
+	if (inMemoryLocks.has(lockKey)) {
+		return false;
+	}
+	inMemoryLocks.set(lockKey, true, ttlSeconds * 1000);
+	return true;
 }
 
 /**
@@ -209,28 +692,136 @@ function sleep(ms: number): Promise<void> {
 	return new Promise((resolve) => setTimeout(resolve, ms));
 }
 
+export interface CacheGetOrSetOptions {
+	tags?: readonly string[];
+	/** Seconds past the TTL to keep serving the stale value while refreshing (see CACHE_STALE_TTL) */
+	staleWhileRevalidate?: number;
+}
+
+/**
+ * Keys this process is already refreshing in the background
+ */
+const backgroundRefreshKeys = new Set<string>();
+
+/**
+ * Store a freshly computed value
+ * With a stale window the entry lives for ttl + stale seconds and is marked fresh for ttl
+ */
+async function storeValue<T>(
+	key: string,
+	value: T,
+	ttl: number,
+	staleTtl: number,
+	tagVersions: number[]
+): Promise<void> {
+	if (staleTtl > 0) {
+		await writeEntry(key, value, ttl + staleTtl, tagVersions, Date.now() + ttl * 1000);
+	} else {
+		await writeEntry(key, value, ttl, tagVersions);
+	}
+}
+
+/**
+ * Rebuild a stale entry without blocking the caller
+ * Only the lock holder runs the factory; everyone else keeps serving the stale value
+ */
+function refreshInBackground<T>(
+	key: string,
+	ttl: number,
+	staleTtl: number,
+	factory: () => Promise<T>,
+	tagVersions: number[]
+): void {
+	if (backgroundRefreshKeys.has(key)) {
+		return;
+	}
+	backgroundRefreshKeys.add(key);
+
+	const lockKey = `lock:${key}`;
+
+	void (async () => {
+		try {
+			const lockAcquired = await acquireLock(lockKey, Math.max(ttl, 30));
+			if (!lockAcquired) {
+				return;
+			}
+
+			cacheStats.backgroundRefreshes++;
+			try {
+				const value = await factory();
+				await storeValue(key, value, ttl, staleTtl, tagVersions);
+			} catch (error) {
+				cacheStats.backgroundRefreshErrors++;
+				logger.warn('Background cache refresh failed', { key, error: String(error) });
+			} finally {
+				await releaseLock(lockKey);
+			}
+		} finally {
+			backgroundRefreshKeys.delete(key);
+		}
+	})();
+}
+
+/**
+ * In-flight cacheGetOrSet calls on this process, keyed by cache key
+ */
+const cacheFlights = createSingleFlight();
+
 /**
  * Get or set a cached value with automatic refresh and stampede protection
  * Uses distributed locking to prevent thundering herd when cache expires
  *
+ * Concurrent callers on the same process share one in-flight lookup (cache read,
+ * lock and factory), so a burst of requests for a key costs one Redis read.
+ *
+ * With staleWhileRevalidate, entries past their TTL are returned immediately
+ * while one background refresh rebuilds them, so callers only wait on the
+ * factory when the entry is missing entirely.
+ *
  * @param key - Cache key
  * @param ttlKey - TTL configuration key
  * @param factory - Async function to generate the value if not cached
+ * @param options.tags - Tags the value depends on (see cacheInvalidateTags)
+ * @param options.staleWhileRevalidate - Stale window in seconds (enables soft/hard TTL mode)
  * @returns Cached or freshly generated value
  */
-export async function cacheGetOrSet<T>(
+export function cacheGetOrSet<T>(
 	key: string,
 	ttlKey: CacheTTLKey,
-	factory: () => Promise<T>
+	factory: () => Promise<T>,
+	options: CacheGetOrSetOptions = {}
 ): Promise<T> {
+	return cacheFlights.run(
+		key,
+		() => getOrSetUncoalesced(key, ttlKey, factory, options),
+		() => cacheStats.coalesced++
+	);
+}
+
+async function getOrSetUncoalesced<T>(
+	key: string,
+	ttlKey: CacheTTLKey,
+	factory: () => Promise<T>,
+	options: CacheGetOrSetOptions
+): Promise<T> {
+	const tags = options.tags ?? [];
+	const staleTtl = options.staleWhileRevalidate ?? 0;
+	const ttl = CACHE_TTL[ttlKey];
+
 	// Try to get from cache first
-	const cached = await cacheGet<T>(key);
-	if (cached !== null) {
-		return cached;
+	const cached = await readEntry<T>(key, tags);
+	if (cached.value !== null) {
+		if (cached.stale) {
+			cacheStats.staleHits++;
+			refreshInBackground(key, ttl, staleTtl, factory, cached.tagVersions);
+		} else {
+			cacheStats.hits++;
+		}
+		return cached.value;
 	}
+	cacheStats.misses++;
 
 	const lockKey = `lock:${key}`;
-	const ttl = CACHE_TTL[ttlKey];
 
 	// Try to acquire lock for cache refresh
 	const lockAcquired = await acquireLock(lockKey, Math.max(ttl, 30)); // Lock for at least 30s
@@ -238,16 +829,17 @@ export async function cacheGetOrSet<T>(
 	if (lockAcquired) {
 		try {
 			// Double-check cache (another request might have populated it while we waited for lock)
-			const doubleCheck = await cacheGet<T>(key);
-			if (doubleCheck !== null) {
-				return doubleCheck;
+			const doubleCheck = await readEntry<T>(key, tags);
+			if (doubleCheck.value !== null && !doubleCheck.stale) {
+				return doubleCheck.value;
 			}
 
 			// We have the lock - generate fresh value
 			const value = await factory();
 
-			// Cache the result
-			await cacheSet(key, value, ttl);
+			// Cache the result against the tag versions read before the factory ran,
+			// so an invalidation that lands mid-computation still wins
+			await storeValue(key, value, ttl, staleTtl, doubleCheck.tagVersions);
 
 			return value;
 		} finally {
@@ -261,7 +853,7 @@ export async function cacheGetOrSet<T>(
 	for (let attempt = 0; attempt < 3; attempt++) {
 		await sleep(100 * (attempt + 1)); // 100ms, 200ms, 300ms backoff
 
-		const retryCache = await cacheGet<T>(key);
+		const retryCache = await cacheGet<T>(key, tags);
 		if (retryCache !== null) {
 			return retryCache;
 		}
@@ -269,6 +861,7 @@ export async function cacheGetOrSet<T>(
 
 	// Cache still empty after retries - execute factory as fallback
 	// This ensures we don't return empty data even if locking fails
+	cacheStats.stampedeFallbacks++;
 	logger.warn('Cache stampede fallback triggered', { key });
 	return factory();
 }
@@ -282,9 +875,24 @@ export const cacheKeys = {
 	chefProfile: (username: string) => `chef:${username}`,
 	recipeStats: (recipeId: string) => `recipe:stats:${recipeId}`,
 	recipeVotes: (recipeId: string) => `recipe:votes:${recipeId}`,
+	recipeCount: (filterKey: string) => `recipe:count:${filterKey}`,
+	authorCard: (userId: string) => `author:${userId}`,
+	followState: (followerId: string, followingId: string) => `follow:${followerId}:${followingId}`,
+	followSet: (followerId: string) => `follows:${followerId}`,
 	categories: () => 'categories:all'
 } as const;
 
+/**
+ * Cache tags for generation-based invalidation
+ * Recipe writes invalidate these instead of deleting keys by pattern
+ */
+export const cacheTags = {
+	trending: 'trending',
+	discover: 'discover',
+	homepage: 'homepage',
+	recipeCounts: 'recipe-counts'
+} as const;
+
 /**
  * Check if Redis caching is available
  */
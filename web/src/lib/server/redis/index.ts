@@ -1,34 +1,71 @@
 /**
  * Redis client configuration
- * Uses Upstash Redis for serverless-compatible distributed caching and rate limiting
+ * Selects a backend for distributed caching and rate limiting from env:
+ * - REDIS_URL (redis:// or rediss://): native pipelined TCP client for self-hosted Redis
+ * - UPSTASH_REDIS_REST_URL + UPSTASH_REDIS_REST_TOKEN: Upstash REST (serverless)
+ * REDIS_BACKEND=tcp|upstash forces one when both are set (default prefers tcp).
  */
 
 import { Redis } from '@upstash/redis';
 import { dev } from '$app/environment';
 import { env } from '$env/dynamic/private';
 import { logger } from '$lib/server/logger';
+import type { RedisBackend, RedisBackendKind } from './backend';
+import { createRespClient } from './resp';
+import { createTcpBackend } from './tcp';
+import { createUpstashBackend } from './upstash';
+
+const hasTcpConfig = Boolean(env.REDIS_URL);
+const hasUpstashConfig = Boolean(env.UPSTASH_REDIS_REST_URL && env.UPSTASH_REDIS_REST_TOKEN);
+const REDIS_POOL_SIZE = parseInt(env.REDIS_POOL_SIZE || '', 10) || 4;
+
+function selectBackend(): RedisBackendKind | null {
+	if (env.REDIS_BACKEND === 'tcp') return hasTcpConfig ? 'tcp' : null;
+	if (env.REDIS_BACKEND === 'upstash') return hasUpstashConfig ? 'upstash' : null;
+	if (hasTcpConfig) return 'tcp';
+	if (hasUpstashConfig) return 'upstash';
+	return null;
+}
+
+/**
+ * Which backend is in use (null when Redis is not configured)
+ */
+export const redisBackendKind: RedisBackendKind | null = selectBackend();
 
 /**
  * Check if Redis is configured
  */
-export const isRedisConfigured = Boolean(env.UPSTASH_REDIS_REST_URL && env.UPSTASH_REDIS_REST_TOKEN);
+export const isRedisConfigured = redisBackendKind !== null;
+
+function createBackend(kind: RedisBackendKind | null): RedisBackend | null {
+	switch (kind) {
+		case 'tcp':
+			return createTcpBackend(createRespClient(env.REDIS_URL!, { poolSize: REDIS_POOL_SIZE }));
+		case 'upstash':
+			return createUpstashBackend(
+				new Redis({
+					url: env.UPSTASH_REDIS_REST_URL!,
+					token: env.UPSTASH_REDIS_REST_TOKEN!
+				})
+			);
+		default:
+			return null;
+	}
+}
 
 /**
- * Redis client instance
+ * Redis backend instance
  * Returns null if Redis is not configured (allows graceful fallback)
  */
-export const redis: Redis | null = isRedisConfigured
-	? new Redis({
-			url: env.UPSTASH_REDIS_REST_URL!,
-			token: env.UPSTASH_REDIS_REST_TOKEN!
-		})
-	: null;
+export const redis: RedisBackend | null = createBackend(redisBackendKind);
 
 /**
  * Log Redis configuration status on startup
  */
 if (dev) {
-	if (isRedisConfigured) {
+	if (redisBackendKind === 'tcp') {
+		logger.info('Redis connected over TCP', { poolSize: REDIS_POOL_SIZE });
+	} else if (redisBackendKind === 'upstash') {
 		logger.info('Redis connected to Upstash');
 	} else {
 		logger.info('Redis not configured - using in-memory fallback');
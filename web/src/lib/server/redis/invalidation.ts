@@ -0,0 +1,191 @@
+/**
+ * Cross-instance cache invalidation
+ * Every node keeps a short-lived in-process L1 in front of Redis; invalidations are
+ * appended to a shared, sequence-numbered log and each node polls it to evict its L1.
+ *
+ * Upstash REST has no long-lived connections, so instead of SUBSCRIBE the log is a
+ * sorted set keyed by sequence number plus a sequence counter. An idle node costs one
+ * GET per poll interval. The in-memory log stands in for Redis when running several
+ * simulated nodes in one process (local testing).
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+export type InvalidationMessage =
+	| { type: 'tags'; tags: string[] }
+	| { type: 'keys'; keys: string[] }
+	| { type: 'reset' }; // Node fell behind the log - drop everything
+
+export interface InvalidationLogEntry {
+	sequence: number;
+	message: string;
+}
+
+/**
+ * Storage for the shared invalidation log
+ */
+export interface InvalidationLog {
+	/** Append a message, assigning it the next sequence number */
+	append(message: string): Promise<void>;
+	/** Highest sequence number assigned so far */
+	latestSequence(): Promise<number>;
+	/** Entries with a sequence number greater than the given one, in order */
+	readAfter(sequence: number): Promise<InvalidationLogEntry[]>;
+}
+
+export interface InvalidationBus {
+	publish(message: InvalidationMessage): Promise<void>;
+	/** Returns an unsubscribe function */
+	subscribe(handler: (message: InvalidationMessage) => void): () => void;
+	/** Poll the log once (called on an interval by start) */
+	poll(): Promise<void>;
+	start(): void;
+	stop(): void;
+}
+
+export interface PolledInvalidationBusOptions {
+	intervalMs?: number;
+	/**
+	 * How long a missing sequence number may stay missing before it counts as lost
+	 * (default 2000). A publish takes the number before it writes the entry, so a poll
+	 * can briefly see a gap, and concurrent publishes can land out of order.
+	 */
+	gapGraceMs?: number;
+	onError?: (error: unknown) => void;
+}
+
+/**
+ * Invalidation bus over a polled log
+ * Messages are delivered in sequence order. Delivery stops at a missing sequence number
+ * until it shows up; if it is still missing after gapGraceMs (the log was trimmed past
+ * us, or a publisher died between numbering and writing), subscribers get a reset.
+ */
+export function createPolledInvalidationBus(
+	log: InvalidationLog,
+	options: PolledInvalidationBusOptions = {}
+): InvalidationBus {
+	const intervalMs = options.intervalMs ?? 1000;
+	const gapGraceMs = options.gapGraceMs ?? 2000;
+	const handlers = new Set<(message: InvalidationMessage) => void>();
+	let lastSeen: number | null = null;
+	let timer: ReturnType<typeof setInterval> | null = null;
+	let polling = false;
+	// First missing sequence number and when it was first seen missing
+	let gap: { sequence: number; since: number } | null = null;
+
+	function deliver(message: InvalidationMessage) {
+		for (const handler of handlers) {
+			handler(message);
+		}
+	}
+
+	async function poll(): Promise<void> {
+		if (polling) return;
+		polling = true;
+		try {
+			const latest = await log.latestSequence();
+
+			// First poll only establishes our position; earlier messages predate our L1
+			if (lastSeen === null) {
+				lastSeen = latest;
+				return;
+			}
+
+			if (latest <= lastSeen) {
+				return;
+			}
+
+			const entries = await log.readAfter(lastSeen);
+			let expected = lastSeen + 1;
+
+			for (const entry of entries) {
+				if (entry.sequence !== expected) {
+					break;
+				}
+				try {
+					deliver(JSON.parse(entry.message) as InvalidationMessage);
+				} catch {
+					// Unreadable entry: we can't tell what it invalidated
+					deliver({ type: 'reset' });
+				}
+				expected++;
+			}
+
+			lastSeen = expected - 1;
+
+			if (expected > latest) {
+				gap = null;
+				return;
+			}
+
+			// Wait for an in-flight publish before treating the hole as lost
+			const now = Date.now();
+			if (!gap || gap.sequence !== expected) {
+				gap = { sequence: expected, since: now };
+			} else if (now - gap.since >= gapGraceMs) {
+				deliver({ type: 'reset' });
+				lastSeen = latest;
+				gap = null;
+			}
+		} catch (error) {
+			options.onError?.(error);
+		} finally {
+			polling = false;
+		}
+	}
+
+	return {
+		async publish(message) {
+			await log.append(JSON.stringify(message));
+		},
+
+		subscribe(handler) {
+			handlers.add(handler);
+			return () => handlers.delete(handler);
+		},
+
+		poll,
+
+		start() {
+			if (timer || typeof setInterval === 'undefined') return;
+			void poll();
+			timer = setInterval(() => void poll(), intervalMs);
+			// Don't keep the process alive just for polling
+			(timer as { unref?: () => void }).unref?.();
+		},
+
+		stop() {
+			if (timer) {
+				clearInterval(timer);
+				timer = null;
+			}
+		}
+	};
+}
+
+/**
+ * In-memory invalidation log (stand-in for Redis)
+ * Share one instance between several buses to simulate multiple nodes locally.
+ */
+export function createInMemoryInvalidationLog(maxLength = 1000): InvalidationLog {
+	let sequence = 0;
+	const entries: InvalidationLogEntry[] = [];
+
+	return {
+		async append(message) {
+			sequence++;
+			entries.push({ sequence, message });
+			if (entries.length > maxLength) {
+				entries.splice(0, entries.length - maxLength);
+			}
+		},
+
+		async latestSequence() {
+			return sequence;
+		},
+
+		async readAfter(after) {
+			return entries.filter((entry) => entry.sequence > after);
+		}
+	};
+}
@@ -0,0 +1,121 @@
+/**
+ * DataLoader-style batching over the cache
+ * Every load() issued in the same tick is collected into one batch:
+ * one MGET for the cached ids, one batchLoad (a single IN (...) query) for the
+ * misses, and one pipelined write to backfill them.
+ *
+ * Loaders memoize per instance, so create one per request rather than sharing
+ * them across users.
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+export interface LoaderStore {
+	getMany<V>(keys: readonly string[], tags?: readonly string[]): Promise<(V | null)[]>;
+	setMany<V>(
+		entries: readonly { key: string; value: V; ttlSeconds: number }[],
+		tags?: readonly string[]
+	): Promise<void>;
+}
+
+export interface CachedLoaderOptions<K extends string, V> {
+	/** Cache key for an id */
+	cacheKey: (id: K) => string;
+	ttlSeconds: number;
+	tags?: readonly string[];
+	/** Fetch missing ids in one query; ids absent from the result resolve to null (not cached) */
+	batchLoad: (ids: K[]) => Promise<Map<K, V>>;
+	/** Max ids per batchLoad call (default 500) */
+	maxBatchSize?: number;
+}
+
+export interface CachedLoader<K extends string, V> {
+	load(id: K): Promise<V | null>;
+	loadMany(ids: readonly K[]): Promise<(V | null)[]>;
+}
+
+interface QueuedLoad<V> {
+	resolve: (value: V | null) => void;
+	reject: (error: unknown) => void;
+}
+
+export function createCachedLoader<K extends string, V>(
+	store: LoaderStore,
+	options: CachedLoaderOptions<K, V>
+): CachedLoader<K, V> {
+	const maxBatchSize = options.maxBatchSize ?? 500;
+	const tags = options.tags ?? [];
+	const memo = new Map<K, Promise<V | null>>();
+	let queue = new Map<K, QueuedLoad<V>>();
+	let scheduled = false;
+
+	async function dispatch(batch: Map<K, QueuedLoad<V>>): Promise<void> {
+		const ids = [...batch.keys()];
+
+		try {
+			const cached = await store.getMany<V>(ids.map(options.cacheKey), tags);
+			const missing: K[] = [];
+
+			ids.forEach((id, i) => {
+				if (cached[i] !== null) {
+					batch.get(id)!.resolve(cached[i]);
+				} else {
+					missing.push(id);
+				}
+			});
+
+			for (let i = 0; i < missing.length; i += maxBatchSize) {
+				const chunk = missing.slice(i, i + maxBatchSize);
+				const loaded = await options.batchLoad(chunk);
+
+				const backfill: { key: string; value: V; ttlSeconds: number }[] = [];
+				for (const id of chunk) {
+					const value = loaded.get(id);
+					if (value !== undefined && value !== null) {
+						backfill.push({ key: options.cacheKey(id), value, ttlSeconds: options.ttlSeconds });
+					}
+				}
+				await store.setMany(backfill, tags);
+
+				for (const id of chunk) {
+					batch.get(id)!.resolve(loaded.get(id) ?? null);
+				}
+			}
+		} catch (error) {
+			for (const [id, waiter] of batch) {
+				// Don't memoize failures - a later load() can retry
+				memo.delete(id);
+				waiter.reject(error);
+			}
+		}
+	}
+
+	function load(id: K): Promise<V | null> {
+		const existing = memo.get(id);
+		if (existing) {
+			return existing;
+		}
+
+		const promise = new Promise<V | null>((resolve, reject) => {
+			queue.set(id, { resolve, reject });
+		});
+		memo.set(id, promise);
+
+		if (!scheduled) {
+			scheduled = true;
+			queueMicrotask(() => {
+				const batch = queue;
+				queue = new Map();
+				scheduled = false;
+				void dispatch(batch);
+			});
+		}
+
+		return promise;
+	}
+
+	return {
+		load,
+		loadMany: (ids) => Promise.all(ids.map(load))
+	};
+}
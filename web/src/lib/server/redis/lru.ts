@@ -0,0 +1,181 @@
+/**
+ * Bounded in-process LRU cache with TTLs and byte-size accounting
+ * Used by the in-memory fallbacks (cache, locks, rate limiting) so that a crawler
+ * walking many distinct keys can't grow the heap without limit.
+ *
+ * - Least recently used entries are evicted once maxEntries or maxBytes is exceeded
+ * - Expired entries are dropped lazily on access (and by prune() if called)
+ * - Sizes are estimates; they only need to be proportional to real heap usage
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+interface LruEntry<V> {
+	value: V;
+	expiresAt: number;
+	size: number;
+}
+
+export interface BoundedCacheOptions<V> {
+	/** Maximum number of entries */
+	maxEntries: number;
+	/** Maximum estimated size of all entries in bytes (defaults to unlimited) */
+	maxBytes?: number;
+	/** Size estimator for values (defaults to estimateSize) */
+	sizeOf?: (value: V) => number;
+}
+
+export interface BoundedCacheStats {
+	entries: number;
+	bytes: number;
+	maxBytes: number;
+	hits: number;
+	misses: number;
+	evictions: number;
+	expirations: number;
+}
+
+/**
+ * Rough byte-size estimate for a JSON-serializable value
+ * Strings are UTF-16 in V8, so 2 bytes per character
+ */
+export function estimateSize(value: unknown): number {
+	if (value === null || value === undefined) return 8;
+	switch (typeof value) {
+		case 'string':
+			return 2 * value.length;
+		case 'number':
+		case 'boolean':
+			return 8;
+		default:
+			try {
+				return 2 * (JSON.stringify(value)?.length ?? 0);
+			} catch {
+				return 1024;
+			}
+	}
+}
+
+// Fixed per-entry overhead (map slot, entry object, timestamps)
+const ENTRY_OVERHEAD_BYTES = 64;
+
+export class BoundedCache<V> {
+	private readonly entries = new Map<string, LruEntry<V>>();
+	private readonly maxEntries: number;
+	private readonly maxBytes: number;
+	private readonly sizeOf: (value: V) => number;
+	private totalBytes = 0;
+	private counters = { hits: 0, misses: 0, evictions: 0, expirations: 0 };
+
+	constructor(options: BoundedCacheOptions<V>) {
+		this.maxEntries = Math.max(1, options.maxEntries);
+		this.maxBytes = options.maxBytes ?? Number.POSITIVE_INFINITY;
+		this.sizeOf = options.sizeOf ?? estimateSize;
+	}
+
+	/**
+	 * Get a live value and mark it as most recently used
+	 */
+	get(key: string, now = Date.now()): V | undefined {
+		const entry = this.entries.get(key);
+		if (!entry) {
+			this.counters.misses++;
+			return undefined;
+		}
+
+		if (now > entry.expiresAt) {
+			this.remove(key, entry);
+			this.counters.expirations++;
+			this.counters.misses++;
+			return undefined;
+		}
+
+		// Re-insert to move to the most recently used position
+		this.entries.delete(key);
+		this.entries.set(key, entry);
+		this.counters.hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Check for a live value without touching recency or hit counters
+	 */
+	has(key: string, now = Date.now()): boolean {
+		const entry = this.entries.get(key);
+		return entry !== undefined && now <= entry.expiresAt;
+	}
+
+	/**
+	 * Store a value, evicting least recently used entries to stay within budget
+	 */
+	set(key: string, value: V, ttlMs: number, now = Date.now()): void {
+		const existing = this.entries.get(key);
+		if (existing) {
+			this.remove(key, existing);
+		}
+
+		const size = ENTRY_OVERHEAD_BYTES + 2 * key.length + this.sizeOf(value);
+		if (size > this.maxBytes) {
+			// Larger than the whole budget - caching it would evict everything else
+			return;
+		}
+
+		this.entries.set(key, { value, expiresAt: now + ttlMs, size });
+		this.totalBytes += size;
+
+		while (this.entries.size > this.maxEntries || this.totalBytes > this.maxBytes) {
+			const oldestKey = this.entries.keys().next().value as string;
+			this.remove(oldestKey, this.entries.get(oldestKey)!);
+			this.counters.evictions++;
+		}
+	}
+
+	delete(key: string): boolean {
+		const entry = this.entries.get(key);
+		if (!entry) return false;
+		this.remove(key, entry);
+		return true;
+	}
+
+	/**
+	 * Iterate over keys (including not-yet-pruned expired ones)
+	 */
+	keys(): IterableIterator<string> {
+		return this.entries.keys();
+	}
+
+	/**
+	 * Drop all expired entries
+	 */
+	prune(now = Date.now()): void {
+		for (const [key, entry] of this.entries) {
+			if (now > entry.expiresAt) {
+				this.remove(key, entry);
+				this.counters.expirations++;
+			}
+		}
+	}
+
+	clear(): void {
+		this.entries.clear();
+		this.totalBytes = 0;
+	}
+
+	get size(): number {
+		return this.entries.size;
+	}
+
+	stats(): BoundedCacheStats {
+		return {
+			entries: this.entries.size,
+			bytes: this.totalBytes,
+			maxBytes: this.maxBytes,
+			...this.counters
+		};
+	}
+
+	private remove(key: string, entry: LruEntry<V>): void {
+		this.entries.delete(key);
+		this.totalBytes -= entry.size;
+	}
+}
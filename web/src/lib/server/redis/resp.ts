@@ -0,0 +1,288 @@
+/**
+ * Minimal pipelined RESP2 client over TCP/TLS with a small connection pool
+ * Used for self-hosted Redis (REDIS_URL) where one HTTPS request per command
+ * (Upstash REST) would be pure overhead.
+ *
+ * - Commands are written without waiting for replies; replies are matched FIFO
+ * - pipeline() writes a batch in one socket write and resolves with every reply
+ * - Connections are created lazily, round-robin, and replaced after errors
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+import net from 'node:net';
+import tls from 'node:tls';
+
+export class RespError extends Error {
+	constructor(message: string) {
+		super(message);
+		this.name = 'RespError';
+	}
+}
+
+/**
+ * A reply value; a top-level error reply rejects its command instead, so a RespError
+ * only appears as an array element (e.g. one failed command in EXEC's reply)
+ */
+export type RespValue = string | number | null | RespError | RespValue[];
+
+export type RespArg = string | number | Buffer;
+
+export interface RespClientOptions {
+	poolSize?: number;
+	connectTimeoutMs?: number;
+	commandTimeoutMs?: number;
+}
+
+interface PendingReply {
+	resolve: (value: RespValue) => void;
+	reject: (error: Error) => void;
+}
+
+const CRLF = '\r\n';
+
+function encodeCommand(args: RespArg[]): Buffer {
+	const parts: Buffer[] = [Buffer.from(`*${args.length}${CRLF}`)];
+	for (const arg of args) {
+		const value = Buffer.isBuffer(arg) ? arg : Buffer.from(String(arg));
+		parts.push(Buffer.from(`$${value.length}${CRLF}`), value, Buffer.from(CRLF));
+	}
+	return Buffer.concat(parts);
+}
+
+/**
+ * Parse one reply starting at offset
+ * Returns null when the buffer doesn't yet hold a complete reply
+ */
+function parseReply(buffer: Buffer, offset: number): { value: RespValue | RespError; offset: number } | null {
+	if (offset >= buffer.length) return null;
+
+	const lineEnd = buffer.indexOf(CRLF, offset);
+	if (lineEnd === -1) return null;
+
+	const type = String.fromCharCode(buffer[offset]);
+	const line = buffer.toString('utf8', offset + 1, lineEnd);
+	const next = lineEnd + 2;
+
+	switch (type) {
+		case '+':
+			return { value: line, offset: next };
+		case '-':
+			return { value: new RespError(line), offset: next };
+		case ':':
+			return { value: Number(line), offset: next };
+		case '$': {
+			const length = Number(line);
+			if (length === -1) return { value: null, offset: next };
+			if (buffer.length < next + length + 2) return null;
+			return { value: buffer.toString('utf8', next, next + length), offset: next + length + 2 };
+		}
+		case '*': {
+			const count = Number(line);
+			if (count === -1) return { value: null, offset: next };
+			const items: RespValue[] = [];
+			let cursor = next;
+			for (let i = 0; i < count; i++) {
+				const item = parseReply(buffer, cursor);
+				if (!item) return null;
+				// Errors nested in arrays (e.g. EXEC) stay errors, distinct from a nil element
+				items.push(item.value);
+				cursor = item.offset;
+			}
+			return { value: items, offset: cursor };
+		}
+		default:
+			throw new RespError(`Unexpected RESP type byte: ${type}`);
+	}
+}
+
+class RespConnection {
+	private socket: net.Socket;
+	private pending: PendingReply[] = [];
+	private buffer = Buffer.alloc(0);
+	private closed = false;
+	private connectTimer: ReturnType<typeof setTimeout>;
+
+	constructor(url: URL, options: Required<RespClientOptions>) {
+		const port = Number(url.port || 6379);
+		const host = url.hostname;
+
+		this.socket =
+			url.protocol === 'rediss:'
+				? tls.connect({ host, port, servername: host })
+				: net.connect({ host, port });
+
+		this.socket.setNoDelay(true);
+		this.socket.setKeepAlive(true);
+
+		this.connectTimer = setTimeout(() => {
+			this.fail(new RespError(`Redis connect timeout after ${options.connectTimeoutMs}ms`));
+		}, options.connectTimeoutMs);
+		this.socket.once(url.protocol === 'rediss:' ? 'secureConnect' : 'connect', () =>
+			clearTimeout(this.connectTimer)
+		);
+
+		this.socket.on('data', (chunk: Buffer) => this.onData(chunk));
+		this.socket.on('error', (error) => this.fail(error));
+		this.socket.on('close', () => this.fail(new RespError('Redis connection closed')));
+
+		// Handshake is pipelined ahead of the first command; replies are checked like any other
+		const handshake: RespArg[][] = [];
+		const password = decodeURIComponent(url.password);
+		const username = decodeURIComponent(url.username);
+		if (password) {
+			handshake.push(username ? ['AUTH', username, password] : ['AUTH', password]);
+		}
+		const db = Number(url.pathname.slice(1) || 0);
+		if (db > 0) {
+			handshake.push(['SELECT', db]);
+		}
+		if (handshake.length > 0) {
+			this.send(handshake).catch((error) => this.fail(error));
+		}
+	}
+
+	get isOpen(): boolean {
+		return !this.closed;
+	}
+
+	/**
+	 * Write a batch of commands in one socket write
+	 */
+	send(commands: RespArg[][]): Promise<RespValue[]> {
+		if (this.closed) {
+			return Promise.reject(new RespError('Redis connection closed'));
+		}
+
+		const replies = commands.map(
+			() => new Promise<RespValue>((resolve, reject) => this.pending.push({ resolve, reject }))
+		);
+		this.socket.write(Buffer.concat(commands.map(encodeCommand)));
+		return Promise.all(replies);
+	}
+
+	close(): void {
+		this.socket.end();
+		this.fail(new RespError('Redis connection closed'));
+	}
+
+	/**
+	 * Tear the connection down, rejecting every pending reply
+	 * Used when a reply times out: later replies on the socket would be matched to the
+	 * wrong waiters, so the connection can't be reused.
+	 */
+	destroy(error: Error): void {
+		this.fail(error);
+	}
+
+	private onData(chunk: Buffer): void {
+		this.buffer = this.buffer.length === 0 ? chunk : Buffer.concat([this.buffer, chunk]);
+
+		let offset = 0;
+		try {
+			while (offset < this.buffer.length) {
+				const reply = parseReply(this.buffer, offset);
+				if (!reply) break;
+				offset = reply.offset;
+
+				const waiter = this.pending.shift();
+				if (!waiter) continue;
+				if (reply.value instanceof RespError) {
+					waiter.reject(reply.value);
+				} else {
+					waiter.resolve(reply.value);
+				}
+			}
+		} catch (error) {
+			this.fail(error instanceof Error ? error : new RespError(String(error)));
+			return;
+		}
+
+		this.buffer = offset === this.buffer.length ? Buffer.alloc(0) : this.buffer.subarray(offset);
+	}
+
+	private fail(error: Error): void {
+		if (this.closed) return;
+		this.closed = true;
+		clearTimeout(this.connectTimer);
+		this.socket.destroy();
+		const pending = this.pending;
+		this.pending = [];
+		for (const waiter of pending) {
+			waiter.reject(error);
+		}
+	}
+}
+
+export interface RespClient {
+	command(...args: RespArg[]): Promise<RespValue>;
+	pipeline(commands: RespArg[][]): Promise<RespValue[]>;
+	close(): void;
+}
+
+export function createRespClient(redisUrl: string, options: RespClientOptions = {}): RespClient {
+	const url = new URL(redisUrl);
+	const resolved: Required<RespClientOptions> = {
+		poolSize: Math.max(1, options.poolSize ?? 4),
+		connectTimeoutMs: options.connectTimeoutMs ?? 5000,
+		commandTimeoutMs: options.commandTimeoutMs ?? 5000
+	};
+	const pool: (RespConnection | null)[] = Array.from({ length: resolved.poolSize }, () => null);
+	let nextIndex = 0;
+
+	function connection(): RespConnection {
+		const index = nextIndex;
+		nextIndex = (nextIndex + 1) % pool.length;
+
+		let conn = pool[index];
+		if (!conn || !conn.isOpen) {
+			conn = new RespConnection(url, resolved);
+			pool[index] = conn;
+		}
+		return conn;
+	}
+
+	/**
+	 * Send on the next pooled connection, failing it if the replies don't arrive in time
+	 * so connection() opens a fresh one for the next caller
+	 */
+	function send(commands: RespArg[][]): Promise<RespValue[]> {
+		const conn = connection();
+		const promise = conn.send(commands);
+		return new Promise<RespValue[]>((resolve, reject) => {
+			const timer = setTimeout(
+				() => conn.destroy(new RespError(`Redis command timeout after ${resolved.commandTimeoutMs}ms`)),
+				resolved.commandTimeoutMs
+			);
+			promise.then(
+				(value) => {
+					clearTimeout(timer);
+					resolve(value);
+				},
+				(error) => {
+					clearTimeout(timer);
+					reject(error);
+				}
+			);
+		});
+	}
+
+	return {
+		async command(...args) {
+			const [reply] = await send([args]);
+			return reply;
+		},
+
+		pipeline(commands) {
+			if (commands.length === 0) return Promise.resolve([]);
+			return send(commands);
+		},
+
+		close() {
+			for (const conn of pool) {
+				conn?.close();
+			}
+			pool.fill(null);
+		}
+	};
+}
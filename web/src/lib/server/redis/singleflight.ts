@@ -0,0 +1,60 @@
+/**
+ * Per-process request coalescing (single-flight)
+ * Concurrent callers for the same key share one in-flight promise, so a burst of
+ * identical requests on one instance costs a single backend round trip.
+ *
+ * Kept free of SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+export interface SingleFlight {
+	/**
+	 * Run fn for key, or join the call already in flight for that key
+	 * @param key - Coalescing key
+	 * @param fn - Work to run when no call for key is in flight
+	 * @param onJoin - Called when this caller joined an existing flight
+	 */
+	run<T>(key: string, fn: () => Promise<T>, onJoin?: () => void): Promise<T>;
+	/**
+	 * Detach the flight for key (e.g. its value was invalidated): callers already
+	 * waiting still get its result, later callers start a new flight
+	 */
+	forget(key: string): void;
+	/** Number of keys currently in flight */
+	readonly size: number;
+}
+
+export function createSingleFlight(): SingleFlight {
+	const inFlight = new Map<string, Promise<unknown>>();
+
+	return {
+		run<T>(key: string, fn: () => Promise<T>, onJoin?: () => void): Promise<T> {
+			const existing = inFlight.get(key) as Promise<T> | undefined;
+			if (existing) {
+				onJoin?.();
+				return existing;
+			}
+
+			const promise: Promise<T> = (async () => {
+				try {
+					return await fn();
+				} finally {
+					// Remove once settled so the next burst starts a fresh flight
+					if (inFlight.get(key) === promise) {
+						inFlight.delete(key);
+					}
+				}
+			})();
+
+			inFlight.set(key, promise);
+			return promise;
+		},
+
+		forget(key: string): void {
+			inFlight.delete(key);
+		},
+
+		get size() {
+			return inFlight.size;
+		}
+	};
+}
@@ -0,0 +1,113 @@
+/**
+ * Native Redis backend over the pipelined RESP client
+ * Used when REDIS_URL points at a self-hosted Redis; commands go over pooled TCP
+ * connections instead of one HTTPS request each.
+ */
+
+import {
+	deserializeValue,
+	serializeValue,
+	type PipelineCommand,
+	type RedisBackend,
+	type SetOptions
+} from './backend';
+import type { RespArg, RespClient, RespValue } from './resp';
+
+function setArgs(key: string, value: unknown, options: SetOptions = {}): RespArg[] {
+	const args: RespArg[] = ['SET', key, serializeValue(value)];
+	if (options.ex !== undefined) args.push('EX', options.ex);
+	if (options.nx) args.push('NX');
+	return args;
+}
+
+function toArgs(command: PipelineCommand): RespArg[] {
+	switch (command[0]) {
+		case 'incr':
+			return ['INCR', command[1]];
+		case 'set':
+			return setArgs(command[1], command[2], command[3]);
+		case 'del':
+			return ['DEL', command[1]];
+		case 'zadd':
+			return ['ZADD', command[1], command[2], command[3]];
+		case 'zremrangebyrank':
+			return ['ZREMRANGEBYRANK', command[1], command[2], command[3]];
+	}
+}
+
+export function createTcpBackend(client: RespClient): RedisBackend {
+	return {
+		kind: 'tcp',
+
+		async get<T>(key: string) {
+			return deserializeValue<T>(await client.command('GET', key));
+		},
+
+		async mget<T extends unknown[]>(...keys: string[]) {
+			const values = (await client.command('MGET', ...keys)) as RespValue[];
+			return values.map((value) => deserializeValue(value)) as T;
+		},
+
+		async set(key, value, options) {
+			const reply = await client.command(...setArgs(key, value, options));
+			return reply === 'OK' ? 'OK' : null;
+		},
+
+		async del(...keys) {
+			return Number(await client.command('DEL', ...keys));
+		},
+
+		async incr(key) {
+			return Number(await client.command('INCR', key));
+		},
+
+		async scan(cursor, options) {
+			const [next, keys] = (await client.command(
+				'SCAN',
+				cursor,
+				'MATCH',
+				options.match,
+				'COUNT',
+				options.count
+			)) as [string, string[]];
+			return [String(next), keys];
+		},
+
+		async zrangeByScore(key, min, max) {
+			const members = (await client.command('ZRANGEBYSCORE', key, min, max)) as string[];
+			return members;
+		},
+
+		async pipeline(commands) {
+			const replies = await client.pipeline(commands.map(toArgs));
+			return replies.map((reply) => (typeof reply === 'string' ? deserializeValue(reply) : reply));
+		},
+
+		/**
+		 * Sliding window counter (same approximation @upstash/ratelimit uses):
+		 * the previous fixed window's count is weighted by how much of it still overlaps.
+		 * One pipelined round trip; rejected requests still count toward the window.
+		 */
+		async slidingWindow(prefix, identifier, limit, windowMs) {
+			const now = Date.now();
+			const window = Math.floor(now / windowMs);
+			const currentKey = `${prefix}:${identifier}:${window}`;
+			const previousKey = `${prefix}:${identifier}:${window - 1}`;
+
+			const [current, , previous] = await client.pipeline([
+				['INCR', currentKey],
+				['PEXPIRE', currentKey, windowMs * 2],
+				['GET', previousKey]
+			]);
+
+			const overlap = 1 - (now % windowMs) / windowMs;
+			const used = Math.floor(Number(previous ?? 0) * overlap) + Number(current);
+
+			return {
+				success: used <= limit,
+				remaining: Math.max(0, limit - used),
+				reset: (window + 1) * windowMs
+			};
+		}
+	};
+}
@@ -0,0 +1,98 @@
+/**
+ * Upstash REST backend
+ * Every command (or pipeline) is one HTTPS request; rate limiting uses @upstash/ratelimit.
+ */
+
+import { Redis } from '@upstash/redis';
+import { Ratelimit } from '@upstash/ratelimit';
+import type { PipelineCommand, RedisBackend, SetOptions } from './backend';
+
+function toSetOptions(options: SetOptions = {}) {
+	const { ex, nx } = options;
+	if (ex !== undefined && nx) return { ex, nx: true as const };
+	if (ex !== undefined) return { ex };
+	if (nx) return { nx: true as const };
+	return undefined;
+}
+
+export function createUpstashBackend(client: Redis): RedisBackend {
+	// One limiter per prefix/limit/window, created on first use
+	const limiters = new Map<string, Ratelimit>();
+
+	function limiterFor(prefix: string, limit: number, windowMs: number): Ratelimit {
+		const id = `${prefix}:${limit}:${windowMs}`;
+		let limiter = limiters.get(id);
+		if (!limiter) {
+			limiter = new Ratelimit({
+				redis: client,
+				limiter: Ratelimit.slidingWindow(limit, `${windowMs} ms`),
+				prefix,
+				analytics: true
+			});
+			limiters.set(id, limiter);
+		}
+		return limiter;
+	}
+
+	return {
+		kind: 'upstash',
+
+		get: <T>(key: string) => client.get<T>(key),
+
+		mget: <T extends unknown[]>(...keys: string[]) => client.mget<T>(...keys),
+
+		async set(key, value, options) {
+			const result = await client.set(key, value, toSetOptions(options));
+			return result === 'OK' ? 'OK' : null;
+		},
+
+		del: (...keys) => client.del(...keys),
+
+		incr: (key) => client.incr(key),
+
+		async scan(cursor, options) {
+			const [next, keys] = await client.scan(cursor, options);
+			return [String(next), keys];
+		},
+
+		async zrangeByScore(key, min, max) {
+			const members = await client.zrange<unknown[]>(
+				key,
+				min as `(${number}`,
+				max as `(${number}`,
+				{ byScore: true }
+			);
+			return members.map(String);
+		},
+
+		async pipeline(commands: PipelineCommand[]) {
+			if (commands.length === 0) return [];
+			const pipeline = client.pipeline();
+			for (const command of commands) {
+				switch (command[0]) {
+					case 'incr':
+						pipeline.incr(command[1]);
+						break;
+					case 'set':
+						pipeline.set(command[1], command[2], toSetOptions(command[3]));
+						break;
+					case 'del':
+						pipeline.del(command[1]);
+						break;
+					case 'zadd':
+						pipeline.zadd(command[1], { score: command[2], member: command[3] });
+						break;
+					case 'zremrangebyrank':
+						pipeline.zremrangebyrank(command[1], command[2], command[3]);
+						break;
+				}
+			}
+			return pipeline.exec();
+		},
+
+		async slidingWindow(prefix, identifier, limit, windowMs) {
+			const result = await limiterFor(prefix, limit, windowMs).limit(identifier);
+			return { success: result.success, remaining: result.remaining, reset: result.reset };
+		}
+	};
+}
@@ -0,0 +1,149 @@
+/**
+ * Recipe full-text search
+ * search_vector is built with the text search config of the recipe's language
+ * (recipe_search_config in the database), so the tsquery must use the same config;
+ * a query stemmed for another language silently misses.
+ *
+ * Ingredients, steps and tips are folded into search_vector from content_vector, which
+ * is rebuilt whenever a recipe's child rows are written (refreshRecipeContentVector).
+ *
+ * Substring, prefix and typo-tolerant title matches use pg_trgm trigram indexes.
+ */
+
+import { desc, eq, sql, type SQL } from 'drizzle-orm';
+import { db } from '$lib/server/db';
+import { recipes } from '$lib/server/db/schema';
+import { selectRecipeCards } from '$lib/server/recipeCards';
+
+/**
+ * Full-text match for recipes in `language` (pair it with a language = filter so the
+ * (language, search_vector) GIN index is used)
+ */
+export function fullTextMatch(language: string, text: string): SQL {
+	return sql`${recipes.searchVector} @@ plainto_tsquery(recipe_search_config(${language}), ${text})`;
+}
+
+/**
+ * Rebuild a recipe's ingredients/steps/tips search content (and so its search_vector)
+ * Call in the transaction that wrote the child rows, after the last insert.
+ */
+export async function refreshRecipeContentVector(
+	tx: { execute: typeof db.execute },
+	recipeId: string
+): Promise<void> {
+	await tx.execute(sql`SELECT refresh_recipe_content_vector(${recipeId})`);
+}
+
+/**
+ * Escape LIKE wildcards so user input only matches literally
+ */
+function escapeLike(text: string): string {
+	return text.replace(/[\\%_]/g, (char) => `\\${char}`);
+}
+
+/**
+ * Title starts with `text` (short queries that full-text search can't handle)
+ * Served by the (language, title) trigram index once the prefix is 3+ characters.
+ */
+export function titlePrefixMatch(text: string): SQL {
+	return sql`${recipes.title} ILIKE ${`${escapeLike(text)}%`}`;
+}
+
+/**
+ * #hashtag filter: substring of the cuisine or the tag (trigram indexed, see
+ * migration 0025)
+ */
+export function hashtagMatch(hashtag: string): SQL {
+	const pattern = `%${escapeLike(hashtag)}%`;
+	return sql`(${recipes.cuisine} ILIKE ${pattern} OR ${recipes.tag} ILIKE ${pattern})`;
+}
+
+// Trigrams of shorter strings match too much to be useful
+export const FUZZY_MIN_LENGTH = 3;
+
+export function canFuzzySearch(text: string): boolean {
+	return text.trim().length >= FUZZY_MIN_LENGTH;
+}
+
+/**
+ * Typo-tolerant title match: some word run of the title is similar to `text`
+ * (pg_trgm `<%`, pg_trgm.word_similarity_threshold, default 0.6)
+ */
+export function fuzzyTitleMatch(text: string): SQL {
+	return sql`${text} <% ${recipes.title}`;
+}
+
+/**
+ * Relevance for fuzzyTitleMatch results, 0..1 (order DESC)
+ */
+export function fuzzyTitleRank(text: string): SQL<number> {
+	return sql<number>`word_similarity(${text}, ${recipes.title})`;
+}
+
+/*
+ * Ranked search
+ * Ordering every match by ts_rank_cd would read (and detoast) the search_vector of the
+ * whole match set. Instead the GIN index yields a bounded candidate set, the top
+ * SEARCH_CANDIDATE_LIMIT matches with recipes whose title matches the query first, then
+ * by vote_score, and only those are scored and re-ranked. The title test parses the
+ * short title column rather than the stored vector. Queries with fewer matches (most of
+ * them) are ranked exactly; broader ones rank their title matches and most upvoted.
+ */
+
+export const SEARCH_CANDIDATE_LIMIT = 1000;
+
+// Blend weights (sum to 1); each signal is scaled to 0..1
+const TEXT_WEIGHT = 0.6;
+const VOTE_WEIGHT = 0.25;
+const RECENCY_WEIGHT = 0.15;
+// Net votes at which the vote signal reaches 0.5
+const VOTE_HALF_SCORE = 20;
+// Age at which the recency signal halves
+const RECENCY_HALF_LIFE_DAYS = 30;
+
+/**
+ * Blended relevance for a full-text match, higher is better (order DESC)
+ * ts_rank_cd uses the search_vector weights (title A, description B, cuisine/tag C);
+ * normalization 32 scales it to rank / (rank + 1).
+ */
+export function searchRank(language: string, text: string): SQL<number> {
+	return sql<number>`(
+		${TEXT_WEIGHT} * ts_rank_cd(${recipes.searchVector}, plainto_tsquery(recipe_search_config(${language}), ${text}), 32)
+		+ ${VOTE_WEIGHT} * (greatest(${recipes.voteScore}, 0)::float8 / (greatest(${recipes.voteScore}, 0) + ${VOTE_HALF_SCORE}))
+		+ ${RECENCY_WEIGHT} * power(0.5, extract(epoch FROM now() - COALESCE(${recipes.publishedAt}, ${recipes.createdAt})) / ${RECENCY_HALF_LIFE_DAYS * 86400})
+	)`;
+}
+
+/**
+ * The query matches the recipe's title (the weight-A part of search_vector)
+ */
+function titleTextMatch(language: string, text: string): SQL<boolean> {
+	return sql<boolean>`(to_tsvector(recipe_search_config(${language}), ${recipes.title}) @@ plainto_tsquery(recipe_search_config(${language}), ${text}))`;
+}
+
+/**
+ * One page of ranked full-text results (offset paging within the candidate set)
+ * @param where - Listing conditions, including fullTextMatch(language, text)
+ * @returns Up to limit + 1 card rows; the extra row means there is a next page
+ */
+export function selectRankedSearchPage(
+	language: string,
+	text: string,
+	where: SQL | undefined,
+	limit: number,
+	offset: number
+) {
+	const candidates = db
+		.select({ id: recipes.id })
+		.from(recipes)
+		.where(where)
+		.orderBy(desc(titleTextMatch(language, text)), desc(recipes.voteScore))
+		.limit(SEARCH_CANDIDATE_LIMIT)
+		.as('candidates');
+
+	return selectRecipeCards()
+		.innerJoin(candidates, eq(candidates.id, recipes.id))
+		.orderBy(desc(searchRank(language, text)), desc(recipes.id))
+		.limit(Math.max(0, Math.min(limit + 1, SEARCH_CANDIDATE_LIMIT - offset)))
+		.offset(offset);
+}
@@ -0,0 +1,136 @@
+/**
+ * Social graph cache: "does A follow B"
+ * Each user's followed ids are cached as one set (cacheKeys.followSet) and also kept
+ * as a Set in a bounded in-process LRU, so once a viewer's set is warm a membership
+ * check is a hash lookup with no Redis or Postgres round trip. api/follow drops the
+ * follower's set on every change; other instances see the change once their local
+ * copy expires (LOCAL_TTL_MS, like the cache L1).
+ *
+ * Sets are stored under a per-user cache tag, so a load that read Postgres before a
+ * follow/unfollow committed can't write its old set back over the invalidation: the
+ * entry carries the tag version from before the load and no longer matches. Locally,
+ * a load that was in flight during an invalidation is neither kept nor shared with
+ * later callers.
+ *
+ * Users following more than MAX_FOLLOW_SET_SIZE accounts aren't cached as sets;
+ * their checks go through the per-pair follow state loader instead.
+ */
+
+import { db } from '$lib/server/db';
+import { follows } from '$lib/server/db/schema';
+import { eq } from 'drizzle-orm';
+import { cacheDelete, cacheGetOrSet, cacheInvalidateTags, cacheKeys } from '$lib/server/redis/cache';
+import { BoundedCache } from '$lib/server/redis/lru';
+import { createFollowStateLoader } from '$lib/server/loaders';
+
+const MAX_FOLLOW_SET_SIZE = 5000;
+const LOCAL_MAX_SETS = 10000;
+const LOCAL_MAX_BYTES = 32 * 1024 * 1024;
+const LOCAL_TTL_MS = 5000;
+// Rough heap cost of one Set member (short id string plus hash slot)
+const BYTES_PER_MEMBER = 96;
+
+interface StoredFollowSet {
+	ids: string[];
+	/** False when the user follows more than MAX_FOLLOW_SET_SIZE accounts (ids is empty) */
+	complete: boolean;
+}
+
+// null: too large to cache, check pairs instead
+type FollowSet = Set<string> | null;
+
+const localSets = new BoundedCache<FollowSet>({
+	maxEntries: LOCAL_MAX_SETS,
+	maxBytes: LOCAL_MAX_BYTES,
+	sizeOf: (set) => (set ? set.size * BYTES_PER_MEMBER : 8)
+});
+
+interface Load {
+	promise: Promise<FollowSet>;
+	/** Invalidated after the load started */
+	stale: boolean;
+}
+
+// Loads in flight on this instance, by cache key
+const loads = new Map<string, Load>();
+
+function followTag(userId: string): string {
+	return `follows:${userId}`;
+}
+
+async function loadFollowSet(userId: string): Promise<StoredFollowSet> {
+	const rows = await db
+		.select({ followingId: follows.followingId })
+		.from(follows)
+		.where(eq(follows.followerId, userId))
+		.limit(MAX_FOLLOW_SET_SIZE + 1);
+
+	return rows.length > MAX_FOLLOW_SET_SIZE
+		? { ids: [], complete: false }
+		: { ids: rows.map((r) => r.followingId), complete: true };
+}
+
+/**
+ * The set of user ids a user follows (null when too large to cache)
+ * Concurrent loads for the same user on this instance share one read.
+ */
+export async function getFollowSet(userId: string): Promise<FollowSet> {
+	const key = cacheKeys.followSet(userId);
+	const local = localSets.get(key);
+	if (local !== undefined) {
+		return local;
+	}
+
+	const inFlight = loads.get(key);
+	if (inFlight && !inFlight.stale) {
+		return inFlight.promise;
+	}
+
+	const load: Load = { promise: Promise.resolve(null), stale: false };
+	load.promise = (async () => {
+		try {
+			const stored = await cacheGetOrSet(key, 'followSet', () => loadFollowSet(userId), {
+				tags: [followTag(userId)]
+			});
+			const set = stored.complete ? new Set(stored.ids) : null;
+			if (!load.stale) {
+				localSets.set(key, set, LOCAL_TTL_MS);
+			}
+			return set;
+		} finally {
+			if (loads.get(key) === load) {
+				loads.delete(key);
+			}
+		}
+	})();
+	loads.set(key, load);
+	return load.promise;
+}
+
+/**
+ * Whether followerId follows followingId
+ */
+export async function isFollowing(followerId: string, followingId: string): Promise<boolean> {
+	const set = await getFollowSet(followerId);
+	if (set) {
+		return set.has(followingId);
+	}
+	return (await createFollowStateLoader(followerId).load(followingId)) ?? false;
+}
+
+/**
+ * Drop cached follow state after followerId followed or unfollowed followingId
+ */
+export async function invalidateFollowState(followerId: string, followingId: string): Promise<void> {
+	const key = cacheKeys.followSet(followerId);
+	localSets.delete(key);
+	const inFlight = loads.get(key);
+	if (inFlight) {
+		inFlight.stale = true;
+	}
+	await Promise.all([
+		cacheInvalidateTags(followTag(followerId)),
+		cacheDelete(key),
+		cacheDelete(cacheKeys.followState(followerId, followingId))
+	]);
+}
@@ -66,8 +66,8 @@ function validateEnvironment(): ValidationResult {
 	}
 
 	// Redis (optional - falls back to in-memory)
-	if (!env.UPSTASH_REDIS_REST_URL || !env.UPSTASH_REDIS_REST_TOKEN) {
-		warnings.push('Redis not configured (UPSTASH_REDIS_REST_URL, UPSTASH_REDIS_REST_TOKEN) - using in-memory rate limiting/caching');
+	if (!env.REDIS_URL && (!env.UPSTASH_REDIS_REST_URL || !env.UPSTASH_REDIS_REST_TOKEN)) {
+		warnings.push('Redis not configured (REDIS_URL or UPSTASH_REDIS_REST_URL, UPSTASH_REDIS_REST_TOKEN) - using in-memory rate limiting/caching');
 	}
 
 	// OpenAI (optional - moderation will use fallback behavior)
@@ -0,0 +1,33 @@
+/**
+ * Periodic log of in-process cache and rate-limit counters
+ * Hit/miss counts and fallback store occupancy are internal: they show how close the
+ * in-memory rate limiter is to its overflow window, so they go to the logs rather than
+ * the unauthenticated /api/health endpoint.
+ */
+
+import { env } from '$env/dynamic/private';
+import { logger } from '$lib/server/logger';
+import { getCacheStats } from '$lib/server/redis/cache';
+import { getInMemoryRateLimitStats } from '$lib/server/rateLimit';
+
+const STATS_LOG_INTERVAL_MS = parseInt(env.STATS_LOG_INTERVAL_MS || '300000', 10) || 0;
+
+let timer: ReturnType<typeof setInterval> | null = null;
+
+/**
+ * Log cache and rate-limit stats on an interval (STATS_LOG_INTERVAL_MS, default 300000, 0 disables)
+ */
+export function startStatsLogJob(): void {
+	if (timer || STATS_LOG_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	timer = setInterval(() => {
+		logger.info('Process stats', {
+			cache: getCacheStats(),
+			rateLimitMemory: getInMemoryRateLimitStats()
+		});
+	}, STATS_LOG_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -0,0 +1,219 @@
+/**
+ * Search suggestions (typeahead)
+ * Recipe titles, tags and chefs are loaded from Postgres into in-memory prefix indexes
+ * (see ./prefixIndex) and rebuilt on an interval, so a keystroke never reaches the
+ * database. Responses are also kept per (language, prefix) in a bounded map that is
+ * dropped whenever the indexes are swapped.
+ *
+ * Each instance holds its own copy; suggestions are at most one refresh interval stale.
+ */
+
+import { sql } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { logger } from '$lib/server/logger';
+import { PrefixIndex, normalizeSuggestText, type PrefixEntry } from './prefixIndex';
+
+export { normalizeSuggestText } from './prefixIndex';
+
+const REFRESH_INTERVAL_MS = parseInt(env.SUGGEST_REFRESH_MS || '300000', 10) || 0;
+// Most-upvoted published recipes indexed per language
+const MAX_RECIPES_PER_LANGUAGE = parseInt(env.SUGGEST_MAX_RECIPES || '20000', 10) || 20000;
+const MAX_CHEFS = 20000;
+// Bound on cached responses (distinct language + prefix pairs)
+const RESPONSE_CACHE_SIZE = 10000;
+
+export const MAX_SUGGESTIONS = 8;
+
+export interface RecipeSuggestion {
+	title: string;
+	slug: string;
+}
+
+export interface ChefSuggestion {
+	username: string;
+	name: string;
+}
+
+export interface Suggestions {
+	recipes: RecipeSuggestion[];
+	tags: string[];
+	chefs: ChefSuggestion[];
+}
+
+interface SuggestIndexes {
+	recipes: Map<string, PrefixIndex<RecipeSuggestion>>;
+	tags: Map<string, PrefixIndex<string>>;
+	chefs: PrefixIndex<ChefSuggestion>;
+	responses: Map<string, Suggestions>;
+}
+
+let indexes: SuggestIndexes | null = null;
+let building: Promise<SuggestIndexes> | null = null;
+
+function groupByLanguage<R extends { language: string }, V>(
+	rows: R[],
+	toEntry: (row: R) => PrefixEntry<V>
+): Map<string, PrefixEntry<V>[]> {
+	const grouped = new Map<string, PrefixEntry<V>[]>();
+	for (const row of rows) {
+		let entries = grouped.get(row.language);
+		if (!entries) {
+			entries = [];
+			grouped.set(row.language, entries);
+		}
+		entries.push(toEntry(row));
+	}
+	return grouped;
+}
+
+async function buildIndexes(): Promise<SuggestIndexes> {
+	const started = Date.now();
+
+	const recipeRows = await db.execute<{ language: string; title: string; slug: string; upvotes: number }>(sql`
+		SELECT "language", "title", "slug", "upvotes" FROM (
+			SELECT "language", "title", "slug", "upvotes",
+				row_number() OVER (PARTITION BY "language" ORDER BY "upvotes" DESC, "id" DESC) AS "rank"
+			FROM "recipes"
+			WHERE "is_published"
+		) r
+		WHERE "rank" <= ${MAX_RECIPES_PER_LANGUAGE}
+	`);
+
+	const tagRows = await db.execute<{ language: string; tag: string; uses: number }>(sql`
+		SELECT "language", "tag", count(*)::int AS "uses"
+		FROM "recipes"
+		WHERE "is_published" AND "tag" IS NOT NULL AND "tag" <> ''
+		GROUP BY "language", "tag"
+	`);
+
+	// Chefs with published recipes, most upvoted first
+	const chefRows = await db.execute<{ username: string; name: string | null; upvotes: number }>(sql`
+		SELECT u."username", COALESCE(u."full_name", u."name") AS "name", SUM(r."upvotes")::int AS "upvotes"
+		FROM "recipes" r
+		INNER JOIN "user" u ON u."id" = r."author_id"
+		WHERE r."is_published" AND u."username" IS NOT NULL
+		GROUP BY u."id", u."username", u."full_name", u."name"
+		ORDER BY "upvotes" DESC
+		LIMIT ${MAX_CHEFS}
+	`);
+
+	const recipes = new Map<string, PrefixIndex<RecipeSuggestion>>();
+	for (const [language, entries] of groupByLanguage(recipeRows, (row): PrefixEntry<RecipeSuggestion> => ({
+		texts: [row.title],
+		score: row.upvotes,
+		value: { title: row.title, slug: row.slug }
+	}))) {
+		recipes.set(language, new PrefixIndex(entries, MAX_SUGGESTIONS));
+	}
+
+	const tags = new Map<string, PrefixIndex<string>>();
+	for (const [language, entries] of groupByLanguage(tagRows, (row): PrefixEntry<string> => ({
+		texts: [row.tag],
+		score: row.uses,
+		value: row.tag
+	}))) {
+		tags.set(language, new PrefixIndex(entries, MAX_SUGGESTIONS));
+	}
+
+	const chefs = new PrefixIndex<ChefSuggestion>(
+		chefRows.map((row) => ({
+			texts: row.name ? [row.username, row.name] : [row.username],
+			score: row.upvotes,
+			value: { username: row.username, name: row.name || row.username }
+		})),
+		MAX_SUGGESTIONS
+	);
+
+	logger.debug('Suggestion indexes built', {
+		recipes: recipeRows.length,
+		tags: tagRows.length,
+		chefs: chefRows.length,
+		durationMs: Date.now() - started
+	});
+
+	return { recipes, tags, chefs, responses: new Map() };
+}
+
+/**
+ * Build the indexes and swap them in (concurrent callers share one build)
+ */
+export async function refreshSuggestIndexes(): Promise<SuggestIndexes> {
+	if (!building) {
+		building = buildIndexes()
+			.then((built) => {
+				indexes = built;
+				return built;
+			})
+			.finally(() => {
+				building = null;
+			});
+	}
+	return building;
+}
+
+/**
+ * Suggestions for a typed prefix
+ * "#pref" only suggests tags and "@pref" only chefs.
+ */
+export async function getSuggestions(query: string, language: string, limit = MAX_SUGGESTIONS): Promise<Suggestions> {
+	const current = indexes ?? (await refreshSuggestIndexes());
+
+	const trimmed = query.trim();
+	const only = trimmed.startsWith('#') ? 'tags' : trimmed.startsWith('@') ? 'chefs' : null;
+	const prefix = normalizeSuggestText(only ? trimmed.slice(1) : trimmed);
+	const n = Math.min(Math.max(limit, 1), MAX_SUGGESTIONS);
+
+	const cacheKey = `${language}\u0000${only ?? ''}\u0000${n}\u0000${prefix}`;
+	const cached = current.responses.get(cacheKey);
+	if (cached) {
+		// Re-insert to keep recently used prefixes at the end (LRU order)
+		current.responses.delete(cacheKey);
+		current.responses.set(cacheKey, cached);
+		return cached;
+	}
+
+	const suggestions: Suggestions = {
+		recipes: only ? [] : (current.recipes.get(language)?.lookup(prefix, n) ?? []),
+		tags: only === 'chefs' ? [] : (current.tags.get(language)?.lookup(prefix, n) ?? []),
+		chefs: only === 'tags' ? [] : current.chefs.lookup(prefix, n)
+	};
+
+	current.responses.set(cacheKey, suggestions);
+	if (current.responses.size > RESPONSE_CACHE_SIZE) {
+		// Evict the least recently used entry
+		current.responses.delete(current.responses.keys().next().value!);
+	}
+
+	return suggestions;
+}
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Rebuild the suggestion indexes on an interval (SUGGEST_REFRESH_MS, default 300000, 0 disables)
+ * With the job disabled, the indexes are built on the first request and never refreshed.
+ */
+export function startSuggestIndexJob(): void {
+	if (timer || REFRESH_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	const run = async () => {
+		if (running) return;
+		running = true;
+		try {
+			await refreshSuggestIndexes();
+		} catch (error) {
+			logger.error('Suggestion index refresh failed', error);
+		} finally {
+			running = false;
+		}
+	};
+
+	void run();
+	timer = setInterval(() => void run(), REFRESH_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -0,0 +1,129 @@
+/**
+ * In-memory word-prefix index for typeahead
+ * Every word start of an entry's normalized text is a key ("cacio e pepe" is found by
+ * "cac", "e p" and "pep"). Keys are kept in one sorted array, so a lookup is a binary
+ * search plus a scan of the matching range. Entries are numbered by score (0 = best), so
+ * the top results are the smallest ids in the range; for 1-2 character prefixes, whose
+ * ranges are the largest, the top ids are precomputed.
+ */
+
+// Longer queries are truncated; a key longer than this can't narrow results further
+export const MAX_PREFIX_LENGTH = 32;
+const PRECOMPUTED_PREFIX_LENGTH = 2;
+
+export interface PrefixEntry<T> {
+	/** Texts the entry is found by (e.g. a chef's username and full name) */
+	texts: string[];
+	/** Higher is better */
+	score: number;
+	value: T;
+}
+
+/**
+ * Lowercase, strip diacritics (crème -> creme) and collapse everything that isn't a
+ * letter or digit into single spaces
+ */
+export function normalizeSuggestText(text: string): string {
+	return text
+		.normalize('NFKD')
+		.replace(/\p{M}+/gu, '')
+		.toLowerCase()
+		.split(/[^\p{L}\p{N}]+/u)
+		.filter(Boolean)
+		.join(' ');
+}
+
+/**
+ * Insert id into an ascending list of at most `limit` ids (no duplicates)
+ */
+function insertTop(top: number[], id: number, limit: number): void {
+	let i = top.length;
+	while (i > 0 && top[i - 1] > id) i--;
+	if (i > 0 && top[i - 1] === id) return;
+	if (i >= limit) return;
+	top.splice(i, 0, id);
+	if (top.length > limit) top.pop();
+}
+
+export class PrefixIndex<T> {
+	private readonly values: T[];
+	private readonly keys: string[];
+	private readonly ids: Int32Array;
+	private readonly precomputed = new Map<string, number[]>();
+
+	/**
+	 * @param maxResults - Most results any lookup returns (sizes the precomputed lists)
+	 */
+	constructor(entries: PrefixEntry<T>[], private readonly maxResults: number) {
+		const ranked = [...entries].sort((a, b) => b.score - a.score);
+		this.values = ranked.map((entry) => entry.value);
+
+		const pairs: [string, number][] = [];
+		ranked.forEach((entry, id) => {
+			for (const text of entry.texts) {
+				const normalized = normalizeSuggestText(text);
+				for (let i = 0; i < normalized.length; i++) {
+					if (i === 0 || normalized[i - 1] === ' ') {
+						pairs.push([normalized.slice(i, i + MAX_PREFIX_LENGTH), id]);
+					}
+				}
+			}
+		});
+		pairs.sort((a, b) => (a[0] < b[0] ? -1 : a[0] > b[0] ? 1 : a[1] - b[1]));
+
+		this.keys = pairs.map((pair) => pair[0]);
+		this.ids = Int32Array.from(pairs, (pair) => pair[1]);
+
+		for (let i = 0; i < this.keys.length; i++) {
+			for (let n = 1; n <= PRECOMPUTED_PREFIX_LENGTH && n <= this.keys[i].length; n++) {
+				const prefix = this.keys[i].slice(0, n);
+				let top = this.precomputed.get(prefix);
+				if (!top) {
+					top = [];
+					this.precomputed.set(prefix, top);
+				}
+				insertTop(top, this.ids[i], maxResults);
+			}
+		}
+	}
+
+	get size(): number {
+		return this.values.length;
+	}
+
+	/**
+	 * Best-scored entries with a word starting with `prefix` (already normalized)
+	 */
+	lookup(prefix: string, limit: number): T[] {
+		const p = prefix.slice(0, MAX_PREFIX_LENGTH);
+		const n = Math.min(limit, this.maxResults);
+		if (!p || n <= 0) return [];
+
+		let top: number[];
+		if (p.length <= PRECOMPUTED_PREFIX_LENGTH) {
+			top = this.precomputed.get(p) ?? [];
+		} else {
+			top = [];
+			for (let i = this.lowerBound(p); i < this.keys.length && this.keys[i].startsWith(p); i++) {
+				insertTop(top, this.ids[i], n);
+			}
+		}
+
+		const results: T[] = [];
+		for (let i = 0; i < top.length && results.length < n; i++) {
+			results.push(this.values[top[i]]);
+		}
+		return results;
+	}
+
+	private lowerBound(p: string): number {
+		let lo = 0;
+		let hi = this.keys.length;
+		while (lo < hi) {
+			const mid = (lo + hi) >>> 1;
+			if (this.keys[mid] < p) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+}
@@ -0,0 +1,144 @@
+/**
+ * Following feed (home timeline)
+ * Fan-out on write: publishing a recipe inserts it into every follower's inbox
+ * (timeline_entries), so a feed page is one keyset range read of the reader's rows.
+ * Authors with more than FANOUT_MAX_FOLLOWERS followers are marked as pull authors
+ * instead, and their recent recipes are merged in at read time (fan-out on read).
+ *
+ * Following an author backfills their recent recipes into the inbox; unfollowing
+ * prunes them. Inboxes are trimmed to TIMELINE_MAX_ENTRIES by ./trim.
+ */
+
+import { sql } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { recipes } from '$lib/server/db/schema';
+import { uuidArray } from '$lib/server/db/sql';
+import { selectRecipeCards, type RecipeCardRow } from '$lib/server/recipeCards';
+import { encodeCursor, type Cursor } from '$lib/server/pagination';
+
+import { TIMELINE_MAX_ENTRIES } from './trim';
+
+export { TIMELINE_MAX_ENTRIES, trimTimelines, startTimelineTrimJob } from './trim';
+
+// Sort name recorded in feed cursors
+export const TIMELINE_SORT = 'timeline';
+const FANOUT_MAX_FOLLOWERS = parseInt(env.TIMELINE_FANOUT_MAX_FOLLOWERS || '10000', 10) || 10000;
+
+/**
+ * Push a newly published recipe into its author's followers' inboxes
+ * Call after the publishing transaction commits.
+ */
+export async function fanOutRecipe(recipeId: string, authorId: string): Promise<void> {
+	// Denormalized follower count (maintained by api/follow)
+	const [followers] = await db.execute<{ count: number }>(sql`
+		SELECT "follower_count" AS "count" FROM "user" WHERE "id" = ${authorId}
+	`);
+
+	if ((followers?.count ?? 0) > FANOUT_MAX_FOLLOWERS) {
+		await db.execute(sql`
+			INSERT INTO "timeline_pull_authors" ("author_id") VALUES (${authorId})
+			ON CONFLICT ("author_id") DO NOTHING
+		`);
+		return;
+	}
+
+	await db.execute(sql`
+		INSERT INTO "timeline_entries" ("user_id", "recipe_id", "author_id", "published_at")
+		SELECT f."follower_id", r."id", r."author_id", COALESCE(r."published_at", r."created_at")
+		FROM "recipes" r
+		INNER JOIN "follows" f ON f."following_id" = r."author_id"
+		WHERE r."id" = ${recipeId} AND r."is_published"
+		  AND NOT EXISTS (SELECT 1 FROM "timeline_pull_authors" p WHERE p."author_id" = r."author_id")
+		ON CONFLICT ("user_id", "recipe_id") DO NOTHING
+	`);
+}
+
+/**
+ * Copy an author's recent recipes into a new follower's inbox
+ */
+export async function backfillTimeline(followerId: string, authorId: string): Promise<void> {
+	await db.execute(sql`
+		INSERT INTO "timeline_entries" ("user_id", "recipe_id", "author_id", "published_at")
+		SELECT ${followerId}, r."id", r."author_id", r."published_at"
+		FROM (
+			SELECT "id", "author_id", COALESCE("published_at", "created_at") AS "published_at"
+			FROM "recipes"
+			WHERE "author_id" = ${authorId} AND "is_published"
+			ORDER BY "published_at" DESC NULLS LAST
+			LIMIT ${TIMELINE_MAX_ENTRIES}
+		) r
+		WHERE NOT EXISTS (SELECT 1 FROM "timeline_pull_authors" p WHERE p."author_id" = ${authorId})
+		ON CONFLICT ("user_id", "recipe_id") DO NOTHING
+	`);
+}
+
+/**
+ * Remove an unfollowed author's recipes from the inbox
+ */
+export async function pruneTimeline(followerId: string, authorId: string): Promise<void> {
+	await db.execute(sql`
+		DELETE FROM "timeline_entries" WHERE "user_id" = ${followerId} AND "author_id" = ${authorId}
+	`);
+}
+
+/**
+ * One feed page, newest first
+ * Inbox entries and recipes of followed pull authors are each read as a keyset range
+ * of limit + 1 rows, then merged; unpublished recipes are skipped.
+ * @returns Card rows in feed order and the cursor for the next page (null on the last)
+ */
+export async function getTimelinePage(
+	userId: string,
+	cursor: Cursor | null,
+	limit: number
+): Promise<{ rows: RecipeCardRow[]; nextCursor: string | null }> {
+	const inboxAfter = cursor
+		? sql`AND (t."published_at", t."recipe_id") < (${cursor.value}::timestamptz, ${cursor.id}::uuid)`
+		: sql``;
+	const pullAfter = cursor
+		? sql`AND (r."published_at", r."id") < (${cursor.value}::timestamptz, ${cursor.id}::uuid)`
+		: sql``;
+
+	const page = await db.execute<{ recipe_id: string; published_at: string }>(sql`
+		SELECT "recipe_id", "published_at"::text AS "published_at" FROM (
+			(
+				SELECT t."recipe_id", t."published_at"
+				FROM "timeline_entries" t
+				INNER JOIN "recipes" r ON r."id" = t."recipe_id" AND r."is_published"
+				WHERE t."user_id" = ${userId} ${inboxAfter}
+				ORDER BY t."published_at" DESC, t."recipe_id" DESC
+				LIMIT ${limit + 1}
+			)
+			UNION
+			(
+				SELECT pr."id", pr."published_at"
+				FROM "timeline_pull_authors" p
+				INNER JOIN "follows" f ON f."following_id" = p."author_id" AND f."follower_id" = ${userId}
+				CROSS JOIN LATERAL (
+					SELECT r."id", r."published_at"
+					FROM "recipes" r
+					WHERE r."author_id" = p."author_id" AND r."is_published" AND r."published_at" IS NOT NULL ${pullAfter}
+					ORDER BY r."published_at" DESC, r."id" DESC
+					LIMIT ${limit + 1}
+				) pr
+			)
+		) "feed"
+		ORDER BY "feed"."published_at" DESC, "recipe_id" DESC
+		LIMIT ${limit + 1}
+	`);
+
+	const entries = page.slice(0, limit);
+	const ids = entries.map((entry) => entry.recipe_id);
+
+	const cards = ids.length > 0
+		? await selectRecipeCards().where(sql`${recipes.id} = ANY(${uuidArray(ids)})`)
+		: [];
+	const cardsById = new Map(cards.map((card) => [card.id, card]));
+
+	const last = entries[entries.length - 1];
+	return {
+		rows: ids.map((id) => cardsById.get(id)).filter((card): card is RecipeCardRow => card !== undefined),
+		nextCursor: page.length > limit && last ? encodeCursor(TIMELINE_SORT, last.published_at, last.recipe_id) : null
+	};
+}
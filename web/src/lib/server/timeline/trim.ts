@@ -0,0 +1,86 @@
+/**
+ * Timeline inbox trim
+ * Fan-out only appends, so inboxes are cut back to the newest TIMELINE_MAX_ENTRIES rows
+ * on an interval instead of on every publish. Feed reads never get near the tail, so
+ * inboxes running over the limit between runs is harmless.
+ *
+ * A Postgres advisory lock makes sure only one instance trims at a time.
+ */
+
+import { sql } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { logger } from '$lib/server/logger';
+
+// Entries kept per inbox (older entries are trimmed; the feed ends there)
+export const TIMELINE_MAX_ENTRIES = 500;
+// Arbitrary application-wide advisory lock id for this job
+const ADVISORY_LOCK_ID = 72810004;
+const TRIM_INTERVAL_MS = parseInt(env.TIMELINE_TRIM_MS || '3600000', 10) || 0;
+
+/**
+ * Delete inbox entries beyond the newest TIMELINE_MAX_ENTRIES per user
+ * @returns Number of deleted entries, or null if another instance holds the lock
+ */
+export async function trimTimelines(): Promise<number | null> {
+	return db.transaction(async (tx) => {
+		const [lock] = await tx.execute<{ locked: boolean }>(
+			sql`SELECT pg_try_advisory_xact_lock(${ADVISORY_LOCK_ID}) AS "locked"`
+		);
+		if (!lock?.locked) {
+			return null;
+		}
+
+		// Only users over the limit are ranked
+		const result = await tx.execute(sql`
+			DELETE FROM "timeline_entries" t
+			USING (
+				SELECT "user_id", "recipe_id" FROM (
+					SELECT e."user_id", e."recipe_id",
+						row_number() OVER (PARTITION BY e."user_id" ORDER BY e."published_at" DESC, e."recipe_id" DESC) AS "rank"
+					FROM "timeline_entries" e
+					WHERE e."user_id" IN (
+						SELECT "user_id" FROM "timeline_entries" GROUP BY "user_id" HAVING count(*) > ${TIMELINE_MAX_ENTRIES}
+					)
+				) ranked
+				WHERE "rank" > ${TIMELINE_MAX_ENTRIES}
+			) excess
+			WHERE t."user_id" = excess."user_id" AND t."recipe_id" = excess."recipe_id"
+		`);
+
+		return result.count;
+	});
+}
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Trim timeline inboxes on an interval (TIMELINE_TRIM_MS, default 1h, 0 disables)
+ * Safe to call on every instance; the advisory lock keeps runs exclusive.
+ */
+export function startTimelineTrimJob(): void {
+	if (timer || TRIM_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	const run = async () => {
+		if (running) return;
+		running = true;
+		try {
+			const trimmed = await trimTimelines();
+			if (trimmed) {
+				logger.debug('Timeline inboxes trimmed', { trimmed });
+			}
+		} catch (error) {
+			logger.error('Timeline trim failed', error);
+		} finally {
+			running = false;
+		}
+	};
+
+	void run();
+	timer = setInterval(() => void run(), TRIM_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -0,0 +1,53 @@
+/**
+ * Periodic vote counter reconciliation
+ * Repairs recipes whose denormalized counters drifted from votes (e.g. a write that
+ * bypassed the vote handler) and drops their cached stats.
+ */
+
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { logger } from '$lib/server/logger';
+import { cacheDelete, cacheKeys } from '$lib/server/redis/cache';
+import { VOTE_DRIFT_SETTLE_MS } from '$lib/server/votes';
+import { reconcileVoteCounters } from './reconcile';
+
+export { reconcileVoteCounters, type VoteCounterReport, type VoteCounterDrift } from './reconcile';
+
+const CHECK_INTERVAL_MS = parseInt(env.VOTE_COUNTER_CHECK_MS || '3600000', 10) || 0;
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Check and repair vote counters on an interval (VOTE_COUNTER_CHECK_MS, default 1h, 0 disables)
+ * Safe to call on every instance; the advisory lock keeps runs exclusive.
+ */
+export function startVoteCounterCheckJob(): void {
+	if (timer || CHECK_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	const run = async () => {
+		if (running) return;
+		running = true;
+		try {
+			const report = await reconcileVoteCounters(db, { repair: true, settleMs: VOTE_DRIFT_SETTLE_MS });
+			if (report && report.repaired.length > 0) {
+				logger.warn('Vote counters drifted from votes; repaired', {
+					repaired: report.repaired.length,
+					sample: report.drifted.slice(0, 10)
+				});
+				await Promise.all(report.repaired.map((id) => cacheDelete(cacheKeys.recipeStats(id))));
+			}
+		} catch (error) {
+			logger.error('Vote counter check failed', error);
+		} finally {
+			running = false;
+		}
+	};
+
+	// First check after one interval; it scans all votes, so don't run it on every boot
+	timer = setInterval(() => void run(), CHECK_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -0,0 +1,227 @@
+/**
+ * Vote counter consistency check
+ * recipes.upvotes/downvotes/vote_score/hot_score are maintained incrementally by the
+ * vote handler; this recounts them from votes and optionally repairs drifted rows,
+ * rebuilding their vote buckets and week/month windows from votes as well.
+ *
+ * In write-behind mode counters legitimately trail votes by the unflushed deltas, so
+ * drift is only repaired once it has stayed the same for settleMs (e.g. deltas lost
+ * when an instance crashed before flushing).
+ *
+ * No SvelteKit imports so scripts/check-vote-counters.ts can run it directly.
+ */
+
+import { sql } from 'drizzle-orm';
+import type { PostgresJsDatabase } from 'drizzle-orm/postgres-js';
+import type * as schema from '../db/schema';
+import { uuidArray } from '../db/sql';
+
+type Database = PostgresJsDatabase<typeof schema>;
+type Executor = Pick<Database, 'execute'>;
+
+// Arbitrary application-wide advisory lock id (rankings refresh uses 72810001)
+const ADVISORY_LOCK_ID = 72810002;
+const JOB_NAME = 'vote_counters';
+const DEFAULT_MAX_REPAIRS = 1000;
+
+export interface VoteCounterDrift {
+	recipeId: string;
+	upvotes: number;
+	downvotes: number;
+	voteScore: number;
+	actualUpvotes: number;
+	actualDownvotes: number;
+}
+
+export interface VoteCounterReport {
+	drifted: VoteCounterDrift[];
+	repaired: string[];
+}
+
+export interface ReconcileOptions {
+	/** Rewrite drifted counters (default: report only) */
+	repair?: boolean;
+	/** Upper bound on rows reported/repaired per run */
+	maxRepairs?: number;
+	/** Only report/repair drift that is unchanged after this many ms (write-behind mode) */
+	settleMs?: number;
+}
+
+interface DriftRow {
+	recipe_id: string;
+	upvotes: number;
+	downvotes: number;
+	vote_score: number;
+	actual_upvotes: number;
+	actual_downvotes: number;
+}
+
+/**
+ * Recipes whose counters don't match a recount of votes
+ * One hash aggregate over votes; recipes without votes must be at zero
+ */
+function findDrift(executor: Executor, limit: number): Promise<DriftRow[]> {
+	return executor.execute<DriftRow>(sql`
+		SELECT
+			r."id" AS "recipe_id", r."upvotes", r."downvotes", r."vote_score",
+			COALESCE(v."up", 0)::int AS "actual_upvotes",
+			COALESCE(v."down", 0)::int AS "actual_downvotes"
+		FROM "recipes" r
+		LEFT JOIN (
+			SELECT
+				"recipe_id",
+				COUNT(*) FILTER (WHERE "value" > 0) AS "up",
+				COUNT(*) FILTER (WHERE "value" < 0) AS "down"
+			FROM "votes"
+			GROUP BY "recipe_id"
+		) v ON v."recipe_id" = r."id"
+		WHERE r."upvotes" <> COALESCE(v."up", 0)
+		   OR r."downvotes" <> COALESCE(v."down", 0)
+		   OR r."vote_score" <> COALESCE(v."up", 0) - COALESCE(v."down", 0)
+		   OR ABS(r."hot_score" - recipe_hot_score(r."vote_score", r."published_at")) > 1e-9
+		LIMIT ${limit}
+	`);
+}
+
+function sameDrift(a: DriftRow, b: DriftRow): boolean {
+	return (
+		a.upvotes === b.upvotes &&
+		a.downvotes === b.downvotes &&
+		a.vote_score === b.vote_score &&
+		a.actual_upvotes === b.actual_upvotes &&
+		a.actual_downvotes === b.actual_downvotes
+	);
+}
+
+/**
+ * Recount votes and compare against the denormalized counters
+ * @returns The report, or null if another instance holds the lock
+ */
+export async function reconcileVoteCounters(
+	database: Database,
+	options: ReconcileOptions = {}
+): Promise<VoteCounterReport | null> {
+	const maxRepairs = options.maxRepairs ?? DEFAULT_MAX_REPAIRS;
+
+	// Write-behind: take a first look, then let every instance flush before comparing
+	let earlier: Map<string, DriftRow> | null = null;
+	if (options.settleMs && options.settleMs > 0) {
+		const first = await findDrift(database, maxRepairs);
+		earlier = new Map(first.map((row) => [row.recipe_id, row]));
+		if (first.length > 0) {
+			await new Promise((resolve) => setTimeout(resolve, options.settleMs));
+		}
+	}
+
+	return database.transaction(async (tx) => {
+		const [lock] = await tx.execute<{ locked: boolean }>(
+			sql`SELECT pg_try_advisory_xact_lock(${ADVISORY_LOCK_ID}) AS "locked"`
+		);
+		if (!lock?.locked) {
+			return null;
+		}
+
+		let rows = await findDrift(tx, maxRepairs);
+		if (earlier) {
+			// Drift that changed meanwhile is still being flushed (or voted on)
+			const settled = earlier;
+			rows = rows.filter((row) => {
+				const before = settled.get(row.recipe_id);
+				return before !== undefined && sameDrift(before, row);
+			});
+		}
+
+		const drifted: VoteCounterDrift[] = rows.map((row) => ({
+			recipeId: row.recipe_id,
+			upvotes: row.upvotes,
+			downvotes: row.downvotes,
+			voteScore: row.vote_score,
+			actualUpvotes: row.actual_upvotes,
+			actualDownvotes: row.actual_downvotes
+		}));
+
+		let repaired: string[] = [];
+
+		if (options.repair && drifted.length > 0) {
+			const ids = drifted.map((d) => d.recipeId);
+
+			// Lock the rows before recounting: a vote transaction that already inserted
+			// its vote but hasn't bumped the counters blocks here, and its increment then
+			// applies on top of a count that excludes its (uncommitted) vote.
+			await tx.execute(sql`
+				SELECT "id" FROM "recipes" WHERE "id" = ANY(${uuidArray(ids)}) ORDER BY "id" FOR UPDATE
+			`);
+
+			// Fresh statement, fresh snapshot: recount under the row locks
+			const updated = await tx.execute<{ id: string }>(sql`
+				UPDATE "recipes" r SET
+					"upvotes" = c."up",
+					"downvotes" = c."down",
+					"vote_score" = c."up" - c."down",
+					"hot_score" = recipe_hot_score(c."up" - c."down", r."published_at")
+				FROM (
+					SELECT
+						rc."id",
+						COUNT(v."recipe_id") FILTER (WHERE v."value" > 0)::int AS "up",
+						COUNT(v."recipe_id") FILTER (WHERE v."value" < 0)::int AS "down"
+					FROM "recipes" rc
+					LEFT JOIN "votes" v ON v."recipe_id" = rc."id"
+					WHERE rc."id" = ANY(${uuidArray(ids)})
+					GROUP BY rc."id"
+				) c
+				WHERE r."id" = c."id"
+				RETURNING r."id"
+			`);
+			repaired = updated.map((row) => row.id);
+
+			// Buckets hold the current votes per UTC day they were cast (last 30 days)
+			if (repaired.length > 0) {
+				await tx.execute(sql`DELETE FROM "recipe_vote_buckets" WHERE "recipe_id" = ANY(${uuidArray(repaired)})`);
+				await tx.execute(sql`
+					INSERT INTO "recipe_vote_buckets" ("recipe_id", "day", "upvotes", "downvotes")
+					SELECT
+						"recipe_id",
+						("created_at" AT TIME ZONE 'UTC')::date,
+						COUNT(*) FILTER (WHERE "value" > 0)::int,
+						COUNT(*) FILTER (WHERE "value" < 0)::int
+					FROM "votes"
+					WHERE "recipe_id" = ANY(${uuidArray(repaired)})
+					  AND ("created_at" AT TIME ZONE 'UTC')::date > (now() AT TIME ZONE 'UTC')::date - 30
+					GROUP BY 1, 2
+				`);
+				await tx.execute(sql`
+					UPDATE "recipes" r SET
+						"week_upvotes" = w."week_upvotes",
+						"month_upvotes" = w."month_upvotes"
+					FROM (
+						SELECT
+							rc."id",
+							COALESCE(SUM(b."upvotes") FILTER (WHERE b."day" > (now() AT TIME ZONE 'UTC')::date - 7), 0)::int AS "week_upvotes",
+							COALESCE(SUM(b."upvotes"), 0)::int AS "month_upvotes"
+						FROM "recipes" rc
+						LEFT JOIN "recipe_vote_buckets" b ON b."recipe_id" = rc."id"
+						WHERE rc."id" = ANY(${uuidArray(repaired)})
+						GROUP BY rc."id"
+					) w
+					WHERE r."id" = w."id"
+				`);
+			}
+
+			// Counter changes don't fire the votes trigger; queue the rankings refresh
+			if (repaired.length > 0) {
+				await tx.execute(sql`
+					INSERT INTO "recipe_ranking_queue" ("recipe_id")
+					SELECT "id" FROM "recipes" WHERE "id" = ANY(${uuidArray(repaired)})
+					ON CONFLICT DO NOTHING
+				`);
+			}
+		}
+
+		await tx.execute(sql`
+			INSERT INTO "job_runs" ("name", "last_run_at") VALUES (${JOB_NAME}, now())
+			ON CONFLICT ("name") DO UPDATE SET "last_run_at" = EXCLUDED."last_run_at"
+		`);
+
+		return { drifted, repaired };
+	});
+}
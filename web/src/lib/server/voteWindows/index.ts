@@ -0,0 +1,11 @@
+/**
+ * Rolling 7/30-day upvote windows (recipes.week_upvotes/month_upvotes)
+ * The vote endpoint records every vote change in a per-day bucket and bumps the
+ * window columns in the same statement ($lib/server/votes/apply); the rollup job only
+ * has to correct recipes whose buckets aged out of a window.
+ *
+ * Removing a vote older than 30 days doesn't touch the buckets or windows: its bucket
+ * has been pruned and it is not counted in either window.
+ */
+
+export { rollupVoteWindows, startVoteWindowRollupJob } from './rollup';
@@ -0,0 +1,153 @@
+/**
+ * Vote window rollup
+ * Once a UTC day passes, the buckets from 7 and 30 days ago leave the week/month
+ * windows. Only recipes with such buckets are recomputed (from the remaining buckets),
+ * then buckets older than 30 days are pruned. Runs that stay within the same UTC day
+ * as the last one do nothing.
+ *
+ * A Postgres advisory lock makes sure only one instance rolls up at a time.
+ */
+
+import { sql, type SQL } from 'drizzle-orm';
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { logger } from '$lib/server/logger';
+
+const JOB_NAME = 'vote_windows';
+// Arbitrary application-wide advisory lock id for this job
+const ADVISORY_LOCK_ID = 72810003;
+const ROLLUP_INTERVAL_MS = parseInt(env.VOTE_WINDOWS_ROLLUP_MS || '600000', 10) || 0;
+
+/**
+ * Bind an id list as one uuid[] parameter (a day's worth of recipes can exceed the
+ * bind parameter limit that IN (...) would hit)
+ */
+function uuidArray(ids: string[]): SQL {
+	return sql`string_to_array(${ids.join(',')}, ',')::uuid[]`;
+}
+
+export interface VoteWindowRollupResult {
+	full: boolean;
+	recomputed: number;
+	pruned: number;
+}
+
+/**
+ * Recompute week/month upvotes for recipes whose buckets left a window
+ * @param options.full - Recompute every recipe with a bucket or a non-zero window (also used when the job has never run)
+ * @returns Counts of recomputed recipes/pruned buckets, or null if another instance holds the lock
+ */
+export async function rollupVoteWindows(
+	options: { full?: boolean } = {}
+): Promise<VoteWindowRollupResult | null> {
+	return db.transaction(async (tx) => {
+		const [lock] = await tx.execute<{ locked: boolean }>(
+			sql`SELECT pg_try_advisory_xact_lock(${ADVISORY_LOCK_ID}) AS "locked"`
+		);
+		if (!lock?.locked) {
+			return null;
+		}
+
+		const [state] = await tx.execute<{ last_day: string; today: string }>(sql`
+			SELECT
+				("last_run_at" AT TIME ZONE 'UTC')::date::text AS "last_day",
+				(now() AT TIME ZONE 'UTC')::date::text AS "today"
+			FROM "job_runs" WHERE "name" = ${JOB_NAME}
+		`);
+		const full = options.full === true || !state;
+
+		if (!full && state.last_day === state.today) {
+			return { full, recomputed: 0, pruned: 0 };
+		}
+
+		const aged = full
+			? await tx.execute<{ recipe_id: string }>(sql`
+					SELECT "recipe_id" FROM "recipe_vote_buckets"
+					UNION
+					SELECT "id" FROM "recipes" WHERE "week_upvotes" <> 0 OR "month_upvotes" <> 0
+				`)
+			: await tx.execute<{ recipe_id: string }>(sql`
+					SELECT DISTINCT "recipe_id" FROM "recipe_vote_buckets"
+					WHERE ("day" > ${state.last_day}::date - 7 AND "day" <= (now() AT TIME ZONE 'UTC')::date - 7)
+					   OR ("day" > ${state.last_day}::date - 30 AND "day" <= (now() AT TIME ZONE 'UTC')::date - 30)
+				`);
+		const ids = aged.map((row) => row.recipe_id);
+
+		let recomputed = 0;
+
+		if (ids.length > 0) {
+			// Lock first, then recount in a new statement so concurrent vote transactions
+			// are either fully counted or apply their increments after us
+			await tx.execute(sql`
+				SELECT "id" FROM "recipes" WHERE "id" = ANY(${uuidArray(ids)}) ORDER BY "id" FOR UPDATE
+			`);
+
+			recomputed = (
+				await tx.execute(sql`
+					UPDATE "recipes" r SET
+						"week_upvotes" = COALESCE(w."week_upvotes", 0),
+						"month_upvotes" = COALESCE(w."month_upvotes", 0)
+					FROM (
+						SELECT
+							rc."id",
+							SUM(b."upvotes") FILTER (WHERE b."day" > (now() AT TIME ZONE 'UTC')::date - 7)::int AS "week_upvotes",
+							SUM(b."upvotes")::int AS "month_upvotes"
+						FROM "recipes" rc
+						LEFT JOIN "recipe_vote_buckets" b
+							ON b."recipe_id" = rc."id" AND b."day" > (now() AT TIME ZONE 'UTC')::date - 30
+						WHERE rc."id" = ANY(${uuidArray(ids)})
+						GROUP BY rc."id"
+					) w
+					WHERE r."id" = w."id"
+				`)
+			).count;
+		}
+
+		const pruned = (
+			await tx.execute(sql`
+				DELETE FROM "recipe_vote_buckets" WHERE "day" <= (now() AT TIME ZONE 'UTC')::date - 30
+			`)
+		).count;
+
+		await tx.execute(sql`
+			INSERT INTO "job_runs" ("name", "last_run_at") VALUES (${JOB_NAME}, now())
+			ON CONFLICT ("name") DO UPDATE SET "last_run_at" = EXCLUDED."last_run_at"
+		`);
+
+		return { full, recomputed, pruned };
+	});
+}
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Roll up vote windows on an interval (VOTE_WINDOWS_ROLLUP_MS, default 600000, 0 disables)
+ * The windows are stale by at most one interval after UTC midnight.
+ * Safe to call on every instance; the advisory lock keeps runs exclusive.
+ */
+export function startVoteWindowRollupJob(): void {
+	if (timer || ROLLUP_INTERVAL_MS <= 0 || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	const run = async () => {
+		if (running) return;
+		running = true;
+		try {
+			const result = await rollupVoteWindows();
+			if (result && (result.recomputed > 0 || result.pruned > 0)) {
+				logger.debug('Vote windows rolled up', { ...result });
+			}
+		} catch (error) {
+			logger.error('Vote window rollup failed', error);
+		} finally {
+			running = false;
+		}
+	};
+
+	void run();
+	timer = setInterval(() => void run(), ROLLUP_INTERVAL_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+}
@@ -0,0 +1,246 @@
+/**
+ * Vote writes as single statements
+ * A vote cast or removal is one data-modifying CTE: it reads the recipe and the
+ * user's current vote, inserts/flips/deletes the vote, applies the counter deltas
+ * (upvotes, downvotes, vote_score, hot_score), records the change in the per-day
+ * buckets and week/month windows (same rules as recordVoteInWindows), and returns the
+ * new counts. One round trip, and the popular recipe's row lock is held only for the
+ * duration of that statement instead of across several client round trips.
+ *
+ * Each write is guarded by the vote value it expects to find, so a concurrent change
+ * by the same user (a double click) turns the losing write into a no-op instead of
+ * double counting. Vote triggers (ranking queue) fire as for any other write.
+ *
+ * With deferCounters (write-behind mode, see ./writeBehind) the counter, bucket and
+ * window updates are left out: the statement only writes the vote and returns the
+ * per-day deltas for the caller to buffer, so voters never lock the recipe row.
+ *
+ * No SvelteKit imports so scripts/bench-votes.ts can run it directly.
+ */
+
+import { sql, type SQL } from 'drizzle-orm';
+import type { PostgresJsDatabase } from 'drizzle-orm/postgres-js';
+import type * as schema from '../db/schema';
+
+type Database = Pick<PostgresJsDatabase<typeof schema>, 'execute'>;
+
+export type VoteValue = 1 | -1;
+
+/** Net vote change on one UTC day (the day the vote was cast) */
+export interface VoteDayDelta {
+	/** YYYY-MM-DD */
+	day: string;
+	up: number;
+	down: number;
+}
+
+export interface VoteWriteOptions {
+	/** Write only the vote; counters are applied later from the returned deltas */
+	deferCounters?: boolean;
+}
+
+export interface VoteResult {
+	/** Author of the recipe, null if the recipe doesn't exist */
+	authorId: string | null;
+	/** The user's vote after the write */
+	userVote: VoteValue | null;
+	/** Counts after the write (before it, with deferCounters) */
+	upvotes: number;
+	downvotes: number;
+	/** Counter changes made (or, with deferCounters, still to be made) by the write */
+	deltas: VoteDayDelta[];
+}
+
+interface VoteResultRow {
+	author_id: string | null;
+	user_vote: number | null;
+	/** castVote only: no vote row was inserted, flipped or removed */
+	unwritten?: boolean;
+	upvotes: number;
+	downvotes: number;
+	deltas: VoteDayDelta[] | null;
+}
+
+/**
+ * CTEs applying the rows of a preceding "changes" CTE (value, delta, voted_at) to the
+ * vote buckets and the recipe counters; "days" holds the per-day deltas and "counted"
+ * the new counts (no rows when deferred)
+ */
+function applyChanges(recipeId: string, defer: boolean): SQL {
+	const days = sql`
+		"days" AS (
+			SELECT
+				("voted_at" AT TIME ZONE 'UTC')::date AS "day",
+				(now() AT TIME ZONE 'UTC')::date AS "today",
+				SUM(CASE WHEN "value" > 0 THEN "delta" ELSE 0 END)::int AS "up",
+				SUM(CASE WHEN "value" < 0 THEN "delta" ELSE 0 END)::int AS "down"
+			FROM "changes"
+			GROUP BY 1
+		)`;
+
+	if (defer) {
+		return sql`${days},
+		"counted" AS (
+			SELECT NULL::int AS "upvotes", NULL::int AS "downvotes" WHERE false
+		)`;
+	}
+
+	return sql`${days},
+		"buckets" AS (
+			INSERT INTO "recipe_vote_buckets" ("recipe_id", "day", "upvotes", "downvotes")
+			SELECT ${recipeId}::uuid, "day", "up", "down" FROM "days"
+			WHERE "day" > "today" - 30 AND ("up" <> 0 OR "down" <> 0)
+			ON CONFLICT ("recipe_id", "day") DO UPDATE SET
+				"upvotes" = "recipe_vote_buckets"."upvotes" + EXCLUDED."upvotes",
+				"downvotes" = "recipe_vote_buckets"."downvotes" + EXCLUDED."downvotes"
+		),
+		"totals" AS (
+			SELECT
+				COALESCE(SUM("up"), 0)::int AS "up",
+				COALESCE(SUM("down"), 0)::int AS "down",
+				COALESCE(SUM("up") FILTER (WHERE "day" > "today" - 7), 0)::int AS "week_up",
+				COALESCE(SUM("up") FILTER (WHERE "day" > "today" - 30), 0)::int AS "month_up"
+			FROM "days"
+		),
+		"counted" AS (
+			UPDATE "recipes" SET
+				"upvotes" = "recipes"."upvotes" + t."up",
+				"downvotes" = "recipes"."downvotes" + t."down",
+				"vote_score" = "recipes"."vote_score" + t."up" - t."down",
+				"hot_score" = recipe_hot_score("recipes"."vote_score" + t."up" - t."down", "recipes"."published_at"),
+				"week_upvotes" = "recipes"."week_upvotes" + t."week_up",
+				"month_upvotes" = "recipes"."month_upvotes" + t."month_up"
+			FROM "totals" t
+			WHERE "recipes"."id" = ${recipeId}::uuid AND (t."up" <> 0 OR t."down" <> 0)
+			RETURNING "recipes"."upvotes", "recipes"."downvotes"
+		)`;
+}
+
+// Shared tail of both statements' final SELECT
+const countsAndDeltas = sql`
+	COALESCE((SELECT "upvotes" FROM "counted"), (SELECT "upvotes" FROM "target"), 0)::int AS "upvotes",
+	COALESCE((SELECT "downvotes" FROM "counted"), (SELECT "downvotes" FROM "target"), 0)::int AS "downvotes",
+	(
+		SELECT json_agg(json_build_object('day', "day"::text, 'up', "up", 'down', "down"))
+		FROM "days" WHERE "up" <> 0 OR "down" <> 0
+	) AS "deltas"`;
+
+function toResult(row: VoteResultRow | undefined): VoteResult {
+	return {
+		authorId: row?.author_id ?? null,
+		userVote: row?.user_vote === 1 || row?.user_vote === -1 ? row.user_vote : null,
+		upvotes: row?.upvotes ?? 0,
+		downvotes: row?.downvotes ?? 0,
+		deltas: row?.deltas ?? []
+	};
+}
+
+/**
+ * Cast a vote: a new vote is inserted, the opposite vote is flipped, and the same
+ * vote again is removed (toggle). Nothing is written on the author's own recipe.
+ */
+export async function castVote(
+	database: Database,
+	userId: string,
+	recipeId: string,
+	value: VoteValue,
+	options: VoteWriteOptions = {}
+): Promise<VoteResult> {
+	const rows = await database.execute<VoteResultRow>(sql`
+		WITH "target" AS (
+			SELECT "author_id", "upvotes", "downvotes" FROM "recipes" WHERE "id" = ${recipeId}::uuid
+		),
+		"allowed" AS (
+			SELECT 1 FROM "target" WHERE "author_id" <> ${userId}
+		),
+		"old" AS (
+			SELECT "value", "created_at" FROM "votes" WHERE "user_id" = ${userId} AND "recipe_id" = ${recipeId}::uuid
+		),
+		"inserted" AS (
+			INSERT INTO "votes" ("recipe_id", "user_id", "value")
+			SELECT ${recipeId}::uuid, ${userId}, ${value}::int
+			FROM "allowed"
+			WHERE NOT EXISTS (SELECT 1 FROM "old")
+			ON CONFLICT ("user_id", "recipe_id") DO NOTHING
+			RETURNING "value", "created_at"
+		),
+		"flipped" AS (
+			UPDATE "votes" v SET "value" = ${value}::int, "created_at" = now()
+			FROM "old"
+			WHERE v."user_id" = ${userId} AND v."recipe_id" = ${recipeId}::uuid
+			  AND "old"."value" <> ${value}::int AND v."value" = "old"."value"
+			  AND EXISTS (SELECT 1 FROM "allowed")
+			RETURNING "old"."value" AS "old_value", "old"."created_at" AS "old_created_at", v."created_at"
+		),
+		"removed" AS (
+			DELETE FROM "votes" v
+			WHERE v."user_id" = ${userId} AND v."recipe_id" = ${recipeId}::uuid AND v."value" = ${value}::int
+			  AND EXISTS (SELECT 1 FROM "old" WHERE "old"."value" = ${value}::int)
+			  AND EXISTS (SELECT 1 FROM "allowed")
+			RETURNING v."value", v."created_at"
+		),
+		-- A flip removes the old vote from its original day and adds the new one today
+		"changes" AS (
+			SELECT "value", 1 AS "delta", "created_at" AS "voted_at" FROM "inserted"
+			UNION ALL SELECT "old_value", -1, "old_created_at" FROM "flipped"
+			UNION ALL SELECT ${value}::int, 1, "created_at" FROM "flipped"
+			UNION ALL SELECT "value", -1, "created_at" FROM "removed"
+		),
+		${applyChanges(recipeId, options.deferCounters ?? false)}
+		SELECT
+			(SELECT "author_id" FROM "target") AS "author_id",
+			CASE
+				WHEN EXISTS (SELECT 1 FROM "inserted") OR EXISTS (SELECT 1 FROM "flipped") THEN ${value}::int
+				ELSE NULL
+			END AS "user_vote",
+			NOT (
+				EXISTS (SELECT 1 FROM "inserted") OR EXISTS (SELECT 1 FROM "flipped") OR EXISTS (SELECT 1 FROM "removed")
+			) AS "unwritten",
+			${countsAndDeltas}
+	`);
+
+	const row = rows[0];
+
+	// Nothing written: either a concurrent vote changed the row after "old" was read (a
+	// duplicate insert hit ON CONFLICT, or a flip lost its guard), or the user is the
+	// author. "old" may be stale and the statement's snapshot can't see the concurrent
+	// write, so read the vote again in a new statement.
+	if (row?.unwritten) {
+		const [current] = await database.execute<{ value: number }>(sql`
+			SELECT "value" FROM "votes" WHERE "user_id" = ${userId} AND "recipe_id" = ${recipeId}::uuid
+		`);
+		row.user_vote = current?.value ?? null;
+	}
+
+	return toResult(row);
+}
+
+/**
+ * Remove the user's vote, if any
+ */
+export async function removeVote(
+	database: Database,
+	userId: string,
+	recipeId: string,
+	options: VoteWriteOptions = {}
+): Promise<VoteResult> {
+	const rows = await database.execute<VoteResultRow>(sql`
+		WITH "target" AS (
+			SELECT "author_id", "upvotes", "downvotes" FROM "recipes" WHERE "id" = ${recipeId}::uuid
+		),
+		"removed" AS (
+			DELETE FROM "votes" WHERE "user_id" = ${userId} AND "recipe_id" = ${recipeId}::uuid
+			RETURNING "value", "created_at"
+		),
+		"changes" AS (
+			SELECT "value", -1 AS "delta", "created_at" AS "voted_at" FROM "removed"
+		),
+		${applyChanges(recipeId, options.deferCounters ?? false)}
+		SELECT
+			(SELECT "author_id" FROM "target") AS "author_id",
+			NULL::int AS "user_vote",
+			${countsAndDeltas}
+	`);
+
+	return toResult(rows[0]);
+}
@@ -0,0 +1,90 @@
+/**
+ * Vote writes for the vote endpoint (see ./apply)
+ * With VOTE_WRITE_BEHIND_MS > 0 counter updates are deferred and flushed in batches
+ * on that interval (see ./writeBehind); reads of a recipe's counts should go through
+ * withPendingVotes so this instance's unflushed votes are included.
+ */
+
+import { env } from '$env/dynamic/private';
+import { db } from '$lib/server/db';
+import { logger } from '$lib/server/logger';
+import { cacheDelete, cacheKeys } from '$lib/server/redis/cache';
+import { castVote as castVoteWith, removeVote as removeVoteWith, type VoteResult, type VoteValue } from './apply';
+import { PendingVoteCounters } from './writeBehind';
+
+export type { VoteResult, VoteValue } from './apply';
+
+const WRITE_BEHIND_MS = parseInt(env.VOTE_WRITE_BEHIND_MS || '0', 10) || 0;
+
+export const voteWriteBehind = WRITE_BEHIND_MS > 0;
+
+/**
+ * How long counter drift must stay unchanged before reconciliation repairs it
+ * (0 without write-behind). Covers a flush interval on every instance plus slack.
+ */
+export const VOTE_DRIFT_SETTLE_MS = voteWriteBehind ? WRITE_BEHIND_MS * 3 + 1000 : 0;
+
+const pendingVotes = new PendingVoteCounters();
+
+function recordPending(recipeId: string, result: VoteResult): VoteResult {
+	if (!voteWriteBehind) return result;
+	pendingVotes.add(recipeId, result.deltas);
+	return withPendingVotes(recipeId, result);
+}
+
+export async function castVote(userId: string, recipeId: string, value: VoteValue): Promise<VoteResult> {
+	const result = await castVoteWith(db, userId, recipeId, value, { deferCounters: voteWriteBehind });
+	return recordPending(recipeId, result);
+}
+
+export async function removeVote(userId: string, recipeId: string): Promise<VoteResult> {
+	const result = await removeVoteWith(db, userId, recipeId, { deferCounters: voteWriteBehind });
+	return recordPending(recipeId, result);
+}
+
+/**
+ * Add this instance's unflushed vote deltas to counts read from recipes
+ */
+export function withPendingVotes<T extends { upvotes: number; downvotes: number }>(recipeId: string, counts: T): T {
+	if (!voteWriteBehind || pendingVotes.size === 0) return counts;
+	const pending = pendingVotes.pending(recipeId);
+	if (pending.upvotes === 0 && pending.downvotes === 0) return counts;
+	return { ...counts, upvotes: counts.upvotes + pending.upvotes, downvotes: counts.downvotes + pending.downvotes };
+}
+
+let timer: ReturnType<typeof setInterval> | null = null;
+let running = false;
+
+/**
+ * Flush pending vote deltas and drop the flushed recipes' cached stats
+ */
+export async function flushPendingVotes(): Promise<void> {
+	if (running) return;
+	running = true;
+	try {
+		const flushed = await pendingVotes.flush(db);
+		if (flushed.length > 0) {
+			await Promise.all(flushed.map((id) => cacheDelete(cacheKeys.recipeStats(id))));
+		}
+	} catch (error) {
+		logger.error('Vote counter flush failed', error, { pending: pendingVotes.size });
+	} finally {
+		running = false;
+	}
+}
+
+/**
+ * Flush pending vote deltas on an interval (only in write-behind mode)
+ * Also flushes once on graceful shutdown (adapter-node's sveltekit:shutdown event).
+ */
+export function startVoteFlushJob(): void {
+	if (timer || !voteWriteBehind || typeof setInterval === 'undefined') {
+		return;
+	}
+
+	timer = setInterval(() => void flushPendingVotes(), WRITE_BEHIND_MS);
+	// Don't keep the process alive just for the job
+	(timer as { unref?: () => void }).unref?.();
+
+	process.once('sveltekit:shutdown', () => void flushPendingVotes());
+}
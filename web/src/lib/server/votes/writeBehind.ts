@@ -0,0 +1,159 @@
+/**
+ * Write-behind vote counters
+ * In write-behind mode votes are written immediately but their counter deltas are
+ * accumulated here, per recipe and UTC day, and flushed to recipes (counters,
+ * hot_score, week/month windows) and recipe_vote_buckets in one batched statement.
+ * A viral recipe then takes one row update per flush instead of one per vote, so
+ * voters no longer queue on its row lock while holding pool connections.
+ *
+ * Pending deltas live in this process only: reads on this instance merge them
+ * (see pending()), other instances see them after the next flush. Deltas lost in a
+ * crash leave the counters behind the votes table; the vote counter reconciliation
+ * recounts those recipes once their drift has settled.
+ *
+ * No SvelteKit imports so it can be exercised from scripts/benchmarks.
+ */
+
+import { sql } from 'drizzle-orm';
+import type { PostgresJsDatabase } from 'drizzle-orm/postgres-js';
+import type * as schema from '../db/schema';
+import type { VoteDayDelta } from './apply';
+
+type Database = Pick<PostgresJsDatabase<typeof schema>, 'execute'>;
+
+interface DayCounts {
+	up: number;
+	down: number;
+}
+
+export interface PendingCounts {
+	upvotes: number;
+	downvotes: number;
+}
+
+export class PendingVoteCounters {
+	// recipe id -> day -> net change
+	private pending = new Map<string, Map<string, DayCounts>>();
+
+	/** Recipes with unflushed deltas */
+	get size(): number {
+		return this.pending.size;
+	}
+
+	add(recipeId: string, deltas: VoteDayDelta[]): void {
+		if (deltas.length === 0) return;
+
+		let days = this.pending.get(recipeId);
+		if (!days) {
+			days = new Map();
+			this.pending.set(recipeId, days);
+		}
+		for (const delta of deltas) {
+			const counts = days.get(delta.day);
+			if (counts) {
+				counts.up += delta.up;
+				counts.down += delta.down;
+			} else {
+				days.set(delta.day, { up: delta.up, down: delta.down });
+			}
+		}
+	}
+
+	/**
+	 * Unflushed change to a recipe's counters (zero when nothing is pending)
+	 */
+	pending(recipeId: string): PendingCounts {
+		const counts = { upvotes: 0, downvotes: 0 };
+		for (const day of this.pending.get(recipeId)?.values() ?? []) {
+			counts.upvotes += day.up;
+			counts.downvotes += day.down;
+		}
+		return counts;
+	}
+
+	/**
+	 * Apply every pending delta in one statement
+	 * Deltas are taken out before the write; if it fails they are put back for the next flush.
+	 * @returns Ids of the recipes whose counters changed
+	 */
+	async flush(database: Database): Promise<string[]> {
+		if (this.pending.size === 0) return [];
+
+		const batch = this.pending;
+		this.pending = new Map();
+
+		const ids: string[] = [];
+		const days: string[] = [];
+		const ups: number[] = [];
+		const downs: number[] = [];
+		for (const [recipeId, recipeDays] of batch) {
+			for (const [day, counts] of recipeDays) {
+				if (counts.up === 0 && counts.down === 0) continue;
+				ids.push(recipeId);
+				days.push(day);
+				ups.push(counts.up);
+				downs.push(counts.down);
+			}
+		}
+		if (ids.length === 0) return [];
+
+		try {
+			// Arrays are passed as one delimited string each (a JS array would expand to a list)
+			await database.execute(sql`
+				WITH "d" AS (
+					SELECT t."recipe_id", t."day", t."up", t."down", (now() AT TIME ZONE 'UTC')::date AS "today"
+					FROM unnest(
+						string_to_array(${ids.join(',')}, ',')::uuid[],
+						string_to_array(${days.join(',')}, ',')::date[],
+						string_to_array(${ups.join(',')}, ',')::int[],
+						string_to_array(${downs.join(',')}, ',')::int[]
+					) AS t("recipe_id", "day", "up", "down")
+				),
+				"buckets" AS (
+					INSERT INTO "recipe_vote_buckets" ("recipe_id", "day", "upvotes", "downvotes")
+					SELECT "recipe_id", "day", "up", "down" FROM "d"
+					WHERE "day" > "today" - 30
+					ON CONFLICT ("recipe_id", "day") DO UPDATE SET
+						"upvotes" = "recipe_vote_buckets"."upvotes" + EXCLUDED."upvotes",
+						"downvotes" = "recipe_vote_buckets"."downvotes" + EXCLUDED."downvotes"
+				),
+				"totals" AS (
+					SELECT
+						"recipe_id",
+						SUM("up")::int AS "up",
+						SUM("down")::int AS "down",
+						COALESCE(SUM("up") FILTER (WHERE "day" > "today" - 7), 0)::int AS "week_up",
+						COALESCE(SUM("up") FILTER (WHERE "day" > "today" - 30), 0)::int AS "month_up"
+					FROM "d"
+					GROUP BY "recipe_id"
+				),
+				-- Counter changes don't fire the votes trigger; the vote writes already queued
+				-- these recipes, but the rankings job may have run before this flush
+				"queued" AS (
+					INSERT INTO "recipe_ranking_queue" ("recipe_id")
+					SELECT "recipe_id" FROM "totals"
+					ON CONFLICT DO NOTHING
+				)
+				UPDATE "recipes" SET
+					"upvotes" = "recipes"."upvotes" + t."up",
+					"downvotes" = "recipes"."downvotes" + t."down",
+					"vote_score" = "recipes"."vote_score" + t."up" - t."down",
+					"hot_score" = recipe_hot_score("recipes"."vote_score" + t."up" - t."down", "recipes"."published_at"),
+					"week_upvotes" = "recipes"."week_upvotes" + t."week_up",
+					"month_upvotes" = "recipes"."month_upvotes" + t."month_up"
+				FROM "totals" t
+				WHERE "recipes"."id" = t."recipe_id"
+			`);
+		} catch (error) {
+			for (const [recipeId, recipeDays] of batch) {
+				this.add(
+					recipeId,
+					[...recipeDays].map(([day, counts]) => ({ day, up: counts.up, down: counts.down }))
+				);
+			}
+			throw error;
+		}
+
+		return [...new Set(ids)];
+	}
+}
@@ -0,0 +1,137 @@
+// Precomputed search index for static catalogs (ingredients, equipment)
+// Built once at module load; typeahead queries then walk prebuilt lists instead of
+// lowercasing, filtering and sorting the whole catalog on every keystroke.
+//
+// Ranking matches the original linear search: entries whose name starts with the query
+// first, then the other name/key substring matches, each group alphabetical by name.
+// Entries are numbered by that alphabetical order once, so every posting list below is
+// already sorted and results are read off in rank order.
+
+export interface CatalogEntry {
+	key: string;
+	name: string;
+}
+
+export interface CatalogIndex<T extends CatalogEntry> {
+	/** Ranked name/key matches; the returned array is the only allocation */
+	search(query: string, limit?: number): T[];
+	/** Entry by exact key */
+	get(key: string): T | undefined;
+}
+
+// Substrings up to this length are indexed directly; longer queries are narrowed
+// through their rarest trigram and verified
+const MAX_GRAM = 3;
+
+interface TrieNode {
+	children: Map<string, TrieNode>;
+	// Ordinals of entries whose lowercase name starts with this node's prefix, ascending
+	ids: number[];
+}
+
+export function createCatalogIndex<T extends CatalogEntry>(entries: readonly T[]): CatalogIndex<T> {
+	const sorted = [...entries].sort((a, b) => a.name.localeCompare(b.name));
+	const names = sorted.map((entry) => entry.name.toLowerCase());
+	const keys = sorted.map((entry) => entry.key);
+	// First entry wins for duplicate keys, like a linear find over the catalog
+	const byKey = new Map<string, T>();
+	for (const entry of entries) {
+		if (!byKey.has(entry.key)) byKey.set(entry.key, entry);
+	}
+
+	// Prefix trie over lowercase names
+	const root: TrieNode = { children: new Map(), ids: [] };
+	names.forEach((name, id) => {
+		let node = root;
+		for (const char of name) {
+			let child = node.children.get(char);
+			if (!child) {
+				child = { children: new Map(), ids: [] };
+				node.children.set(char, child);
+			}
+			child.ids.push(id);
+			node = child;
+		}
+	});
+
+	// n-gram (1..MAX_GRAM) substring index over names and keys
+	const grams = new Map<string, number[]>();
+	const addGrams = (text: string, id: number) => {
+		for (let n = 1; n <= MAX_GRAM; n++) {
+			for (let i = 0; i + n <= text.length; i++) {
+				const gram = text.slice(i, i + n);
+				let postings = grams.get(gram);
+				if (!postings) {
+					postings = [];
+					grams.set(gram, postings);
+				}
+				// Ids are added in ascending order, so only the tail can be a duplicate
+				if (postings[postings.length - 1] !== id) {
+					postings.push(id);
+				}
+			}
+		}
+	};
+	names.forEach((name, id) => {
+		addGrams(name, id);
+		addGrams(keys[id], id);
+	});
+
+	const prefixIds = (query: string): number[] | undefined => {
+		let node: TrieNode | undefined = root;
+		for (const char of query) {
+			node = node.children.get(char);
+			if (!node) return undefined;
+		}
+		return node.ids;
+	};
+
+	// Shortest posting list that every substring match must be in
+	const substringCandidates = (query: string): number[] | undefined => {
+		if (query.length <= MAX_GRAM) {
+			return grams.get(query);
+		}
+		let best: number[] | undefined;
+		for (let i = 0; i + MAX_GRAM <= query.length; i++) {
+			const postings = grams.get(query.slice(i, i + MAX_GRAM));
+			if (!postings) return undefined;
+			if (!best || postings.length < best.length) best = postings;
+		}
+		return best;
+	};
+
+	return {
+		search(query: string, limit = 10): T[] {
+			const q = query.toLowerCase().trim();
+			const results: T[] = [];
+			if (!q || limit <= 0) return results;
+
+			const prefixed = prefixIds(q);
+			if (prefixed) {
+				for (let i = 0; i < prefixed.length && results.length < limit; i++) {
+					results.push(sorted[prefixed[i]]);
+				}
+			}
+
+			const candidates = substringCandidates(q);
+			if (candidates) {
+				const exact = q.length <= MAX_GRAM;
+				for (let i = 0; i < candidates.length && results.length < limit; i++) {
+					const id = candidates[i];
+					const name = names[id];
+					// Name prefix matches were added above
+					if (name.startsWith(q)) continue;
+					if (exact || name.includes(q) || keys[id].includes(q)) {
+						results.push(sorted[id]);
+					}
+				}
+			}
+
+			return results;
+		},
+
+		get(key: string): T | undefined {
+			return byKey.get(key);
+		}
+	};
+}
@@ -1,8 +1,9 @@
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
-import { user, follows, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, desc, sql, gte, notInArray } from 'drizzle-orm';
-import { cacheGetOrSet, cacheKeys, CACHE_TTL } from '$lib/server/redis/cache';
+import { user, follows } from '$lib/server/db/schema';
+import { eq, desc, sql, gte } from 'drizzle-orm';
+import { cacheGetOrSet, cacheKeys, cacheTags, CACHE_TTL, CACHE_STALE_TTL } from '$lib/server/redis/cache';
+import { getTrendingRecipes, sampleDiscoverRecipes } from '$lib/server/rankings';
 
 interface TrendingRecipe {
 	slug: string;
@@ -45,42 +46,9 @@ export const load: PageServerLoad = async ({ url }) => {
 		async () => {
 			const now = new Date();
 			const sevenDaysAgo = new Date(now.getTime() - 7 * 24 * 60 * 60 * 1000);
-			const thirtyDaysAgo = new Date(now.getTime() - 30 * 24 * 60 * 60 * 1000);
 
-			// Trending Recipes: Top voted published recipes in the last 30 days (with author info - fixes N+1)
-			const trendingRecipes = await db
-				.select({
-					id: recipes.id,
-					slug: recipes.slug,
-					title: recipes.title,
-					description: recipes.description,
-					photoUrl: recipes.photoUrl,
-					prepTimeMinutes: recipes.prepTimeMinutes,
-					cookTimeMinutes: recipes.cookTimeMinutes,
-					difficulty: recipes.difficulty,
-					cuisine: recipes.cuisine,
-					tag: recipes.tag,
-					authorId: recipes.authorId,
-					authorUsername: user.username,
-					authorFullName: user.fullName,
-					authorName: user.name,
-					publishedAt: recipes.publishedAt,
-					upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-					downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
-				})
-				.from(recipes)
-				.leftJoin(votes, eq(recipes.id, votes.recipeId))
-				.leftJoin(user, eq(recipes.authorId, user.id))
-				.where(
-					and(
-						eq(recipes.isPublished, true),
-						eq(recipes.language, lang),
-						gte(recipes.publishedAt, thirtyDaysAgo)
-					)
-				)
-				.groupBy(recipes.id, user.id, user.username, user.fullName, user.name)
-				.orderBy(desc(sql`SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END) - SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END)`))
-				.limit(5);
+			// Trending Recipes: Hottest published recipes (hot_score index scan)
+			const trendingRecipes = await getTrendingRecipes(lang, 5);
 
 			// Trending Chefs: Most new followers in the past 7 days (with user details - fixes N+1)
 			const trendingChefs = await db
@@ -100,58 +68,10 @@ export const load: PageServerLoad = async ({ url }) => {
 				.orderBy(desc(sql`count(*)`))
 				.limit(5);
 
-			// Discover Recipes: Random high-quality recipes not in trending (with author info - fixes N+1)
-			// Criteria: >85% upvote ratio, minimum 20 votes, not in trending
+			// Discover Recipes: Random high-quality recipes not in trending
+			// Criteria: >85% upvote ratio, minimum 20 votes (precomputed by the rankings job)
 			const trendingRecipeIds = trendingRecipes.map((r) => r.id);
-
-			// Get recipes with vote stats and author info in a single query
-			const discoverCandidates = await db
-				.select({
-					id: recipes.id,
-					slug: recipes.slug,
-					title: recipes.title,
-					description: recipes.description,
-					photoUrl: recipes.photoUrl,
-					prepTimeMinutes: recipes.prepTimeMinutes,
-					cookTimeMinutes: recipes.cookTimeMinutes,
-					difficulty: recipes.difficulty,
-					cuisine: recipes.cuisine,
-					tag: recipes.tag,
-					voteScore: recipes.voteScore,
-					authorId: recipes.authorId,
-					authorUsername: user.username,
-					authorFullName: user.fullName,
-					authorName: user.name,
-					publishedAt: recipes.publishedAt,
-					upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-					downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`,
-					totalVotes: sql<number>`COALESCE(COUNT(${votes.id}), 0)::int`
-				})
-				.from(recipes)
-				.leftJoin(votes, eq(recipes.id, votes.recipeId))
-				.leftJoin(user, eq(recipes.authorId, user.id))
-				.where(
-					and(
-						eq(recipes.isPublished, true),
-						eq(recipes.language, lang),
-						trendingRecipeIds.length > 0
-							? notInArray(recipes.id, trendingRecipeIds)
-							: undefined
-					)
-				)
-				.groupBy(recipes.id, user.id, user.username, user.fullName, user.name)
-				.having(sql`COUNT(${votes.id}) >= 20`);
-
-			// Filter by upvote ratio and randomize
-			const highQualityRecipes = discoverCandidates
-				.filter((r) => {
-					const total = r.upvotes + r.downvotes;
-					if (total < 20) return false;
-					const ratio = r.upvotes / total;
-					return ratio >= 0.85;
-				})
-				.sort(() => Math.random() - 0.5)
-				.slice(0, 5);
+			const highQualityRecipes = await sampleDiscoverRecipes(lang, 5, trendingRecipeIds);
 
 			return {
 				trending: trendingRecipes.map((r) => ({
@@ -196,7 +116,8 @@ export const load: PageServerLoad = async ({ url }) => {
 					publishedAt: r.publishedAt
 				}))
 			};
-		}
+		},
+		{ tags: [cacheTags.homepage], staleWhileRevalidate: CACHE_STALE_TTL.trending }
 	);
 
 	return {
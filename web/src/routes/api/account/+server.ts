@@ -2,7 +2,7 @@ import { json, error } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
 import { user, session, account, follows, recipes, votes, comments } from '$lib/server/db/schema';
-import { eq, or, inArray, and } from 'drizzle-orm';
+import { eq, or, inArray, and, sql } from 'drizzle-orm';
 import { logger, getRequestId } from '$lib/server/logger';
 import { auditAccount, auditAuthFailure } from '$lib/server/logger/audit';
 import { auth } from '$lib/server/auth';
@@ -103,7 +103,15 @@ export const DELETE: RequestHandler = async ({ request, locals, cookies, getClie
 			// 2. Delete user's comments
 			await tx.delete(comments).where(eq(comments.userId, userId));
 
-			// 3. Delete follows (both directions)
+			// 3. Delete follows (both directions), keeping the other users' follow counters in step
+			await tx
+				.update(user)
+				.set({ followerCount: sql`GREATEST(${user.followerCount} - 1, 0)` })
+				.where(inArray(user.id, tx.select({ id: follows.followingId }).from(follows).where(eq(follows.followerId, userId))));
+			await tx
+				.update(user)
+				.set({ followingCount: sql`GREATEST(${user.followingCount} - 1, 0)` })
+				.where(inArray(user.id, tx.select({ id: follows.followerId }).from(follows).where(eq(follows.followingId, userId))));
 			await tx.delete(follows).where(
 				or(
 					eq(follows.followerId, userId),
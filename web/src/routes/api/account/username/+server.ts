@@ -3,6 +3,7 @@ import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
 import { user } from '$lib/server/db/schema';
 import { eq, and, ne, sql } from 'drizzle-orm';
+import { cacheDelete, cacheKeys } from '$lib/server/redis/cache';
 
 const USERNAME_CHANGE_COOLDOWN_DAYS = 30;
 
@@ -178,6 +179,8 @@ export const PUT: RequestHandler = async ({ request, locals }) => {
 		})
 		.where(eq(user.id, locals.user.id));
 
+	await cacheDelete(cacheKeys.authorCard(locals.user.id));
+
 	return json({
 		success: true,
 		username: trimmedUsername,
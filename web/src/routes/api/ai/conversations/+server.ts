@@ -2,7 +2,10 @@ import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
 import { aiConversations } from '$lib/server/db/schema';
-import { eq, desc, and } from 'drizzle-orm';
+import { eq, and } from 'drizzle-orm';
+import { afterCursor, cursorKey, decodeCursor, keysetOrder, keysetPage, type Cursor } from '$lib/server/pagination';
+
+const CONVERSATION_SORT = 'updated'; // Most recently updated first, recorded in cursors
 
 // GET - List user's conversations
 export const GET: RequestHandler = async ({ url, locals }) => {
@@ -13,21 +16,45 @@ export const GET: RequestHandler = async ({ url, locals }) => {
 	const limit = Math.min(50, parseInt(url.searchParams.get('limit') || '20', 10));
 	const offset = parseInt(url.searchParams.get('offset') || '0', 10);
 
-	const conversations = await db
+	// Keyset pagination: `cursor` (from nextCursor) takes precedence over `offset`
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), CONVERSATION_SORT, 'timestamp');
+	} catch {
+		return json({ error: 'Invalid cursor' }, { status: 400 });
+	}
+
+	const rows = await db
 		.select({
 			id: aiConversations.id,
 			title: aiConversations.title,
 			messageCount: aiConversations.messageCount,
 			updatedAt: aiConversations.updatedAt,
-			createdAt: aiConversations.createdAt
+			createdAt: aiConversations.createdAt,
+			cursorKey: cursorKey(aiConversations.updatedAt)
 		})
 		.from(aiConversations)
-		.where(and(eq(aiConversations.userId, locals.user.id), eq(aiConversations.isArchived, false)))
-		.orderBy(desc(aiConversations.updatedAt))
-		.limit(limit)
-		.offset(offset);
+		.where(
+			and(
+				eq(aiConversations.userId, locals.user.id),
+				eq(aiConversations.isArchived, false),
+				cursor ? afterCursor(aiConversations.updatedAt, aiConversations.id, cursor) : undefined
+			)
+		)
+		.orderBy(...keysetOrder(aiConversations.updatedAt, aiConversations.id))
+		.limit(limit + 1)
+		.offset(cursor ? 0 : offset);
+
+	const { rows: page, nextCursor } = keysetPage(rows, limit, CONVERSATION_SORT);
+	const conversations = page.map((c) => ({
+		id: c.id,
+		title: c.title,
+		messageCount: c.messageCount,
+		updatedAt: c.updatedAt,
+		createdAt: c.createdAt
+	}));
 
-	return json({ conversations });
+	return json({ conversations, nextCursor });
 };
 
 // POST - Create new conversation
@@ -1,8 +1,11 @@
 import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
-import { user, follows, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, sql, desc, count } from 'drizzle-orm';
+import { user, recipes } from '$lib/server/db/schema';
+import { eq, and } from 'drizzle-orm';
+import { getAuthorRecipeStats } from '$lib/server/recipeCards';
+import { afterCursor, cursorKey, decodeCursor, keysetOrder, keysetPage, type Cursor } from '$lib/server/pagination';
+import { isFollowing as checkFollowing } from '$lib/server/socialGraph';
 
 const DEFAULT_LIMIT = 20;
 const MAX_LIMIT = 50;
@@ -13,6 +16,15 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 	const page = Math.max(1, parseInt(url.searchParams.get('page') || '1', 10));
 	const limit = Math.min(MAX_LIMIT, Math.max(1, parseInt(url.searchParams.get('limit') || String(DEFAULT_LIMIT), 10)));
 	const offset = (page - 1) * limit;
+	const sortKey = sortBy === 'upvotes' ? 'upvotes' : 'latest';
+
+	// Keyset pagination: `cursor` (from nextCursor) takes precedence over `page`
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), sortKey, sortKey === 'upvotes' ? 'integer' : 'timestamp');
+	} catch {
+		return json({ error: 'Invalid cursor' }, { status: 400 });
+	}
 
 	// Find user by username - only select needed fields
 	const [foundUser] = await db
@@ -26,6 +38,8 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 			photoUrl: user.photoUrl,
 			image: user.image,
 			profileTier: user.profileTier,
+			followerCount: user.followerCount,
+			followingCount: user.followingCount,
 			createdAt: user.createdAt
 		})
 		.from(user)
@@ -36,30 +50,15 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 		return json({ error: 'User not found' }, { status: 404 });
 	}
 
-	// Determine sort order
-	let orderByClause;
-	if (sortBy === 'upvotes') {
-		orderByClause = desc(sql`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)`);
-	} else {
-		// Default: latest
-		orderByClause = desc(recipes.publishedAt);
-	}
-
-	// Get total recipe count and total upvotes for stats (separate query for accurate counts)
-	const [statsResult] = await db
-		.select({
-			recipeCount: sql<number>`COUNT(DISTINCT ${recipes.id})::int`,
-			totalUpvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`
-		})
-		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.where(and(eq(recipes.authorId, foundUser.id), eq(recipes.isPublished, true)));
+	// Determine sort order (default: latest)
+	const sortColumn = sortKey === 'upvotes' ? recipes.upvotes : recipes.publishedAt;
 
-	const recipeCount = statsResult?.recipeCount ?? 0;
-	const totalUpvotes = statsResult?.totalUpvotes ?? 0;
+	// Get total recipe count and total upvotes for stats
+	const { recipeCount, totalUpvotes } = await getAuthorRecipeStats(foundUser.id);
 
-	// Get paginated user's published recipes with vote counts
-	const chefRecipes = await db
+	// Get a page of the user's published recipes (denormalized vote counts, no votes join)
+	// One extra row tells whether there is a next page
+	const recipeRows = await db
 		.select({
 			id: recipes.id,
 			slug: recipes.slug,
@@ -72,36 +71,28 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 			cuisine: recipes.cuisine,
 			tag: recipes.tag,
 			publishedAt: recipes.publishedAt,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
+			upvotes: recipes.upvotes,
+			downvotes: recipes.downvotes,
+			cursorKey: cursorKey(sortColumn)
 		})
 		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.where(and(eq(recipes.authorId, foundUser.id), eq(recipes.isPublished, true)))
-		.groupBy(recipes.id)
-		.orderBy(orderByClause)
-		.limit(limit)
-		.offset(offset);
+		.where(
+			and(
+				eq(recipes.authorId, foundUser.id),
+				eq(recipes.isPublished, true),
+				cursor ? afterCursor(sortColumn, recipes.id, cursor) : undefined
+			)
+		)
+		.orderBy(...keysetOrder(sortColumn, recipes.id))
+		.limit(limit + 1)
+		.offset(cursor ? 0 : offset);
 
-	// Get follower count
-	const followerResult = await db
-		.select({ count: sql<number>`count(*)::int` })
-		.from(follows)
-		.where(eq(follows.followingId, foundUser.id));
-	const followerCount = followerResult[0]?.count ?? 0;
+	const { rows: chefRecipes, nextCursor } = keysetPage(recipeRows, limit, sortKey);
 
-	// Check if current user is following this chef
+	// Check if current user is following this chef (social graph cache)
 	let isFollowing = false;
 	if (locals.user && locals.user.id !== foundUser.id) {
-		const followResult = await db
-			.select({ followerId: follows.followerId })
-			.from(follows)
-			.where(and(
-				eq(follows.followerId, locals.user.id),
-				eq(follows.followingId, foundUser.id)
-			))
-			.limit(1);
-		isFollowing = followResult.length > 0;
+		isFollowing = await checkFollowing(locals.user.id, foundUser.id);
 	}
 
 	// Determine profile display values
@@ -127,7 +118,8 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 			stats: {
 				recipeCount,
 				totalUpvotes,
-				followerCount
+				followerCount: foundUser.followerCount,
+				followingCount: foundUser.followingCount
 			}
 		},
 		recipes: chefRecipes.map((r) => ({
@@ -151,8 +143,9 @@ export const GET: RequestHandler = async ({ params, locals, url }) => {
 			limit,
 			totalCount: recipeCount,
 			totalPages,
-			hasMore: page < totalPages
+			hasMore: nextCursor !== null
 		},
+		nextCursor,
 		isFollowing,
 		isOwnProfile: locals.user?.id === foundUser.id
 	});
@@ -2,13 +2,17 @@ import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
 import { comments, recipes, user } from '$lib/server/db/schema';
-import { eq, sql, desc, count } from 'drizzle-orm';
-import { moderateComment, queueForReview } from '$lib/server/moderation';
+import { and, eq, sql } from 'drizzle-orm';
+import { moderateComment, queueForReview, visibleComments } from '$lib/server/moderation';
+import { enqueueModeration, wakeModerationWorkers } from '$lib/server/moderation/queue';
 import { sanitizeText } from '$lib/server/validation/sanitize';
 import { logger, getRequestId } from '$lib/server/logger';
+import { cacheDelete, cacheKeys } from '$lib/server/redis/cache';
+import { afterCursor, cursorKey, decodeCursor, keysetOrder, keysetPage, type Cursor } from '$lib/server/pagination';
 
 const DEFAULT_LIMIT = 20;
 const MAX_LIMIT = 50;
+const COMMENT_SORT = 'newest'; // Recorded in cursors
 
 export const GET: RequestHandler = async ({ url, locals }) => {
 	const recipeId = url.searchParams.get('recipeId');
@@ -17,6 +21,14 @@ export const GET: RequestHandler = async ({ url, locals }) => {
 	const limit = Math.min(MAX_LIMIT, Math.max(1, parseInt(url.searchParams.get('limit') || String(DEFAULT_LIMIT), 10)));
 	const offset = (page - 1) * limit;
 
+	// Keyset pagination: `cursor` (from nextCursor) takes precedence over `page`
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), COMMENT_SORT, 'timestamp');
+	} catch {
+		return json({ error: 'Invalid cursor' }, { status: 400 });
+	}
+
 	let targetRecipeId = recipeId;
 
 	// If slug provided, lookup recipe ID
@@ -37,22 +49,16 @@ export const GET: RequestHandler = async ({ url, locals }) => {
 		return json({ error: 'recipeId or slug is required' }, { status: 400 });
 	}
 
-	// Get recipe author for marking author comments
+	// Recipe author (for marking author comments) and the denormalized comment count
 	const [recipe] = await db
-		.select({ authorId: recipes.authorId })
+		.select({ authorId: recipes.authorId, commentCount: recipes.commentCount })
 		.from(recipes)
 		.where(eq(recipes.id, targetRecipeId))
 		.limit(1);
+	const totalCount = recipe?.commentCount ?? 0;
 
-	// Get total comment count for pagination
-	const [countResult] = await db
-		.select({ total: count() })
-		.from(comments)
-		.where(eq(comments.recipeId, targetRecipeId));
-	const totalCount = countResult?.total ?? 0;
-
-	// Get paginated comments with author info
-	const commentList = await db
+	// Get a page of comments with author info (one extra row tells whether there is more)
+	const commentRows = await db
 		.select({
 			id: comments.id,
 			content: comments.content,
@@ -61,14 +67,24 @@ export const GET: RequestHandler = async ({ url, locals }) => {
 			userName: user.name,
 			userImage: user.image,
 			fullName: user.fullName,
-			photoUrl: user.photoUrl
+			photoUrl: user.photoUrl,
+			moderationStatus: comments.moderationStatus,
+			cursorKey: cursorKey(comments.createdAt)
 		})
 		.from(comments)
 		.leftJoin(user, eq(comments.userId, user.id))
-		.where(eq(comments.recipeId, targetRecipeId))
-		.orderBy(desc(comments.createdAt))
-		.limit(limit)
-		.offset(offset);
+		.where(
+			and(
+				eq(comments.recipeId, targetRecipeId),
+				visibleComments(locals.user?.id),
+				cursor ? afterCursor(comments.createdAt, comments.id, cursor) : undefined
+			)
+		)
+		.orderBy(...keysetOrder(comments.createdAt, comments.id))
+		.limit(limit + 1)
+		.offset(cursor ? 0 : offset);
+
+	const { rows: commentList, nextCursor } = keysetPage(commentRows, limit, COMMENT_SORT);
 
 	const totalPages = Math.ceil(totalCount / limit);
 
@@ -81,15 +97,17 @@ export const GET: RequestHandler = async ({ url, locals }) => {
 			authorName: c.fullName || c.userName || 'Anonymous',
 			authorAvatar: c.photoUrl || c.userImage || null,
 			isRecipeAuthor: c.userId === recipe?.authorId,
-			isOwn: locals.user?.id === c.userId
+			isOwn: locals.user?.id === c.userId,
+			isPending: c.moderationStatus === 'pending'
 		})),
 		pagination: {
 			page,
 			limit,
 			totalCount,
 			totalPages,
-			hasMore: page < totalPages
-		}
+			hasMore: nextCursor !== null
+		},
+		nextCursor
 	});
 };
 
@@ -156,7 +174,8 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 				.values({
 					recipeId,
 					userId,
-					content: sanitizedContent
+					content: sanitizedContent,
+					moderationStatus: moderation.pending ? 'pending' : 'approved'
 				})
 				.returning({
 					id: comments.id,
@@ -165,6 +184,12 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 					userId: comments.userId
 				});
 
+			// Pending comments are counted by the moderation workers once approved
+			if (moderation.pending) {
+				await enqueueModeration(tx, 'comment', comment.id);
+				return comment;
+			}
+
 			// Increment comment count atomically (row is already locked)
 			await tx
 				.update(recipes)
@@ -176,6 +201,12 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 			return comment;
 		});
 
+		if (moderation.pending) {
+			wakeModerationWorkers();
+		} else {
+			await cacheDelete(cacheKeys.recipeStats(recipeId));
+		}
+
 		// Get user info for response (outside transaction, not critical)
 		const [userInfo] = await db
 			.select({
@@ -203,7 +234,8 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 				authorName: userInfo?.fullName || userInfo?.userName || 'Anonymous',
 				authorAvatar: userInfo?.photoUrl || userInfo?.userImage || null,
 				isRecipeAuthor: newComment.userId === recipe.authorId,
-				isOwn: true
+				isOwn: true,
+				isPending: moderation.pending === true
 			}
 		});
 	} catch (error: unknown) {
@@ -252,7 +284,16 @@ export const DELETE: RequestHandler = async ({ request, locals }) => {
 				.where(eq(recipes.id, comment.recipeId))
 				.for('update');
 
-			await tx.delete(comments).where(eq(comments.id, commentId));
+			// Status as of the delete (a moderation worker may have approved it meanwhile)
+			const [deleted] = await tx
+				.delete(comments)
+				.where(eq(comments.id, commentId))
+				.returning({ moderationStatus: comments.moderationStatus });
+
+			// Only approved comments are counted
+			if (deleted?.moderationStatus !== 'approved') {
+				return;
+			}
 
 			// Decrement comment count atomically (row is already locked)
 			await tx
@@ -263,6 +304,8 @@ export const DELETE: RequestHandler = async ({ request, locals }) => {
 				.where(eq(recipes.id, comment.recipeId));
 		});
 
+		await cacheDelete(cacheKeys.recipeStats(comment.recipeId));
+
 		return json({ success: true });
 	} catch (error: unknown) {
 		logger.error('Failed to delete comment', error, { commentId, userId: locals.user.id });
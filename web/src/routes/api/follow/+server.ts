@@ -1,8 +1,10 @@
 import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
-import { follows } from '$lib/server/db/schema';
-import { and, eq } from 'drizzle-orm';
+import { follows, user } from '$lib/server/db/schema';
+import { and, eq, sql } from 'drizzle-orm';
+import { invalidateFollowState } from '$lib/server/socialGraph';
+import { backfillTimeline, pruneTimeline } from '$lib/server/timeline';
 
 export const POST: RequestHandler = async ({ request, locals }) => {
 	if (!locals.user) {
@@ -19,20 +21,41 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 		return json({ error: 'Cannot follow yourself' }, { status: 400 });
 	}
 
-	try {
-		await db.insert(follows).values({
-			followerId: locals.user.id,
-			followingId: userId
-		});
-
-		return json({ success: true, following: true });
-	} catch (error: unknown) {
-		// Handle unique constraint violation (already following)
-		if (error && typeof error === 'object' && 'code' in error && error.code === '23505') {
-			return json({ error: 'Already following this user' }, { status: 409 });
+	const followerId = locals.user.id;
+
+	// Follow row and both counters change together, and only if the row was new
+	const followed = await db.transaction(async (tx) => {
+		const inserted = await tx
+			.insert(follows)
+			.values({ followerId, followingId: userId })
+			.onConflictDoNothing()
+			.returning({ followingId: follows.followingId });
+
+		if (inserted.length === 0) {
+			return false;
 		}
-		throw error;
+
+		await tx
+			.update(user)
+			.set({ followerCount: sql`${user.followerCount} + 1` })
+			.where(eq(user.id, userId));
+		await tx
+			.update(user)
+			.set({ followingCount: sql`${user.followingCount} + 1` })
+			.where(eq(user.id, followerId));
+
+		return true;
+	});
+
+	if (!followed) {
+		return json({ error: 'Already following this user' }, { status: 409 });
 	}
+
+	await invalidateFollowState(followerId, userId);
+	// Show the author's recent recipes in the follower's feed right away
+	await backfillTimeline(followerId, userId);
+
+	return json({ success: true, following: true });
 };
 
 export const DELETE: RequestHandler = async ({ request, locals }) => {
@@ -46,9 +69,30 @@ export const DELETE: RequestHandler = async ({ request, locals }) => {
 		return json({ error: 'Invalid user ID' }, { status: 400 });
 	}
 
-	await db
-		.delete(follows)
-		.where(and(eq(follows.followerId, locals.user.id), eq(follows.followingId, userId)));
+	const followerId = locals.user.id;
+
+	await db.transaction(async (tx) => {
+		const deleted = await tx
+			.delete(follows)
+			.where(and(eq(follows.followerId, followerId), eq(follows.followingId, userId)))
+			.returning({ followingId: follows.followingId });
+
+		if (deleted.length === 0) {
+			return;
+		}
+
+		await tx
+			.update(user)
+			.set({ followerCount: sql`GREATEST(${user.followerCount} - 1, 0)` })
+			.where(eq(user.id, userId));
+		await tx
+			.update(user)
+			.set({ followingCount: sql`GREATEST(${user.followingCount} - 1, 0)` })
+			.where(eq(user.id, followerId));
+	});
+
+	await invalidateFollowState(followerId, userId);
+	await pruneTimeline(followerId, userId);
 
 	return json({ success: true, following: false });
 };
@@ -0,0 +1,53 @@
+import { json } from '@sveltejs/kit';
+import type { RequestHandler } from './$types';
+import { findPantryMatches, MAX_PANTRY_KEYS } from '$lib/server/pantry';
+import { isValidLanguageCode } from '$lib/server/validation/recipe';
+
+// Ingredient keys are lowercase snake_case catalog keys (olive_oil); hyphens sent by
+// clients (olive-oil) are normalized to underscores before validation
+const INGREDIENT_KEY_PATTERN = /^[a-z0-9_]{1,100}$/;
+
+/**
+ * Recipes that can be cooked from a pantry
+ * GET /api/pantry?keys=egg,flour,milk&lang=en&limit=20&maxMissing=2
+ * Ranked by fewest missing ingredients, then most matched, then upvotes.
+ */
+export const GET: RequestHandler = async ({ url }) => {
+	const lang = url.searchParams.get('lang') || 'en';
+	const limit = Math.min(Math.max(parseInt(url.searchParams.get('limit') || '20') || 20, 1), 50);
+	const maxMissingParam = url.searchParams.get('maxMissing');
+	const maxMissing = maxMissingParam !== null ? parseInt(maxMissingParam) : undefined;
+
+	const keys = [
+		...new Set(
+			(url.searchParams.get('keys') || '')
+				.split(',')
+				.map((key) => key.trim().toLowerCase().replace(/-/g, '_'))
+				.filter(Boolean)
+		)
+	];
+
+	if (keys.length === 0) {
+		return json({ error: 'At least one ingredient key is required' }, { status: 400 });
+	}
+
+	if (keys.length > MAX_PANTRY_KEYS) {
+		return json({ error: `At most ${MAX_PANTRY_KEYS} ingredient keys are allowed` }, { status: 400 });
+	}
+
+	if (!keys.every((key) => INGREDIENT_KEY_PATTERN.test(key))) {
+		return json({ error: 'Invalid ingredient key' }, { status: 400 });
+	}
+
+	if (!isValidLanguageCode(lang)) {
+		return json({ error: 'Invalid language' }, { status: 400 });
+	}
+
+	if (maxMissing !== undefined && (isNaN(maxMissing) || maxMissing < 0)) {
+		return json({ error: 'maxMissing must be a non-negative number' }, { status: 400 });
+	}
+
+	const recipes = await findPantryMatches(keys, lang, { limit, maxMissing });
+
+	return json({ recipes });
+};
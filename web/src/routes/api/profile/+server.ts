@@ -5,6 +5,7 @@ import { user } from '$lib/server/db/schema';
 import { eq } from 'drizzle-orm';
 import { sanitizeText } from '$lib/server/validation/sanitize';
 import { logger, getRequestId } from '$lib/server/logger';
+import { cacheDelete, cacheKeys } from '$lib/server/redis/cache';
 
 function isValidUrl(urlString: string): boolean {
 	try {
@@ -68,6 +69,8 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 			})
 			.where(eq(user.id, userId));
 
+		await cacheDelete(cacheKeys.authorCard(userId));
+
 		return json({ success: true });
 	} catch (error) {
 		logger.error('Failed to update profile', error, { userId });
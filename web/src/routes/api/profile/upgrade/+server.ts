@@ -1,10 +1,11 @@
 import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
-import { user, recipes, votes, TIER_REQUIREMENTS } from '$lib/server/db/schema';
+import { user, TIER_REQUIREMENTS } from '$lib/server/db/schema';
 import type { ProfileTier } from '$lib/server/db/schema/auth';
-import { eq, and, sql } from 'drizzle-orm';
+import { eq } from 'drizzle-orm';
 import { logger, getRequestId } from '$lib/server/logger';
+import { getAuthorRecipeStats } from '$lib/server/recipeCards';
 
 export const POST: RequestHandler = async ({ request, locals }) => {
 	if (!locals.user) {
@@ -50,16 +51,7 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 	try {
 		const result = await db.transaction(async (tx) => {
 			// Calculate current stats inside transaction for consistency
-			const statsResult = await tx
-				.select({
-					recipeCount: sql<number>`COUNT(DISTINCT ${recipes.id})::int`,
-					totalUpvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`
-				})
-				.from(recipes)
-				.leftJoin(votes, eq(recipes.id, votes.recipeId))
-				.where(and(eq(recipes.authorId, userId), eq(recipes.isPublished, true)));
-
-			const stats = statsResult[0] ?? { recipeCount: 0, totalUpvotes: 0 };
+			const stats = await getAuthorRecipeStats(userId, tx);
 
 			// Validate requirements
 			if (stats.recipeCount < requirements.recipes || stats.totalUpvotes < requirements.upvotes) {
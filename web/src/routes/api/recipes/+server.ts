@@ -1,10 +1,24 @@
 import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
-import { recipes, ingredients, steps, tips, equipment, user, votes } from '$lib/server/db/schema';
-import { eq, and, ilike, sql, desc, or } from 'drizzle-orm';
+import { recipes, ingredients, steps, tips, equipment } from '$lib/server/db/schema';
+import { eq, and, desc } from 'drizzle-orm';
 import { moderateRecipe, queueForReview } from '$lib/server/moderation';
-import { cacheDeletePattern } from '$lib/server/redis/cache';
+import { enqueueModeration, wakeModerationWorkers } from '$lib/server/moderation/queue';
+import { cacheInvalidateTags, cacheTags } from '$lib/server/redis/cache';
+import { selectRecipeCards, toRecipeCard } from '$lib/server/recipeCards';
+import {
+	canFuzzySearch,
+	fullTextMatch,
+	fuzzyTitleMatch,
+	fuzzyTitleRank,
+	refreshRecipeContentVector,
+	selectRankedSearchPage,
+	titlePrefixMatch
+} from '$lib/server/search';
+import { afterCursor, decodeCursor, keysetOrder, keysetPage, type Cursor } from '$lib/server/pagination';
+import { refreshRecipeIngredientKeys } from '$lib/server/pantry';
+import { fanOutRecipe } from '$lib/server/timeline';
 import { logger, getRequestId } from '$lib/server/logger';
 import {
 	isValidCuisine,
@@ -21,6 +35,7 @@ import { sanitizeText } from '$lib/server/validation/sanitize';
 
 const MIN_SEARCH_LENGTH = 2; // Minimum characters for full-text search
 const MAX_SEARCH_LENGTH = 500; // Maximum characters for search query
+const LIST_SORT = 'latest'; // Listing order (newest first), recorded in cursors
 
 export const GET: RequestHandler = async ({ url }) => {
 	// Limit search query length to prevent abuse
@@ -29,22 +44,35 @@ export const GET: RequestHandler = async ({ url }) => {
 	const difficulty = url.searchParams.get('difficulty');
 	const tag = url.searchParams.get('tag');
 	const lang = url.searchParams.get('lang') || 'en';
+	// 'fuzzy': typo-tolerant title search ranked by similarity (offset paged, no cursor)
+	const fuzzy = url.searchParams.get('match') === 'fuzzy' && canFuzzySearch(query);
+	// 'relevance': full-text matches ranked by text rank, votes and recency (offset paged)
+	const ranked =
+		url.searchParams.get('sort') === 'relevance' && !fuzzy && query.length >= MIN_SEARCH_LENGTH;
 	const page = parseInt(url.searchParams.get('page') || '1');
 	const limit = Math.min(parseInt(url.searchParams.get('limit') || '20'), 50);
 	const offset = (page - 1) * limit;
 
+	// Keyset pagination: `cursor` (from nextCursor) takes precedence over `page`
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), LIST_SORT, 'timestamp');
+	} catch {
+		return json({ error: 'Invalid cursor' }, { status: 400 });
+	}
+
 	// Build where conditions
 	const conditions = [eq(recipes.isPublished, true)];
 
-	// Use full-text search for queries with sufficient length
-	if (query && query.length >= MIN_SEARCH_LENGTH) {
-		// Full-text search using GIN-indexed search_vector
-		conditions.push(
-			sql`${recipes.searchVector} @@ plainto_tsquery('english', ${query})`
-		);
+	if (fuzzy) {
+		conditions.push(fuzzyTitleMatch(query));
+	} else if (query && query.length >= MIN_SEARCH_LENGTH) {
+		// Use full-text search for queries with sufficient length
+		// Full-text search using the search_vector GIN index, stemmed for the recipe language
+		conditions.push(fullTextMatch(lang, query));
 	} else if (query && query.length > 0) {
-		// For short queries, use prefix matching on title only (can use index)
-		conditions.push(ilike(recipes.title, `${query}%`));
+		// For short queries, use prefix matching on title only (trigram index)
+		conditions.push(titlePrefixMatch(query));
 	}
 
 	if (cuisine) {
@@ -63,55 +91,54 @@ export const GET: RequestHandler = async ({ url }) => {
 		conditions.push(eq(recipes.language, lang));
 	}
 
-	// Get recipes with vote counts and author info in a single query (fixes N+1)
-	const recipeResults = await db
-		.select({
-			id: recipes.id,
-			slug: recipes.slug,
-			title: recipes.title,
-			description: recipes.description,
-			photoUrl: recipes.photoUrl,
-			prepTimeMinutes: recipes.prepTimeMinutes,
-			cookTimeMinutes: recipes.cookTimeMinutes,
-			difficulty: recipes.difficulty,
-			cuisine: recipes.cuisine,
-			tag: recipes.tag,
-			authorId: recipes.authorId,
-			authorUsername: user.username,
-			authorFullName: user.fullName,
-			authorName: user.name,
-			publishedAt: recipes.publishedAt,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
-		})
-		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.leftJoin(user, eq(recipes.authorId, user.id))
+	if (fuzzy) {
+		const fuzzyResults = await selectRecipeCards()
+			.where(and(...conditions))
+			.orderBy(desc(fuzzyTitleRank(query)), desc(recipes.id))
+			.limit(limit + 1)
+			.offset(offset);
+
+		return json({
+			recipes: fuzzyResults.slice(0, limit).map(toRecipeCard),
+			page,
+			limit,
+			nextCursor: null,
+			hasMore: fuzzyResults.length > limit
+		});
+	}
+
+	if (ranked) {
+		const rankedResults = await selectRankedSearchPage(lang, query, and(...conditions), limit, offset);
+
+		return json({
+			recipes: rankedResults.slice(0, limit).map(toRecipeCard),
+			page,
+			limit,
+			nextCursor: null,
+			hasMore: rankedResults.length > limit
+		});
+	}
+
+	if (cursor) {
+		conditions.push(afterCursor(recipes.publishedAt, recipes.id, cursor));
+	}
+
+	// Card columns only: vote counts are denormalized on recipes, so no votes join/GROUP BY
+	// One extra row tells whether there is a next page
+	const recipeResults = await selectRecipeCards(recipes.publishedAt)
 		.where(and(...conditions))
-		.groupBy(recipes.id, user.id, user.username, user.fullName, user.name)
-		.orderBy(desc(recipes.publishedAt))
-		.limit(limit)
-		.offset(offset);
+		.orderBy(...keysetOrder(recipes.publishedAt, recipes.id))
+		.limit(limit + 1)
+		.offset(cursor ? 0 : offset);
+
+	const { rows, nextCursor } = keysetPage(recipeResults, limit, LIST_SORT);
 
 	return json({
-		recipes: recipeResults.map((r) => ({
-			slug: r.slug,
-			title: r.title,
-			description: r.description,
-			photoUrl: r.photoUrl,
-			authorName: r.authorFullName || r.authorName || 'Unknown',
-			authorUsername: r.authorUsername || '',
-			cuisine: r.cuisine,
-			tag: r.tag,
-			difficulty: r.difficulty,
-			prepTimeMinutes: r.prepTimeMinutes,
-			cookTimeMinutes: r.cookTimeMinutes,
-			upvotes: r.upvotes,
-			downvotes: r.downvotes,
-			publishedAt: r.publishedAt
-		})),
+		recipes: rows.map(toRecipeCard),
 		page,
-		limit
+		limit,
+		nextCursor,
+		hasMore: nextCursor !== null
 	});
 };
 
@@ -353,8 +380,10 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 						cookTimeMinutes: cookTime,
 						servings: servings || 4,
 						photoUrl: photoUrl || null,
-						isPublished: true,
-						publishedAt: new Date()
+						// Pending recipes are published by the moderation workers once approved
+						isPublished: !moderation.pending,
+						publishedAt: moderation.pending ? null : new Date(),
+						moderationStatus: moderation.pending ? 'pending' : 'approved'
 					})
 					.returning({ id: recipes.id });
 
@@ -406,20 +435,36 @@ export const POST: RequestHandler = async ({ request, locals }) => {
 					await tx.insert(equipment).values(equipmentValues);
 				}
 
+				// Index ingredients, steps and tips for search and pantry matching
+				await refreshRecipeContentVector(tx, recipe.id);
+				await refreshRecipeIngredientKeys(tx, recipe.id);
+
+				if (moderation.pending) {
+					await enqueueModeration(tx, 'recipe', recipe.id);
+				}
+
 				return { recipeId: recipe.id, slug };
 			});
 
+			if (moderation.pending) {
+				wakeModerationWorkers();
+				return json({ success: true, slug: result.slug, pending: true });
+			}
+
 			// Queue for manual review if moderation couldn't complete (outside transaction)
 			if (moderation.needsReview && moderation.reviewReason) {
 				await queueForReview('recipe', result.recipeId, moderation.reviewReason);
 			}
 
 			// Invalidate caches since a new recipe was published
-			await Promise.all([
-				cacheDeletePattern('trending:*'),
-				cacheDeletePattern('discover:*'),
-				cacheDeletePattern('homepage:*')
-			]);
+			await cacheInvalidateTags(cacheTags.trending, cacheTags.discover, cacheTags.homepage, cacheTags.recipeCounts);
+
+			// Deliver to followers' feeds; the recipe is saved either way
+			try {
+				await fanOutRecipe(result.recipeId, userId);
+			} catch (fanOutError) {
+				logger.error('Failed to fan out recipe to followers', fanOutError, { recipeId: result.recipeId });
+			}
 
 			return json({ success: true, slug: result.slug });
 		} catch (error) {
@@ -4,7 +4,10 @@ import { db } from '$lib/server/db';
 import { recipes, ingredients, steps, tips, equipment } from '$lib/server/db/schema';
 import { eq, sql } from 'drizzle-orm';
 import { moderateRecipe } from '$lib/server/moderation';
-import { cacheDeletePattern } from '$lib/server/redis/cache';
+import { enqueueModeration, wakeModerationWorkers } from '$lib/server/moderation/queue';
+import { cacheInvalidateTags, cacheTags } from '$lib/server/redis/cache';
+import { refreshRecipeContentVector } from '$lib/server/search';
+import { refreshRecipeIngredientKeys } from '$lib/server/pantry';
 import { logger, getRequestId } from '$lib/server/logger';
 import {
 	isValidCuisine,
@@ -232,12 +235,12 @@ export const PUT: RequestHandler = async ({ params, request, locals }) => {
 					cookTimeMinutes: cookTime,
 					servings: servings || 4,
 					photoUrl: photoUrl !== undefined ? photoUrl : sql`${recipes.photoUrl}`,
-					searchVector: sql`
-						setweight(to_tsvector('english', ${sanitizedTitle}), 'A') ||
-						setweight(to_tsvector('english', ${sanitizedDescription}), 'B') ||
-						setweight(to_tsvector('english', ${cuisine.trim()}), 'C') ||
-						setweight(to_tsvector('english', ${sanitizedTag}), 'C')
-					`,
+					searchVector: sql`recipe_search_document(${language.trim()}, ${sanitizedTitle}, ${sanitizedDescription}, ${cuisine.trim()}, ${sanitizedTag}) || COALESCE(${recipes.contentVector}, ''::tsvector)`,
+					// A pending edit takes the recipe out of listings and pages until the moderation
+					// workers approve it; an edit that passes moderation republishes a rejected recipe
+					...(moderation.pending
+						? { moderationStatus: 'pending', isPublished: false }
+						: { moderationStatus: 'approved', isPublished: true, publishedAt: sql`COALESCE(${recipes.publishedAt}, now())` }),
 					updatedAt: new Date()
 				})
 				.where(eq(recipes.id, id));
@@ -295,16 +298,24 @@ export const PUT: RequestHandler = async ({ params, request, locals }) => {
 				}));
 				await tx.insert(equipment).values(equipmentValues);
 			}
+
+			// Re-index ingredients, steps and tips for search and pantry matching
+			await refreshRecipeContentVector(tx, id);
+			await refreshRecipeIngredientKeys(tx, id);
+
+			if (moderation.pending) {
+				await enqueueModeration(tx, 'recipe', id);
+			}
 		});
 
+		if (moderation.pending) {
+			wakeModerationWorkers();
+		}
+
 		// Invalidate caches since a recipe was updated
-		await Promise.all([
-			cacheDeletePattern('trending:*'),
-			cacheDeletePattern('discover:*'),
-			cacheDeletePattern('homepage:*')
-		]);
+		await cacheInvalidateTags(cacheTags.trending, cacheTags.discover, cacheTags.homepage, cacheTags.recipeCounts);
 
-		return json({ success: true, slug: existingRecipe.slug });
+		return json({ success: true, slug: existingRecipe.slug, pending: moderation.pending || undefined });
 	} catch (error) {
 		logger.error('Failed to update recipe', error, { recipeId: id });
 		return json({ error: 'Failed to update recipe', requestId: getRequestId() }, { status: 500 });
@@ -341,11 +352,7 @@ export const DELETE: RequestHandler = async ({ params, locals }) => {
 		await db.delete(recipes).where(eq(recipes.id, id));
 
 		// Invalidate caches since a recipe was deleted
-		await Promise.all([
-			cacheDeletePattern('trending:*'),
-			cacheDeletePattern('discover:*'),
-			cacheDeletePattern('homepage:*')
-		]);
+		await cacheInvalidateTags(cacheTags.trending, cacheTags.discover, cacheTags.homepage, cacheTags.recipeCounts);
 
 		return json({ success: true });
 	} catch (error) {
@@ -3,6 +3,7 @@ import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
 import { recipes, ingredients, steps, user, votes, bookmarks } from '$lib/server/db/schema';
 import { eq, sql, asc, and } from 'drizzle-orm';
+import { withPendingVotes } from '$lib/server/votes';
 
 export const GET: RequestHandler = async ({ params, locals }) => {
 	const { slug } = params;
@@ -119,8 +120,7 @@ export const GET: RequestHandler = async ({ params, locals }) => {
 			prepTimeMinutes: result.prepTimeMinutes,
 			cookTimeMinutes: result.cookTimeMinutes,
 			servings: result.servings,
-			upvotes: result.upvotes,
-			downvotes: result.downvotes,
+			...withPendingVotes(result.id, { upvotes: result.upvotes, downvotes: result.downvotes }),
 			userVote: result.userVote,
 			isBookmarked: result.bookmarkId !== null,
 			commentCount: result.commentCount,
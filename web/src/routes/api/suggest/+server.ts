@@ -0,0 +1,24 @@
+import { json } from '@sveltejs/kit';
+import type { RequestHandler } from './$types';
+import { getSuggestions, MAX_SUGGESTIONS } from '$lib/server/suggest';
+
+const MAX_QUERY_LENGTH = 100;
+
+/**
+ * Typeahead suggestions: recipe titles (slug), tags and chefs matching a prefix
+ * GET /api/suggest?q=chick&lang=en&limit=5
+ * Served from in-memory indexes; run the full search (/api/recipes) on submit.
+ */
+export const GET: RequestHandler = async ({ url }) => {
+	const q = (url.searchParams.get('q') || '').slice(0, MAX_QUERY_LENGTH);
+	const lang = url.searchParams.get('lang') || 'en';
+	const limit = parseInt(url.searchParams.get('limit') || String(MAX_SUGGESTIONS)) || MAX_SUGGESTIONS;
+
+	const suggestions = await getSuggestions(q, lang, limit);
+
+	return json(suggestions, {
+		headers: {
+			'Cache-Control': 'public, max-age=60, stale-while-revalidate=300'
+		}
+	});
+};
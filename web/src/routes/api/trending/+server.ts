@@ -1,26 +1,11 @@
 import { json } from '@sveltejs/kit';
 import type { RequestHandler } from './$types';
 import { db } from '$lib/server/db';
-import { user, follows, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, desc, sql, gte } from 'drizzle-orm';
-import { cacheGetOrSet, cacheKeys } from '$lib/server/redis/cache';
-
-interface TrendingRecipe {
-	slug: string;
-	title: string;
-	description: string | null;
-	photoUrl: string | null;
-	authorName: string;
-	authorUsername: string;
-	cuisine: string | null;
-	tag: string | null;
-	difficulty: string | null;
-	prepTimeMinutes: number | null;
-	cookTimeMinutes: number | null;
-	upvotes: number;
-	downvotes: number;
-	publishedAt: Date | null;
-}
+import { user, follows } from '$lib/server/db/schema';
+import { desc, sql, gte } from 'drizzle-orm';
+import { cacheGetOrSet, cacheKeys, cacheTags, CACHE_STALE_TTL } from '$lib/server/redis/cache';
+import { getTrendingRecipes } from '$lib/server/rankings';
+import { toRecipeCard, type RecipeCard } from '$lib/server/recipeCards';
 
 interface TrendingChef {
 	username: string;
@@ -28,71 +13,27 @@ interface TrendingChef {
 	photoUrl: string | null;
 	profileTier: string;
 	newFollowers: number;
+	followerCount: number;
 }
 
 interface TrendingData {
-	recipes: TrendingRecipe[];
+	recipes: RecipeCard[];
 	chefs: TrendingChef[];
 }
 
 export const GET: RequestHandler = async ({ url }) => {
 	const lang = url.searchParams.get('lang') || 'en';
 
-	// Use Redis cache with 1-minute TTL
+	// Use Redis cache with 1-minute TTL, serving stale data while a background refresh runs
 	const data = await cacheGetOrSet<TrendingData>(
 		cacheKeys.trending(lang),
 		'trending',
 		async () => {
 			const now = new Date();
 			const sevenDaysAgo = new Date(now.getTime() - 7 * 24 * 60 * 60 * 1000);
-			const thirtyDaysAgo = new Date(now.getTime() - 30 * 24 * 60 * 60 * 1000);
 
-			// Trending Recipes: Top voted published recipes in the last 30 days
-			const trendingRecipes = await db
-				.select({
-					id: recipes.id,
-					slug: recipes.slug,
-					title: recipes.title,
-					description: recipes.description,
-					photoUrl: recipes.photoUrl,
-					prepTimeMinutes: recipes.prepTimeMinutes,
-					cookTimeMinutes: recipes.cookTimeMinutes,
-					difficulty: recipes.difficulty,
-					cuisine: recipes.cuisine,
-					tag: recipes.tag,
-					authorId: recipes.authorId,
-					publishedAt: recipes.publishedAt,
-					upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-					downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
-				})
-				.from(recipes)
-				.leftJoin(votes, eq(recipes.id, votes.recipeId))
-				.where(
-					and(
-						eq(recipes.isPublished, true),
-						eq(recipes.language, lang),
-						gte(recipes.publishedAt, thirtyDaysAgo)
-					)
-				)
-				.groupBy(recipes.id)
-				.orderBy(desc(sql`SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END) - SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END)`))
-				.limit(10);
-
-			// Get author info for trending recipes
-			const trendingAuthorIds = [...new Set(trendingRecipes.map((r) => r.authorId))];
-			const trendingAuthors = trendingAuthorIds.length > 0
-				? await db
-						.select({
-							userId: user.id,
-							username: user.username,
-							fullName: user.fullName,
-							name: user.name
-						})
-						.from(user)
-						.where(sql`${user.id} IN ${trendingAuthorIds}`)
-				: [];
-
-			const trendingAuthorMap = new Map(trendingAuthors.map((a) => [a.userId, a]));
+			// Trending Recipes: Hottest published recipes (hot_score index scan)
+			const trendingRecipes = await getTrendingRecipes(lang, 10);
 
 			// Trending Chefs: Most new followers in the past 7 days
 			const trendingChefs = await db
@@ -116,7 +57,8 @@ export const GET: RequestHandler = async ({ url }) => {
 							fullName: user.fullName,
 							name: user.name,
 							photoUrl: user.photoUrl,
-							profileTier: user.profileTier
+							profileTier: user.profileTier,
+							followerCount: user.followerCount
 						})
 						.from(user)
 						.where(sql`${user.id} IN ${trendingChefIds}`)
@@ -125,25 +67,7 @@ export const GET: RequestHandler = async ({ url }) => {
 			const chefDetailsMap = new Map(chefDetails.map((c) => [c.userId, c]));
 
 			return {
-				recipes: trendingRecipes.map((r) => {
-					const author = trendingAuthorMap.get(r.authorId);
-					return {
-						slug: r.slug,
-						title: r.title,
-						description: r.description,
-						photoUrl: r.photoUrl,
-						authorName: author?.fullName || author?.name || 'Unknown',
-						authorUsername: author?.username || '',
-						cuisine: r.cuisine,
-						tag: r.tag,
-						difficulty: r.difficulty,
-						prepTimeMinutes: r.prepTimeMinutes,
-						cookTimeMinutes: r.cookTimeMinutes,
-						upvotes: r.upvotes,
-						downvotes: r.downvotes,
-						publishedAt: r.publishedAt
-					};
-				}),
+				recipes: trendingRecipes.map(toRecipeCard),
 				chefs: trendingChefs
 					.map((c) => {
 						const chef = chefDetailsMap.get(c.userId);
@@ -152,12 +76,14 @@ export const GET: RequestHandler = async ({ url }) => {
 							fullName: chef?.fullName || chef?.name || 'Unknown',
 							photoUrl: chef?.photoUrl ?? null,
 							profileTier: chef?.profileTier || 'user',
+							followerCount: chef?.followerCount ?? 0,
 							newFollowers: c.newFollowers
 						};
 					})
 					.filter((c) => c.username)
 			};
-		}
+		},
+		{ tags: [cacheTags.trending], staleWhileRevalidate: CACHE_STALE_TTL.trending }
 	);
 
 	return json(data, {
@@ -1,15 +1,16 @@
 import { redirect } from '@sveltejs/kit';
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
-import { bookmarks, recipes, votes, user } from '$lib/server/db/schema';
-import { eq, sql, desc } from 'drizzle-orm';
+import { bookmarks, recipes } from '$lib/server/db/schema';
+import { eq, desc } from 'drizzle-orm';
+import { createAuthorCardLoader, createRecipeStatsLoader } from '$lib/server/loaders';
 
 export const load: PageServerLoad = async ({ locals }) => {
 	if (!locals.user) {
 		throw redirect(302, '/auth/login');
 	}
 
-	// Get user's bookmarked recipes with vote counts
+	// Get user's bookmarked recipes
 	const bookmarkedRecipes = await db
 		.select({
 			id: recipes.id,
@@ -24,36 +25,24 @@ export const load: PageServerLoad = async ({ locals }) => {
 			tag: recipes.tag,
 			authorId: recipes.authorId,
 			publishedAt: recipes.publishedAt,
-			bookmarkedAt: bookmarks.createdAt,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
+			bookmarkedAt: bookmarks.createdAt
 		})
 		.from(bookmarks)
 		.innerJoin(recipes, eq(bookmarks.recipeId, recipes.id))
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
 		.where(eq(bookmarks.userId, locals.user.id))
-		.groupBy(recipes.id, bookmarks.createdAt)
 		.orderBy(desc(bookmarks.createdAt));
 
-	// Get author info
+	// Vote counts and author cards come from the cache; misses are batched into one query each
 	const authorIds = [...new Set(bookmarkedRecipes.map((r) => r.authorId))];
-	const authors =
-		authorIds.length > 0
-			? await db
-					.select({
-						userId: user.id,
-						username: user.username,
-						fullName: user.fullName,
-						name: user.name
-					})
-					.from(user)
-					.where(sql`${user.id} IN ${authorIds}`)
-			: [];
+	const [stats, authors] = await Promise.all([
+		createRecipeStatsLoader().loadMany(bookmarkedRecipes.map((r) => r.id)),
+		createAuthorCardLoader().loadMany(authorIds)
+	]);
 
-	const authorMap = new Map(authors.map((a) => [a.userId, a]));
+	const authorMap = new Map(authorIds.map((id, i) => [id, authors[i]]));
 
 	return {
-		recipes: bookmarkedRecipes.map((r) => {
+		recipes: bookmarkedRecipes.map((r, i) => {
 			const author = authorMap.get(r.authorId);
 			return {
 				slug: r.slug,
@@ -67,8 +56,8 @@ export const load: PageServerLoad = async ({ locals }) => {
 				difficulty: r.difficulty as 'easy' | 'medium' | 'hard' | null,
 				prepTimeMinutes: r.prepTimeMinutes,
 				cookTimeMinutes: r.cookTimeMinutes,
-				upvotes: r.upvotes,
-				downvotes: r.downvotes,
+				upvotes: stats[i]?.upvotes ?? 0,
+				downvotes: stats[i]?.downvotes ?? 0,
 				publishedAt: r.publishedAt
 			};
 		})
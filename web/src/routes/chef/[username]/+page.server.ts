@@ -1,8 +1,10 @@
 import { error } from '@sveltejs/kit';
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
-import { user, follows, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, sql, desc, asc } from 'drizzle-orm';
+import { user, recipes } from '$lib/server/db/schema';
+import { eq, and, desc, asc } from 'drizzle-orm';
+import { createRecipeStatsLoader } from '$lib/server/loaders';
+import { isFollowing as checkFollowing } from '$lib/server/socialGraph';
 
 export const load: PageServerLoad = async ({ params, locals, url }) => {
 	const { username } = params;
@@ -22,7 +24,7 @@ export const load: PageServerLoad = async ({ params, locals, url }) => {
 	// Determine sort order
 	let orderByClause;
 	if (sortBy === 'upvotes') {
-		orderByClause = desc(sql`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)`);
+		orderByClause = desc(recipes.upvotes);
 	} else if (sortBy === 'earliest') {
 		orderByClause = asc(recipes.publishedAt);
 	} else {
@@ -30,7 +32,7 @@ export const load: PageServerLoad = async ({ params, locals, url }) => {
 		orderByClause = desc(recipes.publishedAt);
 	}
 
-	// Get user's published recipes with vote counts
+	// Get user's published recipes
 	const chefRecipes = await db
 		.select({
 			id: recipes.id,
@@ -43,38 +45,25 @@ export const load: PageServerLoad = async ({ params, locals, url }) => {
 			difficulty: recipes.difficulty,
 			cuisine: recipes.cuisine,
 			tag: recipes.tag,
-			publishedAt: recipes.publishedAt,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
+			publishedAt: recipes.publishedAt
 		})
 		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
 		.where(and(eq(recipes.authorId, foundUser.id), eq(recipes.isPublished, true)))
-		.groupBy(recipes.id)
 		.orderBy(orderByClause);
 
+	// Vote counts come from the cache; misses are batched into one query
+	const stats = await createRecipeStatsLoader().loadMany(chefRecipes.map((r) => r.id));
+
 	// Calculate total upvotes across all recipes
-	const totalUpvotes = chefRecipes.reduce((sum, r) => sum + r.upvotes, 0);
+	const totalUpvotes = stats.reduce((sum, s) => sum + (s?.upvotes ?? 0), 0);
 
-	// Get follower count
-	const followerResult = await db
-		.select({ count: sql<number>`count(*)::int` })
-		.from(follows)
-		.where(eq(follows.followingId, foundUser.id));
-	const followerCount = followerResult[0]?.count ?? 0;
+	// Follower count is denormalized on the user row (maintained by api/follow)
+	const followerCount = foundUser.followerCount;
 
-	// Check if current user is following this chef
+	// Check if current user is following this chef (social graph cache)
 	let isFollowing = false;
 	if (locals.user && locals.user.id !== foundUser.id) {
-		const followResult = await db
-			.select({ followerId: follows.followerId })
-			.from(follows)
-			.where(and(
-				eq(follows.followerId, locals.user.id),
-				eq(follows.followingId, foundUser.id)
-			))
-			.limit(1);
-		isFollowing = followResult.length > 0;
+		isFollowing = await checkFollowing(locals.user.id, foundUser.id);
 	}
 
 	// Determine profile display values
@@ -101,7 +90,7 @@ export const load: PageServerLoad = async ({ params, locals, url }) => {
 				followerCount
 			}
 		},
-		recipes: chefRecipes.map((r) => ({
+		recipes: chefRecipes.map((r, i) => ({
 			slug: r.slug,
 			title: r.title,
 			description: r.description,
@@ -113,8 +102,8 @@ export const load: PageServerLoad = async ({ params, locals, url }) => {
 			difficulty: r.difficulty as 'easy' | 'medium' | 'hard' | null,
 			prepTimeMinutes: r.prepTimeMinutes,
 			cookTimeMinutes: r.cookTimeMinutes,
-			upvotes: r.upvotes,
-			downvotes: r.downvotes,
+			upvotes: stats[i]?.upvotes ?? 0,
+			downvotes: stats[i]?.downvotes ?? 0,
 			publishedAt: r.publishedAt
 		})),
 		isFollowing,
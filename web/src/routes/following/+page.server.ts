@@ -1,78 +1,60 @@
-import { redirect } from '@sveltejs/kit';
+import { error, redirect } from '@sveltejs/kit';
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
-import { user, follows, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, desc, inArray, sql } from 'drizzle-orm';
+import { follows } from '$lib/server/db/schema';
+import { eq } from 'drizzle-orm';
+import { createAuthorCardLoader } from '$lib/server/loaders';
+import { decodeCursor, type Cursor } from '$lib/server/pagination';
+import { getTimelinePage, TIMELINE_SORT } from '$lib/server/timeline';
 
-export const load: PageServerLoad = async ({ locals }) => {
+const PAGE_SIZE = 20;
+
+export const load: PageServerLoad = async ({ locals, url }) => {
 	if (!locals.user) {
 		throw redirect(302, '/auth/login');
 	}
 
-	// Get list of users that the current user follows
-	const followingRecords = await db
-		.select({ followingId: follows.followingId })
-		.from(follows)
-		.where(eq(follows.followerId, locals.user.id));
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), TIMELINE_SORT, 'timestamp');
+	} catch {
+		throw error(400, 'Invalid cursor');
+	}
 
-	const followingIds = followingRecords.map((f) => f.followingId);
+	// Recipes come from the user's timeline inbox (see $lib/server/timeline), one keyset page at a time
+	const [following, page] = await Promise.all([
+		db
+			.select({ followingId: follows.followingId })
+			.from(follows)
+			.where(eq(follows.followerId, locals.user.id))
+			.limit(1),
+		getTimelinePage(locals.user.id, cursor, PAGE_SIZE)
+	]);
 
-	if (followingIds.length === 0) {
+	if (following.length === 0) {
 		return {
 			timelineItems: [],
+			nextCursor: null,
 			isEmpty: true
 		};
 	}
 
-	// Get published recipes from followed users with vote counts
-	const timelineRecipes = await db
-		.select({
-			id: recipes.id,
-			slug: recipes.slug,
-			title: recipes.title,
-			description: recipes.description,
-			photoUrl: recipes.photoUrl,
-			prepTimeMinutes: recipes.prepTimeMinutes,
-			cookTimeMinutes: recipes.cookTimeMinutes,
-			difficulty: recipes.difficulty,
-			cuisine: recipes.cuisine,
-			tag: recipes.tag,
-			publishedAt: recipes.publishedAt,
-			authorId: recipes.authorId,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
-		})
-		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.where(and(inArray(recipes.authorId, followingIds), eq(recipes.isPublished, true)))
-		.groupBy(recipes.id)
-		.orderBy(desc(recipes.publishedAt))
-		.limit(50);
-
-	// Get author info for each recipe
-	const authorIds = [...new Set(timelineRecipes.map((r) => r.authorId))];
-	const authors = await db
-		.select({
-			userId: user.id,
-			username: user.username,
-			fullName: user.fullName,
-			photoUrl: user.photoUrl
-		})
-		.from(user)
-		.where(inArray(user.id, authorIds));
-
-	const authorMap = new Map(authors.map((a) => [a.userId, a]));
+	// Vote counts come with the card rows; author photos from the cache, misses batched into one query
+	const authorIds = [...new Set(page.rows.map((r) => r.authorId))];
+	const authors = await createAuthorCardLoader().loadMany(authorIds);
+	const authorMap = new Map(authorIds.map((id, i) => [id, authors[i]]));
 
-	const timelineItems = timelineRecipes.map((recipe) => {
+	const timelineItems = page.rows.map((recipe) => {
 		const author = authorMap.get(recipe.authorId);
+		const fullName = recipe.authorFullName || recipe.authorName || 'Unknown Chef';
 		return {
 			recipe: {
 				slug: recipe.slug,
 				title: recipe.title,
 				description: recipe.description,
 				image: recipe.photoUrl,
-				authorName: author?.fullName || 'Unknown Chef',
-				authorUsername: author?.username || '',
+				authorName: fullName,
+				authorUsername: recipe.authorUsername || '',
 				cuisine: recipe.cuisine,
 				tag: recipe.tag,
 				difficulty: recipe.difficulty as 'easy' | 'medium' | 'hard' | null,
@@ -83,8 +65,8 @@ export const load: PageServerLoad = async ({ locals }) => {
 				publishedAt: recipe.publishedAt
 			},
 			author: {
-				username: author?.username || '',
-				fullName: author?.fullName || 'Unknown Chef',
+				username: recipe.authorUsername || '',
+				fullName,
 				photoUrl: author?.photoUrl
 			},
 			publishedAt: recipe.publishedAt
@@ -93,6 +75,7 @@ export const load: PageServerLoad = async ({ locals }) => {
 
 	return {
 		timelineItems,
+		nextCursor: page.nextCursor,
 		isEmpty: false
 	};
 };
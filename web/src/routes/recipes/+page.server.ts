@@ -1,7 +1,19 @@
 import type { PageServerLoad } from './$types';
+import { error } from '@sveltejs/kit';
 import { db } from '$lib/server/db';
-import { user, recipes, votes } from '$lib/server/db/schema';
-import { eq, and, desc, sql, or, ilike } from 'drizzle-orm';
+import { recipes } from '$lib/server/db/schema';
+import { selectRecipeCards, type RecipeCardRow } from '$lib/server/recipeCards';
+import { countRecipes } from '$lib/server/counts';
+import {
+	canFuzzySearch,
+	fullTextMatch,
+	fuzzyTitleMatch,
+	fuzzyTitleRank,
+	hashtagMatch,
+	titlePrefixMatch
+} from '$lib/server/search';
+import { afterCursor, decodeCursor, keysetOrder, keysetPage, type Cursor } from '$lib/server/pagination';
+import { eq, and, sql, desc } from 'drizzle-orm';
 import { parseSearchQuery } from '$lib/utils/searchParser';
 
 const RECIPES_PER_PAGE = 12;
@@ -15,6 +27,7 @@ export const load: PageServerLoad = async ({ url }) => {
 	const tag = url.searchParams.get('tag') || null;
 	const q = url.searchParams.get('q') || '';
 	const lang = url.searchParams.get('lang') || 'en';
+	const match = url.searchParams.get('match'); // 'fuzzy' for typo-tolerant title search
 
 	const offset = (page - 1) * RECIPES_PER_PAGE;
 
@@ -43,101 +56,87 @@ export const load: PageServerLoad = async ({ url }) => {
 	}
 
 	// Add hashtag conditions (AND logic - all hashtags must match)
-	// Each hashtag matches EITHER cuisine OR tag field
+	// Each hashtag matches EITHER cuisine OR tag field (trigram indexed)
 	for (const hashtag of hashtags) {
-		const hashtagCondition = or(
-			ilike(recipes.cuisine, `%${hashtag}%`),
-			ilike(recipes.tag, `%${hashtag}%`)
-		);
-		if (hashtagCondition) {
-			conditions.push(hashtagCondition);
-		}
+		conditions.push(hashtagMatch(hashtag));
 	}
 
-	// Add text search condition using PostgreSQL full-text search
-	// Falls back to ILIKE for short queries (less than MIN_SEARCH_LENGTH chars)
-	if (searchText && searchText.length >= MIN_SEARCH_LENGTH) {
-		// Use full-text search with the search_vector column (GIN indexed)
+	// Text search condition: PostgreSQL full-text search, a title prefix for very
+	// short queries, or typo-tolerant trigram similarity on the title in fuzzy mode
+	const textCondition = (fuzzy: boolean) => {
+		if (!searchText) return undefined;
+		if (fuzzy) return fuzzyTitleMatch(searchText);
 		// plainto_tsquery handles user input safely and converts to tsquery format
-		conditions.push(
-			sql`${recipes.searchVector} @@ plainto_tsquery('english', ${searchText})`
-		);
-	} else if (searchText && searchText.length > 0) {
-		// For very short queries, use prefix matching on title only
-		const textCondition = ilike(recipes.title, `${searchText}%`);
-		if (textCondition) {
-			conditions.push(textCondition);
-		}
-	}
-
-	// Get current date info for time-based sorting
-	const now = new Date();
-	const sevenDaysAgo = new Date(now.getTime() - 7 * 24 * 60 * 60 * 1000);
-	const thirtyDaysAgo = new Date(now.getTime() - 30 * 24 * 60 * 60 * 1000);
+		if (searchText.length >= MIN_SEARCH_LENGTH) return fullTextMatch(lang, searchText);
+		return titlePrefixMatch(searchText);
+	};
 
 	// Determine sort column name for ORDER BY
 	type SortKey = 'latest' | 'week' | 'month' | 'total';
 	const sortKey: SortKey = (sortBy === 'latest' || sortBy === 'week' || sortBy === 'month') ? sortBy : 'total';
+	const sortColumn =
+		sortKey === 'latest' ? recipes.publishedAt :
+		sortKey === 'week' ? recipes.weekUpvotes :
+		sortKey === 'month' ? recipes.monthUpvotes :
+		recipes.upvotes;
+
+	// "Next" links carry a keyset cursor; plain `page` (and "Previous") still use OFFSET
+	let cursor: Cursor | null;
+	try {
+		cursor = decodeCursor(url.searchParams.get('cursor'), sortKey, sortKey === 'latest' ? 'timestamp' : 'integer');
+	} catch {
+		throw error(400, 'Invalid cursor');
+	}
 
-	// Get total count for pagination
-	const countResult = await db
-		.select({ count: sql<number>`count(*)::int` })
-		.from(recipes)
-		.where(and(...conditions));
+	// Total for pagination: exact for small results, planner estimate above the
+	// threshold, cached per filter set (see $lib/server/counts)
+	const countFor = (fuzzy: boolean) =>
+		countRecipes({ lang, difficulty, maxTime, tag, q, fuzzy }, and(...conditions, textCondition(fuzzy)));
+
+	let fuzzy = match === 'fuzzy' && canFuzzySearch(searchText);
+	let { count: totalCount, exact: totalExact } = await countFor(fuzzy);
 
-	const totalCount = countResult[0]?.count || 0;
+	// Nothing matched as typed: retry the first page as a fuzzy title search
+	if (totalCount === 0 && !fuzzy && !cursor && page === 1 && canFuzzySearch(searchText)) {
+		const fuzzyCount = await countFor(true);
+		if (fuzzyCount.count > 0) {
+			fuzzy = true;
+			({ count: totalCount, exact: totalExact } = fuzzyCount);
+		}
+	}
 	const totalPages = Math.ceil(totalCount / RECIPES_PER_PAGE);
 
-	// Get recipes with vote data (including time-filtered counts for efficient sorting)
-	// All vote aggregations are computed in a single pass with conditional sums
-	const recipeResults = await db
-		.select({
-			id: recipes.id,
-			slug: recipes.slug,
-			title: recipes.title,
-			description: recipes.description,
-			photoUrl: recipes.photoUrl,
-			prepTimeMinutes: recipes.prepTimeMinutes,
-			cookTimeMinutes: recipes.cookTimeMinutes,
-			difficulty: recipes.difficulty,
-			cuisine: recipes.cuisine,
-			tag: recipes.tag,
-			authorId: recipes.authorId,
-			publishedAt: recipes.publishedAt,
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`,
-			// Time-filtered upvote counts for sorting (computed in same aggregation pass)
-			weekUpvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 AND ${votes.createdAt} >= ${sevenDaysAgo} THEN 1 ELSE 0 END), 0)::int`,
-			monthUpvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 AND ${votes.createdAt} >= ${thirtyDaysAgo} THEN 1 ELSE 0 END), 0)::int`
-		})
-		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.where(and(...conditions))
-		.groupBy(recipes.id)
-		.orderBy(
-			sortKey === 'latest' ? desc(recipes.publishedAt) :
-			sortKey === 'week' ? desc(sql`COALESCE(SUM(CASE WHEN ${votes.value} > 0 AND ${votes.createdAt} >= ${sevenDaysAgo} THEN 1 ELSE 0 END), 0)`) :
-			sortKey === 'month' ? desc(sql`COALESCE(SUM(CASE WHEN ${votes.value} > 0 AND ${votes.createdAt} >= ${thirtyDaysAgo} THEN 1 ELSE 0 END), 0)`) :
-			desc(sql`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)`)
-		)
-		.limit(RECIPES_PER_PAGE)
-		.offset(offset);
-
-	// Get author info
-	const authorIds = [...new Set(recipeResults.map((r) => r.authorId))];
-	const authors = authorIds.length > 0
-		? await db
-				.select({
-					userId: user.id,
-					username: user.username,
-					fullName: user.fullName,
-					name: user.name
-				})
-				.from(user)
-				.where(sql`${user.id} IN ${authorIds}`)
-		: [];
-
-	const authorMap = new Map(authors.map((a) => [a.userId, a]));
+	let recipeResults: RecipeCardRow[];
+	let nextCursor: string | null = null;
+	let hasNext: boolean;
+
+	if (fuzzy) {
+		// Relevance order can't be a keyset column, so fuzzy results page by OFFSET
+		const pageResults = await selectRecipeCards()
+			.where(and(...conditions, textCondition(true)))
+			.orderBy(desc(fuzzyTitleRank(searchText)), desc(recipes.id))
+			.limit(RECIPES_PER_PAGE + 1)
+			.offset(offset);
+
+		recipeResults = pageResults.slice(0, RECIPES_PER_PAGE);
+		hasNext = pageResults.length > RECIPES_PER_PAGE;
+	} else {
+		// Card columns only: totals and the 7d/30d upvote windows are denormalized on
+		// recipes, so every sort is a top-N index scan with no votes join/GROUP BY
+		// (id breaks ties so the order is stable across pages)
+		const pageResults = await selectRecipeCards(sortColumn)
+			.where(and(
+				...conditions,
+				textCondition(false),
+				cursor ? afterCursor(sortColumn, recipes.id, cursor) : undefined
+			))
+			.orderBy(...keysetOrder(sortColumn, recipes.id))
+			.limit(RECIPES_PER_PAGE + 1)
+			.offset(cursor ? 0 : offset);
+
+		({ rows: recipeResults, nextCursor } = keysetPage(pageResults, RECIPES_PER_PAGE, sortKey));
+		hasNext = nextCursor !== null;
+	}
 
 	// Get popular tags for sidebar (sorted alphabetically, filtered by language)
 	const popularTags = await db
@@ -156,32 +155,31 @@ export const load: PageServerLoad = async ({ url }) => {
 		.limit(12);
 
 	return {
-		recipes: recipeResults.map((r) => {
-			const author = authorMap.get(r.authorId);
-			return {
-				slug: r.slug,
-				title: r.title,
-				description: r.description,
-				image: r.photoUrl,
-				authorName: author?.fullName || author?.name || 'Unknown',
-				authorUsername: author?.username || '',
-				cuisine: r.cuisine,
-				tag: r.tag,
-				difficulty: r.difficulty as 'easy' | 'medium' | 'hard' | null,
-				prepTimeMinutes: r.prepTimeMinutes,
-				cookTimeMinutes: r.cookTimeMinutes,
-				upvotes: r.upvotes,
-				downvotes: r.downvotes,
-				publishedAt: r.publishedAt
-			};
-		}),
+		recipes: recipeResults.map((r) => ({
+			slug: r.slug,
+			title: r.title,
+			description: r.description,
+			image: r.photoUrl,
+			authorName: r.authorFullName || r.authorName || 'Unknown',
+			authorUsername: r.authorUsername || '',
+			cuisine: r.cuisine,
+			tag: r.tag,
+			difficulty: r.difficulty as 'easy' | 'medium' | 'hard' | null,
+			prepTimeMinutes: r.prepTimeMinutes,
+			cookTimeMinutes: r.cookTimeMinutes,
+			upvotes: r.upvotes,
+			downvotes: r.downvotes,
+			publishedAt: r.publishedAt
+		})),
 		popularTags: popularTags.map((t) => t.tag).filter(Boolean) as string[],
 		pagination: {
 			page,
 			totalPages,
 			totalCount,
-			hasNext: page < totalPages,
-			hasPrev: page > 1
+			totalExact,
+			hasNext,
+			hasPrev: page > 1,
+			nextCursor
 		},
 		filters: {
 			sortBy,
@@ -189,7 +187,9 @@ export const load: PageServerLoad = async ({ url }) => {
 			maxTime,
 			tag,
 			q,
-			lang
+			lang,
+			// True when results are typo-tolerant title matches (requested or as a fallback)
+			fuzzy
 		}
 	};
 };
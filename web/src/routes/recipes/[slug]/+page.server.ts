@@ -1,14 +1,15 @@
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
 import { recipes, ingredients, steps, tips, equipment, user, votes } from '$lib/server/db/schema';
-import { eq, sql, asc, and } from 'drizzle-orm';
+import { eq, asc, and } from 'drizzle-orm';
 import { error } from '@sveltejs/kit';
+import { withPendingVotes } from '$lib/server/votes';
 
 export const load: PageServerLoad = async ({ params, locals }) => {
 	const { slug } = params;
 	const currentUser = locals.user;
 
-	// Get recipe with author info and vote counts in a single query (fixes N+1)
+	// Get recipe with author info; vote counts are the denormalized recipe columns
 	const recipeResult = await db
 		.select({
 			id: recipes.id,
@@ -25,6 +26,7 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			commentCount: recipes.commentCount,
 			authorId: recipes.authorId,
 			isPublished: recipes.isPublished,
+			moderationStatus: recipes.moderationStatus,
 			publishedAt: recipes.publishedAt,
 			updatedAt: recipes.updatedAt,
 			// Author info via JOIN
@@ -32,15 +34,13 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			authorFullName: user.fullName,
 			authorName: user.name,
 			authorProfileTier: user.profileTier,
-			// Vote counts via aggregate
-			upvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`,
-			downvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} < 0 THEN 1 ELSE 0 END), 0)::int`
+			// Denormalized vote counters
+			upvotes: recipes.upvotes,
+			downvotes: recipes.downvotes
 		})
 		.from(recipes)
 		.leftJoin(user, eq(recipes.authorId, user.id))
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
 		.where(eq(recipes.slug, slug))
-		.groupBy(recipes.id, user.id, user.username, user.fullName, user.name, user.profileTier)
 		.limit(1);
 
 	const recipe = recipeResult[0];
@@ -125,8 +125,7 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			prepTimeMinutes: recipe.prepTimeMinutes,
 			cookTimeMinutes: recipe.cookTimeMinutes,
 			baseServings: recipe.servings,
-			upvotes: recipe.upvotes,
-			downvotes: recipe.downvotes,
+			...withPendingVotes(recipe.id, { upvotes: recipe.upvotes, downvotes: recipe.downvotes }),
 			userVote,
 			commentCount: recipe.commentCount,
 			publishedAt: recipe.publishedAt,
@@ -141,6 +140,8 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			tips: tipList,
 			equipment: equipmentList
 		},
-		isOwn: currentUser?.id === recipe.authorId
+		isOwn: currentUser?.id === recipe.authorId,
+		// Shown to the owner while moderation is pending or after a rejection
+		moderationStatus: currentUser?.id === recipe.authorId ? recipe.moderationStatus : null
 	};
 };
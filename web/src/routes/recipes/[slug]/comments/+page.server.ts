@@ -2,7 +2,8 @@ import { error } from '@sveltejs/kit';
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
 import { recipes, comments, user } from '$lib/server/db/schema';
-import { eq, desc } from 'drizzle-orm';
+import { and, eq, desc } from 'drizzle-orm';
+import { visibleComments } from '$lib/server/moderation';
 
 export const load: PageServerLoad = async ({ params, locals }) => {
 	const { slug } = params;
@@ -45,11 +46,17 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			userName: user.name,
 			userImage: user.image,
 			fullName: user.fullName,
-			photoUrl: user.photoUrl
+			photoUrl: user.photoUrl,
+			moderationStatus: comments.moderationStatus
 		})
 		.from(comments)
 		.innerJoin(user, eq(comments.userId, user.id))
-		.where(eq(comments.recipeId, recipe.id))
+		.where(
+			and(
+				eq(comments.recipeId, recipe.id),
+				visibleComments(locals.user?.id)
+			)
+		)
 		.orderBy(desc(comments.createdAt));
 
 	return {
@@ -68,7 +75,8 @@ export const load: PageServerLoad = async ({ params, locals }) => {
 			authorName: c.fullName || c.userName || 'Anonymous',
 			authorAvatar: c.photoUrl || c.userImage || null,
 			isRecipeAuthor: c.userId === recipe.authorId,
-			isOwn: locals.user?.id === c.userId
+			isOwn: locals.user?.id === c.userId,
+			isPending: c.moderationStatus === 'pending'
 		})),
 		isLoggedIn: !!locals.user,
 		currentUserId: locals.user?.id || null
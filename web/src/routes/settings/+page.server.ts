@@ -1,9 +1,10 @@
 import { redirect } from '@sveltejs/kit';
 import type { PageServerLoad } from './$types';
 import { db } from '$lib/server/db';
-import { user, account, recipes, votes, TIER_REQUIREMENTS } from '$lib/server/db/schema';
+import { user, account, TIER_REQUIREMENTS } from '$lib/server/db/schema';
 import type { ProfileTier } from '$lib/server/db/schema/auth';
-import { eq, and, sql } from 'drizzle-orm';
+import { eq, and } from 'drizzle-orm';
+import { getAuthorRecipeStats } from '$lib/server/recipeCards';
 
 export const load: PageServerLoad = async ({ locals }) => {
 	if (!locals.user) {
@@ -51,16 +52,7 @@ export const load: PageServerLoad = async ({ locals }) => {
 	}
 
 	// Calculate stats for tier progress
-	const statsResult = await db
-		.select({
-			recipeCount: sql<number>`COUNT(DISTINCT ${recipes.id})::int`,
-			totalUpvotes: sql<number>`COALESCE(SUM(CASE WHEN ${votes.value} > 0 THEN 1 ELSE 0 END), 0)::int`
-		})
-		.from(recipes)
-		.leftJoin(votes, eq(recipes.id, votes.recipeId))
-		.where(and(eq(recipes.authorId, userId), eq(recipes.isPublished, true)));
-
-	const stats = statsResult[0] ?? { recipeCount: 0, totalUpvotes: 0 };
+	const stats = await getAuthorRecipeStats(userId);
 
 	// Determine eligibility
 	const currentTier = (userDetails?.profileTier ?? 'user') as ProfileTier;